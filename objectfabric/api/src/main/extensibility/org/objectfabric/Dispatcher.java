@@ -17,6 +17,13 @@ import org.objectfabric.Counter.CounterSharedVersion;
 import org.objectfabric.Counter.CounterVersion;
 import org.objectfabric.Resource.ResourceRead;
 import org.objectfabric.Resource.ResourceVersion;
+import org.objectfabric.TKeyedLong.LongEntries;
+import org.objectfabric.TKeyedLong.TKeyedLongRead;
+import org.objectfabric.TKeyedLong.TKeyedLongSharedVersion;
+import org.objectfabric.TKeyedLong.TKeyedLongVersion;
+import org.objectfabric.TList.TListRead;
+import org.objectfabric.TList.TListSharedVersion;
+import org.objectfabric.TList.TListVersion;
 
 @SuppressWarnings("rawtypes")
 abstract class Dispatcher extends Extension {
@@ -239,6 +246,102 @@ abstract class Dispatcher extends Extension {
         throw new IllegalStateException();
     }
 
+    /*
+     * TKeyedLong, reported like TKeyed with boxed keys and values.
+     */
+
+    @Override
+    void visit(TKeyedLongRead version) {
+        LongEntries entries = version.getEntries();
+
+        if (entries != null || version.getFullyRead()) {
+            TKeyedLong object = (TKeyedLong) version.object();
+            int index;
+
+            if (interrupted())
+                index = resumeInt();
+            else
+                index = -1;
+
+            if (index < 0) {
+                if (version.getFullyRead()) {
+                    onKeyedFullRead(object);
+
+                    if (interrupted()) {
+                        interruptInt(index);
+                        return;
+                    }
+                }
+
+                index = 0;
+            }
+
+            if (entries != null) {
+                for (; index < entries.States.length; index++) {
+                    if (entries.States[index] == LongEntries.PUT) {
+                        onKeyedRead(object, object.box(entries.Keys[index]));
+
+                        if (interrupted()) {
+                            interruptInt(index);
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    void visit(TKeyedLongVersion version) {
+        LongEntries entries = version.getEntries();
+
+        if (entries != null || version.getCleared()) {
+            TKeyedLong object = (TKeyedLong) version.object();
+            int index;
+
+            if (interrupted())
+                index = resumeInt();
+            else
+                index = -1;
+
+            if (index < 0) {
+                if (version.getCleared()) {
+                    onKeyedClear(object);
+
+                    if (interrupted()) {
+                        interruptInt(index);
+                        return;
+                    }
+                }
+
+                index = 0;
+            }
+
+            if (entries != null) {
+                for (; index < entries.States.length; index++) {
+                    byte state = entries.States[index];
+
+                    if (state == LongEntries.PUT || state == LongEntries.REMOVAL) {
+                        if (state == LongEntries.REMOVAL)
+                            onKeyedRemoval(object, object.box(entries.Keys[index]));
+                        else
+                            onKeyedPut(object, object.box(entries.Keys[index]), object.box(entries, index));
+
+                        if (interrupted()) {
+                            interruptInt(index);
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    void visit(TKeyedLongSharedVersion shared) {
+        throw new IllegalStateException();
+    }
+
     /*
      * TCounter.
      */
@@ -263,4 +366,78 @@ abstract class Dispatcher extends Extension {
     void visit(CounterSharedVersion shared) {
         throw new IllegalStateException();
     }
+
+    /*
+     * TList.
+     */
+
+    protected void onListRead(TObject object) {
+    }
+
+    protected void onListAdd(TObject object, int index, Object value) {
+    }
+
+    protected void onListRemove(TObject object, int index) {
+    }
+
+    protected void onListSet(TObject object, int index, Object value) {
+    }
+
+    protected void onListClear(TObject object) {
+    }
+
+    @Override
+    void visit(TListRead version) {
+        onListRead(version.object());
+    }
+
+    @Override
+    void visit(TListVersion version) {
+        int index;
+
+        if (interrupted())
+            index = resumeInt();
+        else
+            index = -1;
+
+        if (index < 0) {
+            if (version.getCleared()) {
+                onListClear(version.object());
+
+                if (interrupted()) {
+                    interruptInt(index);
+                    return;
+                }
+            }
+
+            index = 0;
+        }
+
+        for (; index < version.getCount(); index++) {
+            switch (version.getKind(index)) {
+                case TListVersion.ADD:
+                case TListVersion.INSERT:
+                    onListAdd(version.object(), version.getIndex(index), version.getValue(index));
+                    break;
+                case TListVersion.REMOVE:
+                    onListRemove(version.object(), version.getIndex(index));
+                    break;
+                case TListVersion.SET:
+                    onListSet(version.object(), version.getIndex(index), version.getValue(index));
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+
+            if (interrupted()) {
+                interruptInt(index);
+                return;
+            }
+        }
+    }
+
+    @Override
+    void visit(TListSharedVersion shared) {
+        throw new IllegalStateException();
+    }
 }
\ No newline at end of file
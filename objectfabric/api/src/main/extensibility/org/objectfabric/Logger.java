@@ -231,6 +231,30 @@ public class Logger extends Dispatcher implements Closeable {
         onChange(object, "Clear");
     }
 
+    /*
+     * TList.
+     */
+
+    @Override
+    protected void onListAdd(TObject object, int index, Object value) {
+        onChange(object, "Add " + index + ", " + writeField(value));
+    }
+
+    @Override
+    protected void onListRemove(TObject object, int index) {
+        onChange(object, "Remove " + index);
+    }
+
+    @Override
+    protected void onListSet(TObject object, int index, Object value) {
+        onChange(object, "Set " + index + ", " + writeField(value));
+    }
+
+    @Override
+    protected void onListClear(TObject object) {
+        onChange(object, "Clear");
+    }
+
     // TODO counter
 
     @SuppressWarnings("serial")
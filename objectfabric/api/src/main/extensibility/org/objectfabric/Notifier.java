@@ -283,6 +283,62 @@ class Notifier extends Dispatcher {
         }
     }
 
+    /*
+     * TList.
+     */
+
+    @Override
+    protected final void onListAdd(TObject object, final int index, Object value) {
+        if (object.listeners() != null) {
+            invoke(object, new Invocation() {
+
+                @Override
+                void run(Object listener) {
+                    ((ListListener) listener).onAdd(index);
+                }
+            });
+        }
+    }
+
+    @Override
+    protected final void onListRemove(TObject object, final int index) {
+        if (object.listeners() != null) {
+            invoke(object, new Invocation() {
+
+                @Override
+                void run(Object listener) {
+                    ((ListListener) listener).onRemove(index);
+                }
+            });
+        }
+    }
+
+    @Override
+    protected final void onListSet(TObject object, final int index, Object value) {
+        if (object.listeners() != null) {
+            invoke(object, new Invocation() {
+
+                @Override
+                void run(Object listener) {
+                    ((ListListener) listener).onSet(index);
+                }
+            });
+        }
+    }
+
+    @Override
+    protected final void onListClear(TObject object) {
+        if (object.listeners() != null) {
+            invoke(object, new Invocation() {
+
+                @Override
+                void run(Object listener) {
+                    ((ListListener) listener).onClear();
+                }
+            });
+        }
+    }
+
     /*
      * Resources.
      */
@@ -17,6 +17,12 @@ import org.objectfabric.Counter.CounterSharedVersion;
 import org.objectfabric.Counter.CounterVersion;
 import org.objectfabric.Resource.ResourceRead;
 import org.objectfabric.Resource.ResourceVersion;
+import org.objectfabric.TKeyedLong.TKeyedLongRead;
+import org.objectfabric.TKeyedLong.TKeyedLongSharedVersion;
+import org.objectfabric.TKeyedLong.TKeyedLongVersion;
+import org.objectfabric.TList.TListRead;
+import org.objectfabric.TList.TListSharedVersion;
+import org.objectfabric.TList.TListVersion;
 import org.objectfabric.ThreadAssert.SingleThreaded;
 
 /**
@@ -56,6 +62,16 @@ abstract class Visitor extends Continuation {
 
     abstract void visit(TKeyedSharedVersion shared);
 
+    /*
+     * TKeyedLong.
+     */
+
+    abstract void visit(TKeyedLongRead read);
+
+    abstract void visit(TKeyedLongVersion version);
+
+    abstract void visit(TKeyedLongSharedVersion shared);
+
     /*
      * TCounter.
      */
@@ -65,4 +81,14 @@ abstract class Visitor extends Continuation {
     abstract void visit(CounterVersion version);
 
     abstract void visit(CounterSharedVersion version);
+
+    /*
+     * TList.
+     */
+
+    abstract void visit(TListRead read);
+
+    abstract void visit(TListVersion version);
+
+    abstract void visit(TListSharedVersion version);
 }
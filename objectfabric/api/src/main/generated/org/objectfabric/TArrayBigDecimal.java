@@ -91,11 +91,202 @@ public class TArrayBigDecimal extends TIndexed implements Iterable<java.math.Big
         return value;
     }
 
-    @SuppressWarnings("cast")
     public final void set(int index, java.math.BigDecimal value) {
         if (index < 0 || index >= length())
             throw new IndexOutOfBoundsException();
 
+        checkResource(value);
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        TArrayVersionBigDecimal version = (TArrayVersionBigDecimal) getOrCreateVersion_(inner);
+        version.setBit(index);
+        version.set(index, value);
+        endWrite_(outer, inner);
+    }
+
+    /*
+     * Bulk accesses. Elements are read and written a unit of the bit set at a time, in a
+     * single transaction.
+     */
+
+    /**
+     * Copies length elements starting at index to array, starting at offset.
+     */
+    @SuppressWarnings({ "cast", "unchecked" })
+    public final void getRange(int index, java.math.BigDecimal[] array, int offset, int length) {
+        checkRange(index, length, length());
+        checkRange(offset, length, array.length);
+
+        if (length == 0)
+            return;
+
+        Transaction outer = current_();
+        Transaction inner = startRead_(outer);
+        int end = index + length;
+        TIndexed.VersionN[] versions = getVersionsN_(inner, index, end);
+
+        for (int i = index; i < end;) {
+            int next = org.objectfabric.Bits.unitEnd(i, end);
+            int intIndex = i >> org.objectfabric.Bits.BITS_PER_UNIT_SHIFT;
+            TArrayVersionBigDecimal version = (TArrayVersionBigDecimal) findVersionN(versions, intIndex, org.objectfabric.Bits.unitMask(i, next));
+
+            if (version != null) {
+                java.math.BigDecimal[] unit = version.getUnit(intIndex);
+
+                if (unit != null)
+                    Platform.arraycopy(unit, i & org.objectfabric.Bits.BIT_INDEX_MASK, array, offset + i - index, next - i);
+                else
+                    for (int j = i; j < next; j++)
+                        array[offset + j - index] = null;
+            } else {
+                for (int j = i; j < next; j++) {
+                    version = (TArrayVersionBigDecimal) findVersionN(versions, j);
+                    array[offset + j - index] = (java.math.BigDecimal) version.get(j);
+                }
+            }
+
+            i = next;
+        }
+
+        endRead_(outer, inner);
+    }
+
+    /**
+     * Sets length elements starting at index to those of array, starting at offset.
+     */
+    public final void setRange(int index, java.math.BigDecimal[] array, int offset, int length) {
+        checkRange(index, length, length());
+        checkRange(offset, length, array.length);
+
+        if (CAN_BE_TOBJECT)
+            for (int i = offset + length - 1; i >= offset; i--)
+                checkResource(array[i]);
+
+        if (length == 0)
+            return;
+
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        TArrayVersionBigDecimal version = (TArrayVersionBigDecimal) getOrCreateVersion_(inner);
+        int end = index + length;
+
+        for (int i = index; i < end;) {
+            int next = org.objectfabric.Bits.unitEnd(i, end);
+            version.setUnit(i, next - i, array, offset + i - index, null);
+            i = next;
+        }
+
+        endWrite_(outer, inner);
+    }
+
+    /**
+     * Sets length elements starting at index to value.
+     */
+    public final void fill(int index, int length, java.math.BigDecimal value) {
+        checkRange(index, length, length());
+        checkResource(value);
+
+        if (length == 0)
+            return;
+
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        TArrayVersionBigDecimal version = (TArrayVersionBigDecimal) getOrCreateVersion_(inner);
+        int end = index + length;
+
+        for (int i = index; i < end;) {
+            int next = org.objectfabric.Bits.unitEnd(i, end);
+            version.setUnit(i, next - i, null, 0, value);
+            i = next;
+        }
+
+        endWrite_(outer, inner);
+    }
+
+    /**
+     * Copies length elements of source starting at sourceIndex to this array, starting at
+     * index. Source can be this array, and ranges can overlap.
+     */
+    @SuppressWarnings({ "cast", "unchecked" })
+    public final void copyFrom(TArrayBigDecimal source, int sourceIndex, int index, int length) {
+        checkRange(sourceIndex, length, source.length());
+        checkRange(index, length, length());
+
+        if (length == 0)
+            return;
+
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        boolean ok = false;
+
+        try {
+            TransactionBase.checkWorkspace(inner, source);
+            int end = sourceIndex + length;
+            TIndexed.VersionN[] versions = source.getVersionsN_(inner, sourceIndex, end);
+
+            if (CAN_BE_TOBJECT && source.resource() != resource())
+                for (int i = sourceIndex; i < end; i++)
+                    checkResource((java.math.BigDecimal) ((TArrayVersionBigDecimal) findVersionN(versions, i)).get(i));
+
+            TArrayVersionBigDecimal version = (TArrayVersionBigDecimal) getOrCreateVersion_(inner);
+            int delta = index - sourceIndex;
+
+            /*
+             * Segments end at unit boundaries of both source and this array. Copy from the
+             * end if this array is the source and elements move up, like memmove.
+             */
+            if (delta <= 0) {
+                for (int i = sourceIndex; i < end;) {
+                    int next = org.objectfabric.Bits.unitEnd(i, end);
+                    int limit = org.objectfabric.Bits.unitEnd(i + delta, end + delta) - delta;
+                    next = next < limit ? next : limit;
+                    copy(versions, version, i, next, delta);
+                    i = next;
+                }
+            } else {
+                int mask = ~org.objectfabric.Bits.BIT_INDEX_MASK;
+
+                for (int i = end; i > sourceIndex;) {
+                    int previous = (i - 1) & mask;
+                    int limit = ((i + delta - 1) & mask) - delta;
+                    previous = previous > limit ? previous : limit;
+                    previous = previous > sourceIndex ? previous : sourceIndex;
+                    copy(versions, version, previous, i, delta);
+                    i = previous;
+                }
+            }
+
+            ok = true;
+        } finally {
+            endWrite_(outer, inner, ok);
+        }
+    }
+
+    @SuppressWarnings("cast")
+    private final void copy(TIndexed.VersionN[] versions, TArrayVersionBigDecimal version, int start, int end, int delta) {
+        int intIndex = start >> org.objectfabric.Bits.BITS_PER_UNIT_SHIFT;
+        TArrayVersionBigDecimal source = (TArrayVersionBigDecimal) findVersionN(versions, intIndex, org.objectfabric.Bits.unitMask(start, end));
+
+        if (source != null) {
+            java.math.BigDecimal[] unit = source.getUnit(intIndex);
+            version.setUnit(start + delta, end - start, unit, start & org.objectfabric.Bits.BIT_INDEX_MASK, null);
+        } else {
+            for (int i = 0; i < end - start; i++) {
+                int j = delta <= 0 ? start + i : end - 1 - i;
+                source = (TArrayVersionBigDecimal) findVersionN(versions, j);
+                version.setBit(j + delta);
+                version.set(j + delta, (java.math.BigDecimal) source.get(j));
+            }
+        }
+    }
+
+    private static void checkRange(int index, int length, int capacity) {
+        if (index < 0 || length < 0 || index > capacity - length)
+            throw new IndexOutOfBoundsException();
+    }
+
+    @SuppressWarnings("cast")
+    private final void checkResource(java.math.BigDecimal value) {
         Object asObject = (Object) value;
 
         if (IS_TOBJECT) {
@@ -105,13 +296,6 @@ public class TArrayBigDecimal extends TIndexed implements Iterable<java.math.Big
             if (asObject instanceof TObject && ((TObject) asObject).resource() != resource())
                 wrongResource_();
         }
-
-        Transaction outer = current_();
-        Transaction inner = startWrite_(outer);
-        TArrayVersionBigDecimal version = (TArrayVersionBigDecimal) getOrCreateVersion_(inner);
-        version.setBit(index);
-        version.set(index, value);
-        endWrite_(outer, inner);
     }
 
     @Override
@@ -88,6 +88,67 @@ class TArrayVersionBinary extends TIndexed.VersionN {
         }
     }
 
+    /**
+     * Values of the unit at intIndex, or null if none has been set.
+     */
+    final byte[][] getUnit(int intIndex) {
+        if (_values != null) {
+            int folded = org.objectfabric.Bits.getFoldedIntIndexFromIntIndex(getBits(), intIndex);
+
+            if (folded >= 0)
+                return _values[folded];
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes length elements from index, which must all be in the same unit. Elements are
+     * copied from values at offset, or all set to value if values is null.
+     */
+    final void setUnit(int index, int length, byte[][] values, int offset, byte[] value) {
+        int intIndex = index >> org.objectfabric.Bits.BITS_PER_UNIT_SHIFT;
+        setUnitBits(intIndex, org.objectfabric.Bits.unitMask(index, index + length));
+        boolean allocate = values != null;
+
+        if (!allocate)
+            if (value != null)
+                allocate = true;
+
+        if (_values == null) {
+            if (allocate) {
+                int arrayLength = getBits().length;
+                _values = new byte[arrayLength][][];
+            }
+        } else {
+            if (org.objectfabric.Debug.ENABLED)
+                org.objectfabric.Debug.assertion(_values.length == getBits().length);
+        }
+
+        if (_values != null) {
+            int folded = org.objectfabric.Bits.getFoldedIntIndexFromIntIndex(getBits(), intIndex);
+
+            if (_values[folded] == null) {
+                if (allocate) {
+                    int arrayLength = org.objectfabric.Bits.BITS_PER_UNIT;
+                    _values[folded] = new byte[arrayLength][];
+                }
+            }
+
+            byte[][] current = _values[folded];
+
+            if (current != null) {
+                int start = index & org.objectfabric.Bits.BIT_INDEX_MASK;
+
+                if (values != null)
+                    Platform.arraycopy(values, offset, current, start, length);
+                else
+                    for (int i = start + length - 1; i >= start; i--)
+                        current[i] = value;
+            }
+        }
+    }
+
     @SuppressWarnings("cast")
     @Override
     public final void setAsObject(int index, java.lang.Object value) {
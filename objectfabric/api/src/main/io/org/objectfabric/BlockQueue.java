@@ -46,8 +46,54 @@ abstract class BlockQueue extends Actor {
             }
         }
 
-        final Block block = new Block(uri, tick, duplicates, requested, removals);
+        enqueueBlock(new Block(uri, tick, duplicates, requested, removals));
+    }
+
+    /**
+     * Enqueues a block to several connections, e.g. subscribers of a resource. Each buff
+     * is duplicated for all connections in one step, the rest of the framing is shared.
+     * Array can contain other objects, ignored, and connection to skip can be null.
+     */
+    static void enqueueBlock(Object[] connections, Connection skip, URI uri, long tick, Buff[] buffs, long[] removals, boolean requested) {
+        int count = 0;
+
+        for (int i = 0; i < connections.length; i++)
+            if (connections[i] != skip && connections[i] instanceof Connection)
+                count++;
+
+        if (count == 0)
+            return;
+
+        if (Debug.THREADS)
+            ThreadAssert.exchangeTake(buffs);
+
+        Buff[][] duplicates = new Buff[count][buffs.length];
+
+        for (int b = 0; b < buffs.length; b++) {
+            Buff[] copies = buffs[b].duplicate(count);
+
+            for (int i = 0; i < count; i++)
+                duplicates[i][b] = copies[i];
+        }
+
+        for (int i = 0, c = 0; i < connections.length; i++) {
+            if (connections[i] != skip && connections[i] instanceof Connection) {
+                BlockQueue queue = (Connection) connections[i];
+
+                if (Debug.THREADS)
+                    for (int b = 0; b < buffs.length; b++)
+                        ThreadAssert.exchangeGive(queue, duplicates[c][b]);
+
+                queue.enqueueBlock(new Block(uri, tick, duplicates[c++], requested, removals));
+            }
+        }
+
+        if (Debug.THREADS)
+            for (int b = 0; b < buffs.length; b++)
+                ThreadAssert.exchangeGive(buffs, buffs[b]);
+    }
 
+    private final void enqueueBlock(final Block block) {
         addAndRun(new Message() {
 
             @Override
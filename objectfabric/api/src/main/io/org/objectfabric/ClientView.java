@@ -84,7 +84,7 @@ class ClientView extends ArrayView {
         if (connection != null)
             for (int i = 0; i < ticks.length; i++)
                 if (!Tick.isNull(ticks[i]))
-                    if (InFlight.starting(uri, ticks[i]))
+                    if (InFlight.asked(uri, ticks[i], this))
                         connection.postGet(uri, ticks[i]);
 
         // Send new local blocks
@@ -119,6 +119,11 @@ class ClientView extends ArrayView {
             getUnknown(uri, ticks);
     }
 
+    @Override
+    final boolean mayHave(long tick) {
+        return _permission != Permission.NONE;
+    }
+
     @Override
     final void getBlock(URI uri, long tick) {
         if (_permission != Permission.NONE) {
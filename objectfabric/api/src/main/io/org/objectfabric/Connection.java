@@ -24,7 +24,6 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
 
     static final byte COMMAND_GET_KNOWN = 1;
 
-    // TODO send delta instead of full array?
     static final byte COMMAND_ON_KNOWN = 2;
 
     static final byte COMMAND_GET_BLOCK = 3;
@@ -47,6 +46,27 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
 
     static final byte COMMAND_ADDRESS = 11;
 
+    /*
+     * Set on per resource commands if path is replaced by an id. Id 0 means path follows
+     * and gets next id, starting at 1. Only sent to peers from PATH_IDS_VERSION.
+     */
+    static final byte FLAG_PATH_ID = 1 << 6;
+
+    /*
+     * Set on COMMAND_ON_KNOWN if ticks are encoded as changes to the set last sent for
+     * the same path on this connection. Only sent to peers from KNOWN_DELTAS_VERSION.
+     */
+    static final byte FLAG_KNOWN_DELTA = 1 << 5;
+
+    private static final int FLAGS = FLAG_PATH_ID | FLAG_KNOWN_DELTA;
+
+    static final byte PATH_IDS_VERSION = 2;
+
+    static final byte KNOWN_DELTAS_VERSION = 3;
+
+    // Bounds memory kept by both sides, further paths are sent as strings
+    static final int MAX_PATH_IDS = 1 << 16;
+
     private static final Permission[] PERMISSIONS = Permission.values();
 
     //
@@ -67,6 +87,10 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
 
     private int _leftoverSize = -1;
 
+    private List<String> _paths;
+
+    private PlatformMap<String, long[]> _receivedKnown;
+
     // Write thread
 
     private final ImmutableWriter _writer = new ImmutableWriter(new List<Object>());
@@ -75,6 +99,13 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
 
     private final PlatformConcurrentQueue<Write> _writes = new PlatformConcurrentQueue<Write>();
 
+    // 0 until peer's first byte has been read
+    private byte _peerVersion;
+
+    private PlatformMap<String, Integer> _pathIds;
+
+    private PlatformMap<String, long[]> _sentKnown;
+
     private final PlatformMap<URI, ServerView> _subscribed;
 
     private static final int WRITE_IDLE = 0, WRITE_ONGOING = 1, WRITE_ONGOING_INTERRUPTED = 2;
@@ -230,14 +261,34 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
         });
     }
 
-    final void postKnown(final URI uri, final long[] ticks) {
-        post(new Write() {
+    final void postKnown(URI uri, long[] ticks) {
+        post(known(uri, ticks));
+    }
+
+    /**
+     * Writes only depend on the connection they run on, so the same one can be posted
+     * to all subscribers of a resource.
+     */
+    static void postKnown(Connection[] connections, URI uri, long[] ticks) {
+        if (connections.length > 0) {
+            Write write = known(uri, ticks);
+
+            for (int i = 0; i < connections.length; i++)
+                connections[i].post(write);
+        }
+    }
+
+    private static Write known(final URI uri, long[] ticks) {
+        // Kept by connections as base for next deltas
+        final long[] snapshot = Platform.get().clone(ticks);
+
+        return new Write() {
 
             @Override
             void run(Connection connection) {
-                connection.write(Connection.COMMAND_ON_KNOWN, uri.path(), 0, ticks);
+                connection.writeKnown(uri.path(), snapshot);
             }
-        });
+        };
     }
 
     final void postGet(final URI uri, final long tick) {
@@ -364,9 +415,19 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
         if (buff.remaining() > 0) {
             _reader.setBuff(buff);
 
-            if (_leftoverSize < 0)
+            if (_leftoverSize < 0) {
                 _reader.startRead();
-            else {
+
+                final byte version = _reader.serializationVersion();
+
+                post(new Write() {
+
+                    @Override
+                    void run(Connection connection) {
+                        connection._peerVersion = version;
+                    }
+                });
+            } else {
                 buff.position(buff.position() - _leftoverSize);
                 buff.putImmutably(_leftover, 0, _leftoverSize);
             }
@@ -384,9 +445,11 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
 
     private static final int STEP_READ_CODE = 0;
 
-    private static final int STEP_READ_URI = 1;
+    private static final int STEP_READ_PATH_ID = 1;
+
+    private static final int STEP_READ_URI = 2;
 
-    private static final int STEP_READ_COMMAND = 2;
+    private static final int STEP_READ_COMMAND = 3;
 
     private final void readImpl() {
         for (;;) {
@@ -415,20 +478,45 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
                     code = _reader.readByte(Writer.DEBUG_TAG_CONNECTION);
 
                     if (Debug.COMMUNICATIONS_LOG)
-                        Log.write("Read command: " + getCommandString(code));
+                        Log.write("Read command: " + getCommandString(code & ~FLAGS));
                 }
-                case STEP_READ_URI: {
-                    if (code < COMMAND_HEADERS) { // TODO ew
-                        path = _reader.readString();
+                case STEP_READ_PATH_ID: {
+                    if ((code & FLAG_PATH_ID) != 0) {
+                        int id = Serialization.readVarInt(_reader);
 
                         if (_reader.interrupted()) {
                             _reader.interrupt(uri);
                             _reader.interrupt(path);
                             _reader.interruptByte(code);
-                            _reader.interruptInt(STEP_READ_URI);
+                            _reader.interruptInt(STEP_READ_PATH_ID);
                             return;
                         }
 
+                        if (id != 0)
+                            path = _paths.get(id - 1);
+                    }
+                }
+                case STEP_READ_URI: {
+                    if ((code & ~FLAGS) < COMMAND_HEADERS) { // TODO ew
+                        if (path == null) {
+                            path = _reader.readString();
+
+                            if (_reader.interrupted()) {
+                                _reader.interrupt(uri);
+                                _reader.interrupt(path);
+                                _reader.interruptByte(code);
+                                _reader.interruptInt(STEP_READ_URI);
+                                return;
+                            }
+
+                            if ((code & FLAG_PATH_ID) != 0) {
+                                if (_paths == null)
+                                    _paths = new List<String>();
+
+                                _paths.add(path);
+                            }
+                        }
+
                         if (_location instanceof Server)
                             uri = ((Server) _location).resolver().resolve(_address, path);
                         else
@@ -436,7 +524,7 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
                     }
                 }
                 case STEP_READ_COMMAND: {
-                    switch (code) {
+                    switch (code & ~FLAGS) {
                         case COMMAND_PERMISSION: {
                             if (!_reader.canReadByte()) {
                                 _reader.interrupt(uri);
@@ -460,7 +548,25 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
                             break;
                         }
                         case COMMAND_ON_KNOWN: {
-                            long[] ticks = Serialization.readTicks(_reader);
+                            long[] ticks;
+
+                            if ((code & FLAG_KNOWN_DELTA) == 0)
+                                ticks = Serialization.readTicks(_reader);
+                            else {
+                                byte[] delta = _reader.readBinary();
+
+                                if (_reader.interrupted())
+                                    ticks = null;
+                                else {
+                                    if (_receivedKnown == null)
+                                        _receivedKnown = new PlatformMap<String, long[]>();
+
+                                    long[] previous = _receivedKnown.get(path);
+                                    ticks = Serialization.decodeKnown(previous, delta);
+                                    _receivedKnown.put(path, ticks);
+                                    ticks = Platform.get().clone(ticks);
+                                }
+                            }
 
                             if (_reader.interrupted()) {
                                 _reader.interrupt(uri);
@@ -758,7 +864,9 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
         for (int i = 0; i < _buffs.size(); i++)
             room -= _buffs.get(i).remaining();
 
+        long start = Metrics.start();
         boolean done = write(_buffs, room);
+        Metrics.onConnectionWrite(start);
 
         if (Debug.ENABLED) {
             for (int i = 0; i < _buffs.size(); i++) {
@@ -881,35 +989,104 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
 
     private static final int STEP_COMMAND = 0;
 
-    private static final int STEP_URI = 1;
+    private static final int STEP_PATH_ID = 1;
+
+    private static final int STEP_URI = 2;
+
+    private static final int STEP_BLOCK = 3;
+
+    private static final int STEP_SET = 4;
+
+    private static final int STEP_BINARY = 5;
 
-    private static final int STEP_BLOCK = 2;
+    // How path is written, chosen with command
+    private static final int PATH_STRING = 0, PATH_DEFINE = 1, PATH_ID = 2;
 
-    private static final int STEP_SET = 3;
+    private final void writeKnown(String path, long[] ticks) {
+        byte[] delta = null;
+
+        if (_writer.interrupted())
+            delta = (byte[]) _writer.resume();
+        else if (_peerVersion >= KNOWN_DELTAS_VERSION) {
+            if (_sentKnown == null)
+                _sentKnown = new PlatformMap<String, long[]>();
+
+            delta = Serialization.encodeKnown(_sentKnown.get(path), ticks);
+            _sentKnown.put(path, ticks);
+        }
+
+        if (delta == null)
+            write(COMMAND_ON_KNOWN, path, 0, ticks);
+        else
+            write((byte) (COMMAND_ON_KNOWN | FLAG_KNOWN_DELTA), path, 0, null, delta);
+
+        if (_writer.interrupted())
+            _writer.interrupt(delta);
+    }
 
     final void write(byte command, String path, long tick, long[] ticks) {
+        write(command, path, tick, ticks, null);
+    }
+
+    private final void write(byte command, String path, long tick, long[] ticks, byte[] binary) {
         int step = STEP_COMMAND;
+        int mode = PATH_STRING;
 
-        if (_writer.interrupted())
+        if (_writer.interrupted()) {
             step = _writer.resumeInt();
+            mode = _writer.resumeInt();
+        }
 
         switch (step) {
             case STEP_COMMAND: {
                 if (!_writer.canWriteByte()) {
+                    _writer.interruptInt(mode);
                     _writer.interruptInt(STEP_COMMAND);
                     return;
                 }
 
-                _writer.writeByte(command, Writer.DEBUG_TAG_CONNECTION);
+                if (path != null && _peerVersion >= PATH_IDS_VERSION) {
+                    if (_pathIds == null)
+                        _pathIds = new PlatformMap<String, Integer>();
+
+                    if (_pathIds.containsKey(path))
+                        mode = PATH_ID;
+                    else if (_pathIds.size() < MAX_PATH_IDS)
+                        mode = PATH_DEFINE;
+                }
+
+                byte code = mode != PATH_STRING ? (byte) (command | FLAG_PATH_ID) : command;
+                _writer.writeByte(code, Writer.DEBUG_TAG_CONNECTION);
 
                 if (Debug.COMMUNICATIONS_LOG)
-                    Log.write("Write command: " + getCommandString(command));
+                    Log.write("Write command: " + getCommandString(command & ~FLAGS));
+            }
+            case STEP_PATH_ID: {
+                if (mode != PATH_STRING) {
+                    int id = 0;
+
+                    if (mode == PATH_ID)
+                        id = _pathIds.get(path);
+
+                    Serialization.writeVarInt(_writer, id);
+
+                    if (_writer.interrupted()) {
+                        _writer.interruptInt(mode);
+                        _writer.interruptInt(STEP_PATH_ID);
+                        return;
+                    }
+
+                    // Peer assigns same id when reading
+                    if (mode == PATH_DEFINE)
+                        _pathIds.put(path, _pathIds.size() + 1);
+                }
             }
             case STEP_URI: {
-                if (path != null) {
+                if (path != null && mode != PATH_ID) {
                     _writer.writeString(path);
 
                     if (_writer.interrupted()) {
+                        _writer.interruptInt(mode);
                         _writer.interruptInt(STEP_URI);
                         return;
                     }
@@ -920,6 +1097,7 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
                     Serialization.writeTick(_writer, tick);
 
                     if (_writer.interrupted()) {
+                        _writer.interruptInt(mode);
                         _writer.interruptInt(STEP_BLOCK);
                         return;
                     }
@@ -930,11 +1108,23 @@ abstract class Connection extends BlockQueue implements Runnable, Provider {
                     Serialization.writeTicks(_writer, ticks);
 
                     if (_writer.interrupted()) {
+                        _writer.interruptInt(mode);
                         _writer.interruptInt(STEP_SET);
                         return;
                     }
                 }
             }
+            case STEP_BINARY: {
+                if (binary != null) {
+                    _writer.writeBinary(binary);
+
+                    if (_writer.interrupted()) {
+                        _writer.interruptInt(mode);
+                        _writer.interruptInt(STEP_BINARY);
+                        return;
+                    }
+                }
+            }
         }
     }
 
@@ -107,6 +107,11 @@ public abstract class CustomLocation extends Origin {
         void onKnown(URI outerUri, long[] ticks) {
         }
 
+        @Override
+        boolean mayHave(long tick) {
+            return false;
+        }
+
         @Override
         void getBlock(URI outerUri, long tick) {
         }
@@ -203,6 +208,11 @@ public abstract class CustomLocation extends Origin {
             }
         }
 
+        @Override
+        boolean mayHave(long tick) {
+            return false;
+        }
+
         @Override
         void getBlock(URI innerUri, long tick) {
         }
@@ -0,0 +1,119 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+/**
+ * Reads a block from one view at a time instead of all at once. Views are sorted by cost
+ * and asked in turn, the next one only if the block has not arrived after a delay based
+ * on the current view's latency, and the view has not completed other reads meanwhile,
+ * e.g. if it is busy loading a large history. Slower views already asked are cancelled
+ * when the block arrives, as they registered as providers in InFlight.
+ */
+final class Fetch implements Runnable {
+
+    static final int HEDGE_FACTOR = 4, HEDGE_MIN_MS = 20, HEDGE_MAX_MS = 10000;
+
+    // Assumed for locations not measured yet, in ns
+    static final long UNKNOWN_LATENCY = 10000000;
+
+    // Hedge delay for locations not measured yet
+    static final int HEDGE_DEFAULT_MS = 500;
+
+    private final URI _uri;
+
+    private final long _tick;
+
+    private View[] _views;
+
+    private long[] _starts;
+
+    // Written after _views and _starts so readers on other threads see them
+    private volatile int _asked;
+
+    Fetch(URI uri, long tick) {
+        _uri = uri;
+        _tick = tick;
+    }
+
+    /**
+     * Views must be sorted by cost.
+     */
+    final void start(View[] views) {
+        _views = views;
+        _starts = new long[views.length];
+
+        if (Debug.COMMUNICATIONS_DISABLE_TIMERS) {
+            for (int i = 0; i < views.length; i++)
+                ask(i, false);
+        } else
+            ask(0, true);
+    }
+
+    final boolean asked(View view) {
+        int asked = _asked;
+
+        for (int i = 0; i < asked; i++)
+            if (_views[i] == view)
+                return true;
+
+        return false;
+    }
+
+    final void onBlock(View source) {
+        int asked = _asked;
+
+        for (int i = 0; i < asked; i++) {
+            if (_views[i] == source) {
+                source.location().onRead(Platform.get().nanoTime() - _starts[i], true);
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        if (InFlight.fetching(_uri, _tick, this)) {
+            int index = _asked;
+            Location location = _views[index - 1].location();
+            long now = Platform.get().nanoTime();
+            long waited = now - _starts[index - 1];
+            int delay = delay(location.readLatency());
+
+            if (now - location.lastRead() < delay * 1000000L && waited < HEDGE_MAX_MS * 1000000L)
+                Platform.get().schedule(this, delay);
+            else {
+                // Counts the wait so that a view which does not answer stops being picked
+                location.onRead(waited, false);
+                ask(index, true);
+            }
+        }
+    }
+
+    private final void ask(int index, boolean hedge) {
+        View view = _views[index];
+        _starts[index] = Platform.get().nanoTime();
+        _asked = index + 1;
+        view.getBlock(_uri, _tick);
+
+        if (hedge && index + 1 < _views.length && InFlight.fetching(_uri, _tick, this))
+            Platform.get().schedule(this, delay(view.location().readLatency()));
+    }
+
+    static int delay(long latency) {
+        if (latency == 0)
+            return HEDGE_DEFAULT_MS;
+
+        long ms = latency * HEDGE_FACTOR / 1000000;
+        return (int) Math.min(HEDGE_MAX_MS, Math.max(HEDGE_MIN_MS, ms));
+    }
+}
@@ -25,8 +25,19 @@ class ImmutableReader extends Continuation {
 
     private int _charCount;
 
+    private final ValueCache _values;
+
     protected ImmutableReader(List<Object> interruptionStack) {
+        this(interruptionStack, false);
+    }
+
+    /**
+     * Must match the writer, c.f. ImmutableWriter.
+     */
+    protected ImmutableReader(List<Object> interruptionStack, boolean cacheValues) {
         super(interruptionStack);
+
+        _values = cacheValues ? new ValueCache(false) : null;
     }
 
     final Buff getBuff() {
@@ -42,6 +53,9 @@ class ImmutableReader extends Continuation {
     void reset() {
         if (Debug.COMMUNICATIONS)
             ThreadAssert.getOrCreateCurrent().resetReaderDebugCounter(this);
+
+        if (_values != null)
+            _values.reset();
     }
 
     void clean() {
@@ -60,6 +74,10 @@ class ImmutableReader extends Continuation {
         _serializationVersion = _buff.getByte();
     }
 
+    final byte serializationVersion() {
+        return _serializationVersion;
+    }
+
     private final boolean getBoolean() {
         return _buff.getByte() != 0;
     }
@@ -491,7 +509,14 @@ class ImmutableReader extends Continuation {
                 value = _buff.getByte() & 0xff;
             }
 
-            if ((value & ImmutableWriter.STRING_ENC_DOES_NOT_FIT_ON_1_BYTE_MASK) == 0) {
+            if (value == ImmutableWriter.STRING_ENC_CACHED) {
+                if (remaining() == 0) {
+                    interruptInt(value);
+                    return null;
+                }
+
+                return (String) _values.get(_buff.getByte() & 0xff);
+            } else if ((value & ImmutableWriter.STRING_ENC_DOES_NOT_FIT_ON_1_BYTE_MASK) == 0) {
                 append((char) value);
             } else if ((value & ImmutableWriter.STRING_ENC_DOES_NOT_FIT_ON_2_BYTES_MASK) == 0) {
                 if (remaining() == 0) {
@@ -510,9 +535,14 @@ class ImmutableReader extends Continuation {
 
                 char c = _buff.getChar();
                 append(c);
-            } else if ((value & ImmutableWriter.STRING_ENC_NULL_MASK) == 0)
-                return new String(_chars, 0, _charCount);
-            else
+            } else if ((value & ImmutableWriter.STRING_ENC_NULL_MASK) == 0) {
+                String s = new String(_chars, 0, _charCount);
+
+                if (_values != null && _charCount > 0)
+                    _values.add(s);
+
+                return s;
+            } else
                 return null;
 
             value = -1;
@@ -532,11 +562,14 @@ class ImmutableReader extends Continuation {
     //
 
     public final byte[] readBinary() {
-        return readBinary(Immutable.BINARY_INDEX);
+        return (byte[]) readBinary(Immutable.BINARY_INDEX);
     }
 
+    /**
+     * Returns the value itself instead of its bytes if it was cached.
+     */
     @SuppressWarnings("null")
-    private final byte[] readBinary(int classId) {
+    private final Object readBinary(int classId) {
         int index = Debug.COMMUNICATIONS && ImmutableWriter.getCheckCommunications() ? -2 : -1;
         byte[] array = null;
 
@@ -567,6 +600,9 @@ class ImmutableReader extends Continuation {
 
             int length = _buff.getInt();
 
+            if (length < -1)
+                return _values.get(-2 - length);
+
             if (length < 0)
                 return null;
 
@@ -592,20 +628,27 @@ class ImmutableReader extends Continuation {
     //
 
     public final java.math.BigInteger readBigInteger() {
-        byte[] data = readBinary(Immutable.BIG_INTEGER_INDEX);
+        Object data = readBinary(Immutable.BIG_INTEGER_INDEX);
 
-        if (data != null)
-            return new java.math.BigInteger(data);
+        if (data instanceof byte[]) {
+            java.math.BigInteger value = new java.math.BigInteger((byte[]) data);
 
-        return null; // Marker BigInteger
+            if (_values != null)
+                _values.add(value);
+
+            return value;
+        }
+
+        return (java.math.BigInteger) data; // Marker BigInteger
     }
 
     //
 
     public final java.math.BigDecimal readDecimal() {
-        byte[] a = readBinary(Immutable.DECIMAL_INDEX);
+        Object data = readBinary(Immutable.DECIMAL_INDEX);
 
-        if (a != null) {
+        if (data instanceof byte[]) {
+            byte[] a = (byte[]) data;
             byte[] b = new byte[a.length - 4];
             Platform.arraycopy(a, 0, b, 0, b.length);
             int b0 = a[a.length - 4] & 0x000000ff;
@@ -613,10 +656,15 @@ class ImmutableReader extends Continuation {
             int b2 = (a[a.length - 2] << 16) & 0x00ff0000;
             int b3 = (a[a.length - 1] << 24) & 0xff000000;
             int scale = b3 | b2 | b1 | b0;
-            return new java.math.BigDecimal(new java.math.BigInteger(b), scale);
+            java.math.BigDecimal value = new java.math.BigDecimal(new java.math.BigInteger(b), scale);
+
+            if (_values != null)
+                _values.add(value);
+
+            return value;
         }
 
-        return null; // Marker BigDecimal
+        return (java.math.BigDecimal) data; // Marker BigDecimal
     }
 
     // Debug
@@ -19,7 +19,7 @@ class ImmutableWriter extends Continuation {
 
     private Buff _buff;
 
-    // TODO add caches e.g. for long, String (add UID?) to avoid sending again
+    private final ValueCache _values;
 
     // Debug
 
@@ -28,7 +28,17 @@ class ImmutableWriter extends Continuation {
     private static boolean _checkCommunications = true;
 
     protected ImmutableWriter(List<Object> interruptionStack) {
+        this(interruptionStack, false);
+    }
+
+    /**
+     * If values are cached, strings and big numbers written again are sent as an index,
+     * so the reader must cache them too.
+     */
+    protected ImmutableWriter(List<Object> interruptionStack, boolean cacheValues) {
         super(interruptionStack);
+
+        _values = cacheValues ? new ValueCache(true) : null;
     }
 
     final Buff getBuff() {
@@ -44,6 +54,9 @@ class ImmutableWriter extends Continuation {
     void reset() {
         if (Debug.COMMUNICATIONS && getCheckCommunications())
             ThreadAssert.getOrCreateCurrent().resetWriterDebugCounter(this);
+
+        if (_values != null)
+            _values.reset();
     }
 
     private final int remaining() {
@@ -482,6 +495,11 @@ class ImmutableWriter extends Continuation {
 
     static final int STRING_ENC_NULL_MASK = 1 << 4;
 
+    /*
+     * Not a valid first byte otherwise, followed by the cache index.
+     */
+    static final int STRING_ENC_CACHED = STRING_ENC_DOES_NOT_FIT_ON_1_BYTE_MASK | STRING_ENC_DOES_NOT_FIT_ON_2_BYTES_MASK | 1 << 3;
+
     private final void writeString(String value, int tag, boolean debug) {
         int index = Debug.COMMUNICATIONS && getCheckCommunications() && debug ? -1 : 0;
 
@@ -515,6 +533,22 @@ class ImmutableWriter extends Continuation {
             return;
         }
 
+        if (index == 0 && _values != null && value.length() > 0) {
+            int cached = _values.indexOf(value);
+
+            if (cached >= 0) {
+                if (remaining() < 2) {
+                    interruptInt(0);
+                    return;
+                }
+
+                _values.touch(cached);
+                _buff.putByte((byte) STRING_ENC_CACHED);
+                _buff.putByte((byte) cached);
+                return;
+            }
+        }
+
         for (;;) {
             if (index == value.length()) {
                 if (remaining() == 0) {
@@ -526,6 +560,10 @@ class ImmutableWriter extends Continuation {
                 mask |= STRING_ENC_DOES_NOT_FIT_ON_2_BYTES_MASK;
                 mask |= STRING_ENC_EOF_MASK;
                 _buff.putByte((byte) mask);
+
+                if (_values != null && index > 0)
+                    _values.add(value);
+
                 return;
             }
 
@@ -565,10 +603,13 @@ class ImmutableWriter extends Continuation {
     //
 
     public final void writeBinary(byte[] value) {
-        writeBinary(value, Immutable.BINARY_INDEX);
+        writeBinary(value, null, Immutable.BINARY_INDEX);
     }
 
-    private final void writeBinary(byte[] value, int classId) {
+    /**
+     * Cached values are sent as a negative length below -1.
+     */
+    private final void writeBinary(byte[] value, Object cacheable, int classId) {
         int index = Debug.COMMUNICATIONS && getCheckCommunications() ? -2 : -1;
 
         if (interrupted())
@@ -597,6 +638,18 @@ class ImmutableWriter extends Continuation {
                 return;
             }
 
+            if (_values != null && cacheable != null) {
+                int cached = _values.indexOf(cacheable);
+
+                if (cached >= 0) {
+                    _values.touch(cached);
+                    _buff.putInt(-2 - cached);
+                    return;
+                }
+
+                _values.add(cacheable);
+            }
+
             _buff.putInt(value.length);
             index = 0;
         }
@@ -617,16 +670,16 @@ class ImmutableWriter extends Continuation {
 
     public final void writeBigInteger(java.math.BigInteger value) {
         if (value == null) // Marker
-            writeBinary(null, Immutable.BIG_INTEGER_INDEX);
+            writeBinary(null, null, Immutable.BIG_INTEGER_INDEX);
         else
-            writeBinary(value.toByteArray(), Immutable.BIG_INTEGER_INDEX);
+            writeBinary(value.toByteArray(), value, Immutable.BIG_INTEGER_INDEX);
     }
 
     //
 
     public final void writeDecimal(java.math.BigDecimal value) {
         if (value == null) // Marker
-            writeBinary(null, Immutable.DECIMAL_INDEX);
+            writeBinary(null, null, Immutable.DECIMAL_INDEX);
         else {
             byte[] array;
 
@@ -643,7 +696,7 @@ class ImmutableWriter extends Continuation {
                 array[array.length - 1] = (byte) ((scale >>> 24) & 0xff);
             }
 
-            writeBinary(array, Immutable.DECIMAL_INDEX);
+            writeBinary(array, value, Immutable.DECIMAL_INDEX);
 
             if (interrupted())
                 interrupt(array);
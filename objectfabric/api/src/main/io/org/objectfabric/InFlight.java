@@ -34,16 +34,16 @@ final class InFlight {
             Get expect = (Get) _map.get(get);
 
             if (expect == null) {
-                Get update = new Get(requester);
+                Get update = new Get(requester, null, new Fetch(uri, tick));
 
                 if (_map.putIfAbsent(get, update) == null) {
-                    uri.startGetBlock(requester, tick);
+                    uri.startGetBlock(requester, tick, update.Fetch);
                     break;
                 }
             } else {
                 Object update = add(expect.Requesters, requester);
 
-                if (update == expect.Requesters || _map.replace(get, expect, new Get(update, expect.Providers)))
+                if (update == expect.Requesters || _map.replace(get, expect, new Get(update, expect.Providers, expect.Fetch)))
                     break;
             }
         }
@@ -53,6 +53,19 @@ final class InFlight {
         return _map.containsKey(new Key(uri, tick, BLOCK));
     }
 
+    static boolean fetching(URI uri, long tick, Fetch fetch) {
+        Get get = (Get) _map.get(new Key(uri, tick, BLOCK));
+        return get != null && get.Fetch == fetch;
+    }
+
+    /**
+     * If block is in flight and has been requested from view.
+     */
+    static boolean asked(URI uri, long tick, View view) {
+        Get get = (Get) _map.get(new Key(uri, tick, BLOCK));
+        return get != null && get.Fetch.asked(view);
+    }
+
     static boolean starting(URI uri, long tick, Provider provider) {
         Key key = new Key(uri, tick, BLOCK);
 
@@ -62,7 +75,7 @@ final class InFlight {
             if (expect == null)
                 return false;
 
-            Get update = new Get(expect.Requesters, add(expect.Providers, provider));
+            Get update = new Get(expect.Requesters, add(expect.Providers, provider), expect.Fetch);
 
             if (Debug.ENABLED)
                 Debug.assertion(update != expect);
@@ -99,7 +112,7 @@ final class InFlight {
         int index = indexOf(requesters, requester);
 
         if (index >= 0) {
-            Get update = new Get(sub(requesters, index), expect.Providers);
+            Get update = new Get(sub(requesters, index), expect.Providers, expect.Fetch);
 
             if (!_map.replace(key, expect, update))
                 return false;
@@ -173,13 +186,12 @@ final class InFlight {
 
         final Object Providers;
 
-        Get(Object requester) {
-            this(requester, null);
-        }
+        final Fetch Fetch;
 
-        Get(Object requesters, Object providers) {
+        Get(Object requesters, Object providers, Fetch fetch) {
             Requesters = requesters;
             Providers = providers;
+            Fetch = fetch;
         }
 
         final void cancel(URI uri, long tick, Provider skip) {
@@ -17,6 +17,14 @@ package org.objectfabric;
  */
 public abstract class Location {
 
+    static final int READ_LATENCY_WEIGHT = 8;
+
+    // Moving average of block read latency in ns, 0 until a read completes
+    private volatile long _readLatency;
+
+    // Time of last read completed, to tell a busy location from one not answering
+    private volatile long _lastRead;
+
     protected Location() {
     }
 
@@ -36,6 +44,26 @@ public abstract class Location {
 
     //
 
+    final long readLatency() {
+        return _readLatency;
+    }
+
+    final long lastRead() {
+        return _lastRead;
+    }
+
+    final void onRead(long nanos, boolean completed) {
+        long previous = _readLatency;
+
+        // Racy, a lost update does not matter for scheduling reads
+        _readLatency = previous == 0 ? nanos : previous + (nanos - previous) / READ_LATENCY_WEIGHT;
+
+        if (completed)
+            _lastRead = Platform.get().nanoTime();
+    }
+
+    //
+
     Clock newClock(Watcher watcher) {
         return null;
     }
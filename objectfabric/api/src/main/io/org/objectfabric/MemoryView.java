@@ -86,6 +86,13 @@ final class MemoryView extends View {
         }
     }
 
+    @Override
+    boolean mayHave(long tick) {
+        synchronized (this) {
+            return Tick.contains(_ticks, tick);
+        }
+    }
+
     @Override
     void getBlock(URI uri, long tick) {
         Buff duplicate = null;
@@ -12,17 +12,24 @@
 
 package org.objectfabric;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 final class Peer {
 
     // TODO Weak map
     private static final PlatformConcurrentMap<UID, Peer> _uids = new PlatformConcurrentMap<UID, Peer>();
 
-    // TODO break per URI, use an array
-    private static final PlatformConcurrentMap<IntBox, Peer> _indexes = new PlatformConcurrentMap<IntBox, Peer>();
+    // TODO break per URI
+    private static volatile Peer[] _indexes = new Peer[16];
+
+    /*
+     * Rank of each peer index in UID order, so that blocks can be ordered without reading
+     * UIDs. Replaced as a whole when a peer is added, ranks are dense and get renumbered.
+     */
+    private static volatile int[] _ranks = new int[16];
+
+    // Peers sorted by UID, guarded by _uids
+    private static Peer[] _sorted = new Peer[16];
 
-    private static final AtomicInteger _count = new AtomicInteger();
+    private static int _count;
 
     private final byte[] _uid;
 
@@ -53,51 +60,86 @@ final class Peer {
         if (peer != null)
             return peer;
 
-        peer = new Peer(uid.getBytes(), _count.getAndIncrement());
-        _indexes.put(new IntBox(peer._index), peer);
-        Peer previous = _uids.putIfAbsent(uid, peer);
+        synchronized (_uids) {
+            peer = _uids.get(uid);
 
-        if (previous != null)
-            return previous;
+            if (peer == null) {
+                peer = new Peer(uid.getBytes(), _count);
+                add(peer);
+                _uids.put(uid, peer);
+            }
+        }
 
         return peer;
     }
 
     static Peer get(int index) {
-        return _indexes.get(new IntBox(index));
+        Peer[] indexes = _indexes;
+        return index < indexes.length ? indexes[index] : null;
     }
 
-    final boolean higher(byte[] peer) {
-        return UID.compare(_uid, peer) > 0;
+    /**
+     * Same sign as comparing UIDs of peers with given indexes.
+     */
+    static int compare(int a, int b) {
+        int[] ranks = _ranks;
+        return ranks[a] - ranks[b];
     }
 
-    @Override
-    public String toString() {
-        char[] chars = new char[4];
-        Utils.getBytesHex(_uid, 0, 2, chars, 0);
-        return "Peer (" + new String(chars) + ")";
+    private static void add(Peer peer) {
+        Peer[] indexes = _indexes;
+
+        if (_count == indexes.length) {
+            Peer[] temp = new Peer[indexes.length << 1];
+            Platform.arraycopy(indexes, 0, temp, 0, indexes.length);
+            indexes = temp;
+        }
+
+        if (_count == _sorted.length) {
+            Peer[] temp = new Peer[_sorted.length << 1];
+            Platform.arraycopy(_sorted, 0, temp, 0, _sorted.length);
+            _sorted = temp;
+        }
+
+        int index = search(peer._uid);
+        Platform.arraycopy(_sorted, index, _sorted, index + 1, _count - index);
+        _sorted[index] = peer;
+        int[] ranks = new int[indexes.length];
+
+        for (int i = 0; i <= _count; i++)
+            ranks[_sorted[i]._index] = i;
+
+        indexes[_count++] = peer;
+
+        // Ranks first, a peer must be comparable as soon as it can be found
+        _ranks = ranks;
+        _indexes = indexes;
     }
 
-    /*
-     * Custom primitive wrapper that do not reference Class, so that Java reflection can
-     * be removed from the .NET version.
-     */
-    private static final class IntBox {
+    private static int search(byte[] uid) {
+        int low = 0;
+        int high = _count - 1;
 
-        private final int _value;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
 
-        IntBox(int value) {
-            _value = value;
+            if (UID.compare(_sorted[mid]._uid, uid) < 0)
+                low = mid + 1;
+            else
+                high = mid - 1;
         }
 
-        @Override
-        public int hashCode() {
-            return _value;
-        }
+        return low;
+    }
 
-        @Override
-        public boolean equals(Object obj) {
-            return _value == ((IntBox) obj)._value;
-        }
+    final boolean higher(byte[] peer) {
+        return UID.compare(_uid, peer) > 0;
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[4];
+        Utils.getBytesHex(_uid, 0, 2, chars, 0);
+        return "Peer (" + new String(chars) + ")";
     }
 }
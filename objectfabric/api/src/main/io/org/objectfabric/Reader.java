@@ -15,6 +15,14 @@ package org.objectfabric;
 import org.objectfabric.Counter.CounterRead;
 import org.objectfabric.Counter.CounterSharedVersion;
 import org.objectfabric.Counter.CounterVersion;
+import org.objectfabric.TKeyedLong.LongEntries;
+import org.objectfabric.TKeyedLong.TKeyedLongBase;
+import org.objectfabric.TKeyedLong.TKeyedLongRead;
+import org.objectfabric.TKeyedLong.TKeyedLongSharedVersion;
+import org.objectfabric.TKeyedLong.TKeyedLongVersion;
+import org.objectfabric.TList.TListRead;
+import org.objectfabric.TList.TListSharedVersion;
+import org.objectfabric.TList.TListVersion;
 import org.objectfabric.Resource.Block;
 import org.objectfabric.Resource.ResourceRead;
 import org.objectfabric.Resource.ResourceVersion;
@@ -511,6 +519,121 @@ public final class Reader extends TObjectReader {
         return cleared;
     }
 
+    /*
+     * Keyed with primitive keys.
+     */
+
+    final void readTKeyedLong(boolean read) {
+        boolean flagDone = false, keyDone = false;
+        byte state = -1;
+        long key = 0;
+
+        if (interrupted()) {
+            flagDone = resumeBoolean();
+            state = resumeByte();
+            keyDone = resumeBoolean();
+            key = resumeLong();
+        }
+
+        if (!flagDone) {
+            if (!canReadBoolean()) {
+                interruptTKeyedLong(false, state, keyDone, key);
+                return;
+            }
+
+            boolean flag = readBoolean();
+
+            for (int i = 0; i < _versions.length; i++) {
+                if (read)
+                    ((TKeyedLongRead) _versions[i]).setFullyRead(flag);
+                else
+                    ((TKeyedLongVersion) _versions[i]).setCleared(flag);
+            }
+
+            if (read && flag)
+                return;
+        }
+
+        boolean objects = ((TKeyedLong) _versions[0].object()).objectValues();
+
+        for (;;) {
+            if (state < 0) {
+                if (!canReadByte()) {
+                    interruptTKeyedLong(true, state, keyDone, key);
+                    return;
+                }
+
+                state = readByte();
+
+                if (state == LongEntries.FREE)
+                    break;
+
+                keyDone = false;
+            }
+
+            if (!keyDone) {
+                if (!canReadLong()) {
+                    interruptTKeyedLong(true, state, keyDone, key);
+                    return;
+                }
+
+                key = readLong();
+                keyDone = true;
+            }
+
+            long value = 0;
+            Object object = null;
+
+            if (state == LongEntries.PUT && !read) {
+                if (objects) {
+                    object = readObject();
+
+                    if (interrupted()) {
+                        interruptTKeyedLong(true, state, keyDone, key);
+                        return;
+                    }
+                } else {
+                    if (!canReadLong()) {
+                        interruptTKeyedLong(true, state, keyDone, key);
+                        return;
+                    }
+
+                    value = readLong();
+                }
+            }
+
+            for (int i = 0; i < _versions.length; i++) {
+                Object object_;
+
+                if (object instanceof TObject[])
+                    object_ = ((TObject[]) object)[i];
+                else
+                    object_ = object;
+
+                ((TKeyedLongBase) _versions[i]).put(key, state, value, object_, true);
+            }
+
+            state = -1;
+        }
+
+        if (!read) {
+            for (int i = 0; i < _versions.length; i++) {
+                TKeyedLongVersion version = (TKeyedLongVersion) _versions[i];
+
+                // Usually set by adding elements, so force
+                if (!version.getCleared())
+                    version.setVerifySizeDeltaOnCommit();
+            }
+        }
+    }
+
+    private final void interruptTKeyedLong(boolean flagDone, byte state, boolean keyDone, long key) {
+        interruptLong(key);
+        interruptBoolean(keyDone);
+        interruptByte(state);
+        interruptBoolean(flagDone);
+    }
+
     /*
      * Counter.
      */
@@ -546,6 +669,92 @@ public final class Reader extends TObjectReader {
             ((CounterVersion) _versions[i]).init(delta, reset);
     }
 
+    /*
+     * TList.
+     */
+
+    final void readTList() {
+        boolean clearedDone = false;
+        byte kind = -1;
+        int index = 0;
+
+        if (interrupted()) {
+            clearedDone = resumeBoolean();
+            kind = resumeByte();
+            index = resumeInt();
+        }
+
+        if (!clearedDone) {
+            if (!canReadBoolean()) {
+                interruptInt(index);
+                interruptByte(kind);
+                interruptBoolean(false);
+                return;
+            }
+
+            boolean cleared = readBoolean();
+
+            for (int i = 0; i < _versions.length; i++)
+                ((TListVersion) _versions[i]).setCleared(cleared);
+        }
+
+        for (;;) {
+            if (kind < 0) {
+                if (!canReadByte()) {
+                    interruptInt(index);
+                    interruptByte(kind);
+                    interruptBoolean(true);
+                    return;
+                }
+
+                kind = readByte();
+
+                if (kind == TListVersion.END)
+                    break;
+
+                // Appends are applied at the end of the list
+                index = -1;
+            }
+
+            if (index < 0 && kind != TListVersion.ADD) {
+                if (!canReadInteger()) {
+                    interruptInt(index);
+                    interruptByte(kind);
+                    interruptBoolean(true);
+                    return;
+                }
+
+                index = readInteger();
+            }
+
+            Object value = null;
+
+            if (kind != TListVersion.REMOVE) {
+                value = readObject();
+
+                if (interrupted()) {
+                    interruptInt(index);
+                    interruptByte(kind);
+                    interruptBoolean(true);
+                    return;
+                }
+            }
+
+            for (int i = 0; i < _versions.length; i++) {
+                Object value_;
+
+                if (value instanceof TObject[])
+                    value_ = ((TObject[]) value)[i];
+                else
+                    value_ = value;
+
+                ((TListVersion) _versions[i]).log(kind, index, value_);
+            }
+
+            kind = -1;
+        }
+    }
+
     //
 
     private final class ReadVisitor extends Visitor {
@@ -589,6 +798,21 @@ public final class Reader extends TObjectReader {
             throw new IllegalStateException();
         }
 
+        @Override
+        void visit(TKeyedLongRead read) {
+            readTKeyedLong(true);
+        }
+
+        @Override
+        void visit(TKeyedLongVersion version) {
+            readTKeyedLong(false);
+        }
+
+        @Override
+        void visit(TKeyedLongSharedVersion shared) {
+            throw new IllegalStateException();
+        }
+
         @Override
         void visit(CounterRead read) {
             // nothing
@@ -603,6 +827,21 @@ public final class Reader extends TObjectReader {
         void visit(CounterSharedVersion version) {
             throw new IllegalStateException();
         }
+
+        @Override
+        void visit(TListRead read) {
+            // nothing
+        }
+
+        @Override
+        void visit(TListVersion version) {
+            readTList();
+        }
+
+        @Override
+        void visit(TListSharedVersion version) {
+            throw new IllegalStateException();
+        }
     }
 
     // Debug
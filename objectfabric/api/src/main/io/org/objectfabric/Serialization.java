@@ -12,6 +12,8 @@
 
 package org.objectfabric;
 
+import java.util.Arrays;
+
 @SuppressWarnings("rawtypes")
 abstract class Serialization {
 
@@ -114,6 +116,259 @@ abstract class Serialization {
         }
     }
 
+    /*
+     * Known ticks sent as changes to the set last sent on the same connection. Ticks are
+     * sorted so that each peer's UID is written once, followed by its times as varint
+     * deltas.
+     */
+
+    private static final byte KNOWN_FULL = 0, KNOWN_DELTA = 1;
+
+    static byte[] encodeKnown(long[] previous, long[] ticks) {
+        long[] adds = difference(ticks, previous);
+        Bytes bytes = new Bytes();
+
+        if (previous == null || adds.length + difference(previous, ticks).length >= count(ticks)) {
+            bytes.write(KNOWN_FULL);
+            writeSorted(bytes, adds);
+        } else {
+            bytes.write(KNOWN_DELTA);
+            writeSorted(bytes, adds);
+            writeSorted(bytes, difference(previous, ticks));
+        }
+
+        return bytes.toArray();
+    }
+
+    /**
+     * Returns a new set, previous is not modified.
+     */
+    static long[] decodeKnown(long[] previous, byte[] array) {
+        Bytes bytes = new Bytes(array);
+        long[] ticks = null;
+
+        if (bytes.read() == KNOWN_DELTA && previous != null) {
+            ticks = Platform.get().clone(previous);
+            long[] adds = readSorted(bytes);
+            long[] removals = readSorted(bytes);
+
+            for (int i = 0; i < removals.length; i++)
+                if (ticks.length > 0)
+                    Tick.remove(ticks, removals[i]);
+
+            for (int i = 0; i < adds.length; i++)
+                if (!Tick.contains(ticks, adds[i]))
+                    ticks = Tick.add(ticks, adds[i]);
+        } else {
+            long[] adds = readSorted(bytes);
+
+            for (int i = 0; i < adds.length; i++)
+                ticks = Tick.add(ticks, adds[i]);
+        }
+
+        return ticks != null ? ticks : Tick.EMPTY;
+    }
+
+    private static int count(long[] ticks) {
+        int count = 0;
+
+        if (ticks != null)
+            for (int i = 0; i < ticks.length; i++)
+                if (!Tick.isNull(ticks[i]))
+                    count++;
+
+        return count;
+    }
+
+    // Ticks of a not in b, sorted, i.e. grouped by peer and by time
+    private static long[] difference(long[] a, long[] b) {
+        long[] result = new long[count(a)];
+        int count = 0;
+
+        if (a != null)
+            for (int i = 0; i < a.length; i++)
+                if (!Tick.isNull(a[i]) && !Tick.contains(b, a[i]))
+                    result[count++] = a[i];
+
+        if (count < result.length) {
+            long[] temp = new long[count];
+            Platform.arraycopy(result, 0, temp, 0, count);
+            result = temp;
+        }
+
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static void writeSorted(Bytes bytes, long[] ticks) {
+        int peers = 0;
+
+        for (int i = 0; i < ticks.length; i++)
+            if (i == 0 || Tick.peer(ticks[i]) != Tick.peer(ticks[i - 1]))
+                peers++;
+
+        bytes.writeVarLong(peers);
+
+        for (int i = 0; i < ticks.length;) {
+            int peer = Tick.peer(ticks[i]);
+            int end = i + 1;
+
+            while (end < ticks.length && Tick.peer(ticks[end]) == peer)
+                end++;
+
+            bytes.write(Peer.get(peer).uid());
+            bytes.writeVarLong(end - i);
+            long time = 0;
+
+            for (; i < end; i++) {
+                bytes.writeVarLong(Tick.time(ticks[i]) - time);
+                time = Tick.time(ticks[i]);
+            }
+        }
+    }
+
+    private static long[] readSorted(Bytes bytes) {
+        long[] ticks = Tick.EMPTY;
+        long peers = bytes.readVarLong();
+
+        for (long p = 0; p < peers; p++) {
+            int peer = Peer.get(new UID(bytes.read(UID.LENGTH))).index();
+            int count = (int) bytes.readVarLong();
+            long[] temp = new long[ticks.length + count];
+            Platform.arraycopy(ticks, 0, temp, 0, ticks.length);
+            long time = 0;
+
+            for (int i = ticks.length; i < temp.length; i++) {
+                time += bytes.readVarLong();
+                temp[i] = Tick.get(peer, time);
+            }
+
+            ticks = temp;
+        }
+
+        return ticks;
+    }
+
+    /**
+     * Growable array for small payloads encoded at once, e.g. known ticks, which are
+     * then written as binary by the resumable writer.
+     */
+    private static final class Bytes {
+
+        private byte[] _array;
+
+        private int _length;
+
+        Bytes() {
+            _array = new byte[64];
+        }
+
+        Bytes(byte[] array) {
+            _array = array;
+        }
+
+        final byte[] toArray() {
+            byte[] array = new byte[_length];
+            Platform.arraycopy(_array, 0, array, 0, _length);
+            return array;
+        }
+
+        final void write(int value) {
+            if (_length == _array.length) {
+                byte[] temp = new byte[_array.length << 1];
+                Platform.arraycopy(_array, 0, temp, 0, _length);
+                _array = temp;
+            }
+
+            _array[_length++] = (byte) value;
+        }
+
+        final void write(byte[] values) {
+            for (int i = 0; i < values.length; i++)
+                write(values[i]);
+        }
+
+        final void writeVarLong(long value) {
+            while ((value & ~0x7fL) != 0) {
+                write((int) (value & 0x7f | 0x80));
+                value >>>= 7;
+            }
+
+            write((int) value);
+        }
+
+        final byte read() {
+            return _array[_length++];
+        }
+
+        final byte[] read(int length) {
+            byte[] values = new byte[length];
+            Platform.arraycopy(_array, _length, values, 0, length);
+            _length += length;
+            return values;
+        }
+
+        final long readVarLong() {
+            long value = 0;
+
+            for (int shift = 0;; shift += 7) {
+                byte b = read();
+                value |= (long) (b & 0x7f) << shift;
+
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+        }
+    }
+
+    /**
+     * Seven bits per byte, small values take one.
+     */
+    static void writeVarInt(ImmutableWriter writer, int value) {
+        if (writer.interrupted())
+            value = writer.resumeInt();
+
+        for (;;) {
+            if (!writer.canWriteByte()) {
+                writer.interruptInt(value);
+                return;
+            }
+
+            if ((value & ~0x7f) == 0) {
+                writer.writeByte((byte) value);
+                return;
+            }
+
+            writer.writeByte((byte) (value & 0x7f | 0x80));
+            value >>>= 7;
+        }
+    }
+
+    static int readVarInt(ImmutableReader reader) {
+        int value = 0, shift = 0;
+
+        if (reader.interrupted()) {
+            shift = reader.resumeInt();
+            value = reader.resumeInt();
+        }
+
+        for (;;) {
+            if (!reader.canReadByte()) {
+                reader.interruptInt(value);
+                reader.interruptInt(shift);
+                return 0;
+            }
+
+            byte b = reader.readByte();
+            value |= (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0)
+                return value;
+
+            shift += 7;
+        }
+    }
+
     static void writeTick(ImmutableWriter writer, long tick) {
         boolean peerDone = false;
 
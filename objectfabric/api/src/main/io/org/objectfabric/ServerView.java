@@ -12,13 +12,21 @@
 
 package org.objectfabric;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.objectfabric.Actor.Message;
 
 @SuppressWarnings({ "rawtypes", "unchecked" })
 class ServerView extends ArrayView {
 
+    private static final Connection[] EMPTY = new Connection[0];
+
+    // Connections to permissions, and pending gets to requesting connections
     private final PlatformConcurrentMap _map = new PlatformConcurrentMap();
 
+    // Copy on write, for broadcasts
+    private final AtomicReference<Connection[]> _subscribers = new AtomicReference<Connection[]>(EMPTY);
+
     private final PlatformConcurrentQueue<Connection> _pending = new PlatformConcurrentQueue<Connection>();
 
     ServerView(Server server) {
@@ -27,6 +35,7 @@ class ServerView extends ArrayView {
 
     final void onPermission(final URI uri, final Connection connection, Permission permission) {
         _map.put(connection, permission);
+        subscribe(connection);
         long[] ticks = copy();
 
         if (ticks != null) {
@@ -70,6 +79,37 @@ class ServerView extends ArrayView {
 
     final void unsubscribe(Connection connection) {
         _map.remove(connection);
+
+        for (;;) {
+            Connection[] expect = _subscribers.get();
+            int index = InFlight.indexOf(expect, connection);
+
+            if (index < 0)
+                break;
+
+            Connection[] update = new Connection[expect.length - 1];
+            Platform.arraycopy(expect, 0, update, 0, index);
+            Platform.arraycopy(expect, index + 1, update, index, update.length - index);
+
+            if (_subscribers.compareAndSet(expect, update))
+                break;
+        }
+    }
+
+    private final void subscribe(Connection connection) {
+        for (;;) {
+            Connection[] expect = _subscribers.get();
+
+            if (InFlight.indexOf(expect, connection) >= 0)
+                break;
+
+            Connection[] update = new Connection[expect.length + 1];
+            Platform.arraycopy(expect, 0, update, 0, expect.length);
+            update[update.length - 1] = connection;
+
+            if (_subscribers.compareAndSet(expect, update))
+                break;
+        }
     }
 
     final void readGetBlock(URI uri, long tick, Connection connection) {
@@ -177,10 +217,7 @@ class ServerView extends ArrayView {
 
         if (permission == Permission.WRITE) {
             if (add(tick, removals)) {
-                for (Object other : _map.keySet())
-                    if (other != connection && other instanceof Connection)
-                        ((Connection) other).enqueueBlock(uri, tick, buffs, removals, requested);
-
+                BlockQueue.enqueueBlock(_subscribers.get(), connection, uri, tick, buffs, removals, requested);
                 connection.onBlock(uri, this, tick, buffs, removals, requested, true);
             }
         }
@@ -204,11 +241,13 @@ class ServerView extends ArrayView {
                 connection.postKnown(uri, ticks);
         }
 
-        // TODO increase buffs counters by connection count in one step
         if (updated != null)
-            for (Object connection : _map.keySet())
-                if (connection instanceof Connection)
-                    ((Connection) connection).postKnown(uri, updated);
+            Connection.postKnown(_subscribers.get(), uri, updated);
+    }
+
+    @Override
+    final boolean mayHave(long tick) {
+        return false;
     }
 
     @Override
@@ -223,20 +262,11 @@ class ServerView extends ArrayView {
 
             Object connections = _map.remove(new Get(uri, tick));
 
-            if (connections instanceof Connection) {
-                Connection connection = (Connection) connections;
-                connection.enqueueBlock(uri, tick, buffs, null, requested);
-            }
-
-            if (connections instanceof Connection[]) {
-                Connection[] array = (Connection[]) connections;
-
-                for (int i = 0; i < array.length; i++)
-                    array[i].enqueueBlock(uri, tick, buffs, null, requested);
-            }
+            if (connections instanceof Connection)
+                ((Connection) connections).enqueueBlock(uri, tick, buffs, null, requested);
+            else if (connections != null)
+                BlockQueue.enqueueBlock((Object[]) connections, null, uri, tick, buffs, null, requested);
         } else if (add(tick, removals))
-            for (Object connection : _map.keySet())
-                if (connection instanceof Connection)
-                    ((Connection) connection).enqueueBlock(uri, tick, buffs, removals, requested);
+            BlockQueue.enqueueBlock(_subscribers.get(), null, uri, tick, buffs, removals, requested);
     }
 }
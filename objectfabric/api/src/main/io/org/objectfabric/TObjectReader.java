@@ -36,7 +36,7 @@ abstract class TObjectReader extends ImmutableReader {
     private int _refCount;
 
     TObjectReader(List<Object> interruptionStack) {
-        super(interruptionStack);
+        super(interruptionStack, true);
     }
 
     @Override
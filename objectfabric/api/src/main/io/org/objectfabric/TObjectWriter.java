@@ -34,7 +34,7 @@ abstract class TObjectWriter extends ImmutableWriter {
     private TObject[] _refs;
 
     protected TObjectWriter(Watcher watcher, List<Object> interruptionStack) {
-        super(interruptionStack);
+        super(interruptionStack, true);
 
         _watcher = watcher;
     }
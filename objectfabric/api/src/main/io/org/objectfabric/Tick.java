@@ -12,6 +12,8 @@
 
 package org.objectfabric;
 
+import java.util.Arrays;
+
 final class Tick { // TODO try persistent sets?
 
     static final int PEER_BITS = 24, TIME_BITS = 40;
@@ -69,6 +71,20 @@ final class Tick { // TODO try persistent sets?
         return max != 0 && time(max) >= time(tick);
     }
 
+    /**
+     * Sorts the first count ticks by time, then peer. Peers' clocks follow wall time, so
+     * this approximates happened-before order without reading blocks.
+     */
+    static void sortByTime(long[] ticks, int count) {
+        for (int i = 0; i < count; i++)
+            ticks[i] = time(ticks[i]) << PEER_BITS | peer(ticks[i]);
+
+        Arrays.sort(ticks, 0, count);
+
+        for (int i = 0; i < count; i++)
+            ticks[i] = get((int) (ticks[i] & ((1 << PEER_BITS) - 1)), ticks[i] >>> PEER_BITS);
+    }
+
     static int hashTick(long tick) {
         if (Debug.ENABLED)
             Debug.assertion(!isNull(tick));
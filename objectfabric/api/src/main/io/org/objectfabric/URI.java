@@ -177,6 +177,7 @@ public final class URI { // TODO pool?
 
                 refs[i].clear();
                 refs[i] = new LoadedRef(resource);
+                Metrics.onResourceOpen(ref.Start);
                 ref.Future.set(resource);
             }
         }
@@ -448,7 +449,7 @@ public final class URI { // TODO pool?
             ThreadAssert.assertCurrentIsEmpty();
     }
 
-    final void startGetBlock(Object requester, long tick) {
+    final void startGetBlock(Object requester, long tick, Fetch fetch) {
         ResourceRef[] refs = _resources;
 
         for (int i = 0; refs != null && i < refs.length; i++) {
@@ -459,14 +460,46 @@ public final class URI { // TODO pool?
         }
 
         View[] views = _views;
+        View[] candidates = null;
+        int count = 0;
 
-        /*
-         * TODO spread read load between locations, maybe using some kind of round robin
-         * over priority queues?
-         */
-        for (int i = 0; views != null && i < views.length; i++)
-            if (views[i] != requester)
-                views[i].getBlock(this, tick);
+        for (int i = 0; views != null && i < views.length; i++) {
+            if (views[i] != requester && views[i].mayHave(tick)) {
+                if (candidates == null)
+                    candidates = new View[views.length];
+
+                // Insertion sort, few views
+                int index = count++;
+                long cost = cost(views[i]);
+
+                for (; index > 0 && cost(candidates[index - 1]) > cost; index--)
+                    candidates[index] = candidates[index - 1];
+
+                candidates[index] = views[i];
+            }
+        }
+
+        if (count > 0) {
+            if (count < candidates.length) {
+                View[] temp = new View[count];
+                Platform.arraycopy(candidates, 0, temp, 0, count);
+                candidates = temp;
+            }
+
+            fetch.start(candidates);
+        }
+    }
+
+    /*
+     * Read latency, with origins counted double as they are usually remote and shared.
+     */
+    private static long cost(View view) {
+        long latency = view.location().readLatency();
+
+        if (latency == 0)
+            latency = Fetch.UNKNOWN_LATENCY;
+
+        return view.location().isCache() ? latency : latency * 2;
     }
 
     //
@@ -518,6 +551,9 @@ public final class URI { // TODO pool?
             Get get = InFlight.onBlock(this, tick, connection);
 
             if (get != null) {
+                if (source instanceof View)
+                    get.Fetch.onBlock((View) source);
+
                 if (get.Requesters instanceof Object[]) {
                     Object[] requesters = (Object[]) get.Requesters;
 
@@ -682,6 +718,8 @@ public final class URI { // TODO pool?
 
         final FutureWithCallbacks<Resource> Future;
 
+        final long Start = Metrics.start();
+
         LoadingRef(Resource resource, FutureWithCallbacks<Resource> future) {
             super(resource);
 
@@ -23,7 +23,7 @@ final class UnknownObjectSerializer {
 
     private static final byte REMOVAL = Immutable.COUNT + 1;
 
-    private static final byte CUSTOM = Immutable.COUNT + 2;
+    static final byte CUSTOM = Immutable.COUNT + 2;
 
     private static final byte MAX = CUSTOM;
 
@@ -36,8 +36,54 @@ final class UnknownObjectSerializer {
         throw new IllegalStateException();
     }
 
-    // TODO: hash map of serializers based on class?
-    @SuppressWarnings("fallthrough")
+    /**
+     * Ordered by expected frequency. instanceof on final classes is a pointer comparison,
+     * which measured cheaper than looking classes up in a table, or than remembering the
+     * last class written as keys and values alternate.
+     */
+    static byte code(Object object) {
+        if (object instanceof String)
+            return Immutable.STRING_INDEX;
+
+        if (object instanceof Integer)
+            return Immutable.INTEGER_INDEX;
+
+        if (object instanceof Long)
+            return Immutable.LONG_INDEX;
+
+        if (object instanceof Double)
+            return Immutable.DOUBLE_INDEX;
+
+        if (object instanceof Boolean)
+            return Immutable.BOOLEAN_INDEX;
+
+        if (object instanceof java.util.Date)
+            return Immutable.DATE_INDEX;
+
+        if (object instanceof byte[])
+            return Immutable.BINARY_INDEX;
+
+        if (object instanceof Float)
+            return Immutable.FLOAT_INDEX;
+
+        if (object instanceof java.math.BigInteger)
+            return Immutable.BIG_INTEGER_INDEX;
+
+        if (object instanceof java.math.BigDecimal)
+            return Immutable.DECIMAL_INDEX;
+
+        if (object instanceof Byte)
+            return Immutable.BYTE_INDEX;
+
+        if (object instanceof Short)
+            return Immutable.SHORT_INDEX;
+
+        if (object instanceof Character)
+            return Immutable.CHARACTER_INDEX;
+
+        return CUSTOM;
+    }
+
     static void write(ImmutableWriter writer, Object object) {
         if (Debug.ENABLED)
             Debug.assertion(!(object instanceof TObject.Version));
@@ -75,201 +121,137 @@ final class UnknownObjectSerializer {
             return;
         }
 
-        if (object instanceof String) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.STRING_INDEX, Writer.DEBUG_TAG_CODE);
+        byte code = code(object);
+        Serializer serializer = null;
 
-            writer.writeString((String) object);
+        if (code == CUSTOM) {
+            serializer = Workspace.getSerializer();
 
-            if (writer.interrupted()) {
-                writer.interrupt(bytes);
-                writer.interruptBoolean(true);
-            }
-
-            return;
+            if (serializer == null)
+                throw new RuntimeException(Strings.UNSUPPORTED_TYPE + object);
         }
 
-        if (object instanceof java.util.Date) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.DATE_INDEX, Writer.DEBUG_TAG_CODE);
+        if (!writtenCode)
+            writer.writeByte(code, Writer.DEBUG_TAG_CODE);
 
-            if (!writer.canWriteDate()) {
-                writer.interrupt(bytes);
-                writer.interruptBoolean(true);
-                return;
+        switch (code) {
+            case Immutable.STRING_INDEX: {
+                writer.writeString((String) object);
+                break;
             }
+            case Immutable.DATE_INDEX: {
+                if (!writer.canWriteDate()) {
+                    writer.interrupt(bytes);
+                    writer.interruptBoolean(true);
+                    return;
+                }
 
-            writer.writeDate((java.util.Date) object);
-            return;
-        }
-
-        if (object instanceof byte[]) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.BINARY_INDEX, Writer.DEBUG_TAG_CODE);
-
-            writer.writeBinary((byte[]) object);
-
-            if (writer.interrupted()) {
-                writer.interrupt(bytes);
-                writer.interruptBoolean(true);
+                writer.writeDate((java.util.Date) object);
+                return;
             }
+            case Immutable.BINARY_INDEX: {
+                writer.writeBinary((byte[]) object);
+                break;
+            }
+            case Immutable.INTEGER_INDEX: {
+                if (!writer.canWriteInteger()) {
+                    writer.interrupt(bytes);
+                    writer.interruptBoolean(true);
+                    return;
+                }
 
-            return;
-        }
-
-        if (object instanceof Integer) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.INTEGER_INDEX, Writer.DEBUG_TAG_CODE);
-
-            if (!writer.canWriteInteger()) {
-                writer.interrupt(bytes);
-                writer.interruptBoolean(true);
+                writer.writeInteger(((Integer) object).intValue());
                 return;
             }
+            case Immutable.LONG_INDEX: {
+                if (!writer.canWriteLong()) {
+                    writer.interrupt(bytes);
+                    writer.interruptBoolean(true);
+                    return;
+                }
 
-            writer.writeInteger(((Integer) object).intValue());
-            return;
-        }
-
-        if (object instanceof Long) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.LONG_INDEX, Writer.DEBUG_TAG_CODE);
-
-            if (!writer.canWriteLong()) {
-                writer.interrupt(bytes);
-                writer.interruptBoolean(true);
+                writer.writeLong(((Long) object).longValue());
                 return;
             }
+            case Immutable.FLOAT_INDEX: {
+                if (!writer.canWriteFloat()) {
+                    writer.interrupt(bytes);
+                    writer.interruptBoolean(true);
+                    return;
+                }
 
-            writer.writeLong(((Long) object).longValue());
-            return;
-        }
-
-        if (object instanceof Float) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.FLOAT_INDEX, Writer.DEBUG_TAG_CODE);
-
-            if (!writer.canWriteFloat()) {
-                writer.interrupt(bytes);
-                writer.interrupt(true);
+                writer.writeFloat(((Float) object).floatValue());
                 return;
             }
+            case Immutable.DOUBLE_INDEX: {
+                if (!writer.canWriteDouble()) {
+                    writer.interrupt(bytes);
+                    writer.interruptBoolean(true);
+                    return;
+                }
 
-            writer.writeFloat(((Float) object).floatValue());
-            return;
-        }
-
-        if (object instanceof Double) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.DOUBLE_INDEX, Writer.DEBUG_TAG_CODE);
-
-            if (!writer.canWriteDouble()) {
-                writer.interrupt(bytes);
-                writer.interrupt(true);
+                writer.writeDouble(((Double) object).doubleValue());
                 return;
             }
-
-            writer.writeDouble(((Double) object).doubleValue());
-            return;
-        }
-
-        if (object instanceof java.math.BigInteger) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.BIG_INTEGER_INDEX, Writer.DEBUG_TAG_CODE);
-
-            writer.writeBigInteger((java.math.BigInteger) object);
-
-            if (writer.interrupted()) {
-                writer.interrupt(bytes);
-                writer.interruptBoolean(true);
+            case Immutable.BIG_INTEGER_INDEX: {
+                writer.writeBigInteger((java.math.BigInteger) object);
+                break;
             }
-
-            return;
-        }
-
-        if (object instanceof java.math.BigDecimal) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.DECIMAL_INDEX, Writer.DEBUG_TAG_CODE);
-
-            writer.writeDecimal((java.math.BigDecimal) object);
-
-            if (writer.interrupted()) {
-                writer.interrupt(bytes);
-                writer.interruptBoolean(true);
+            case Immutable.DECIMAL_INDEX: {
+                writer.writeDecimal((java.math.BigDecimal) object);
+                break;
             }
+            case Immutable.BOOLEAN_INDEX: {
+                if (!writer.canWriteBoolean()) {
+                    writer.interrupt(bytes);
+                    writer.interruptBoolean(true);
+                    return;
+                }
 
-            return;
-        }
-
-        if (object instanceof Boolean) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.BOOLEAN_INDEX, Writer.DEBUG_TAG_CODE);
-
-            if (!writer.canWriteBoolean()) {
-                writer.interrupt(bytes);
-                writer.interruptBoolean(true);
+                writer.writeBoolean(((Boolean) object).booleanValue());
                 return;
             }
+            case Immutable.BYTE_INDEX: {
+                if (!writer.canWriteByte()) {
+                    writer.interrupt(bytes);
+                    writer.interruptBoolean(true);
+                    return;
+                }
 
-            writer.writeBoolean(((Boolean) object).booleanValue());
-            return;
-        }
-
-        if (object instanceof Byte) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.BYTE_INDEX, Writer.DEBUG_TAG_CODE);
-
-            if (!writer.canWriteByte()) {
-                writer.interrupt(bytes);
-                writer.interruptBoolean(true);
+                writer.writeByte(((Byte) object).byteValue());
                 return;
             }
+            case Immutable.SHORT_INDEX: {
+                if (!writer.canWriteShort()) {
+                    writer.interrupt(bytes);
+                    writer.interruptBoolean(true);
+                    return;
+                }
 
-            writer.writeByte(((Byte) object).byteValue());
-            return;
-        }
-
-        if (object instanceof Short) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.SHORT_INDEX, Writer.DEBUG_TAG_CODE);
-
-            if (!writer.canWriteShort()) {
-                writer.interrupt(bytes);
-                writer.interruptBoolean(true);
+                writer.writeShort(((Short) object).shortValue());
                 return;
             }
+            case Immutable.CHARACTER_INDEX: {
+                if (!writer.canWriteCharacter()) {
+                    writer.interrupt(bytes);
+                    writer.interruptBoolean(true);
+                    return;
+                }
 
-            writer.writeShort(((Short) object).shortValue());
-            return;
-        }
-
-        if (object instanceof Character) {
-            if (!writtenCode)
-                writer.writeByte((byte) Immutable.CHARACTER_INDEX, Writer.DEBUG_TAG_CODE);
-
-            if (!writer.canWriteCharacter()) {
-                writer.interrupt(bytes);
-                writer.interruptBoolean(true);
+                writer.writeCharacter(((Character) object).charValue());
                 return;
             }
+            case CUSTOM: {
+                if (!resumed)
+                    bytes = serializer.serialize(object);
 
-            writer.writeCharacter(((Character) object).charValue());
-            return;
+                writer.writeBinary(bytes);
+                break;
+            }
+            default:
+                throw new IllegalStateException();
         }
 
-        Serializer serializer = Workspace.getSerializer();
-
-        if (serializer == null)
-            throw new RuntimeException(Strings.UNSUPPORTED_TYPE + object);
-
-        if (!writtenCode)
-            writer.writeByte(CUSTOM, Writer.DEBUG_TAG_CODE);
-
-        if (!resumed)
-            bytes = serializer.serialize(object);
-
-        writer.writeBinary(bytes);
-
         if (writer.interrupted()) {
             writer.interrupt(bytes);
             writer.interruptBoolean(true);
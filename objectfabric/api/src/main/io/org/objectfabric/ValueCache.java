@@ -0,0 +1,113 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import org.objectfabric.ThreadAssert.SingleThreaded;
+
+/**
+ * Recently written values, e.g. map keys or enum-like strings, so they can be sent again
+ * as an index. Writer and reader keep identical caches by adding each value written or
+ * read in full, evicting the least recently used, and touching entries on each hit.
+ */
+@SingleThreaded
+final class ValueCache {
+
+    static final int CAPACITY = 0xff + 1;
+
+    private final Object[] _values = new Object[CAPACITY];
+
+    private final int[] _previous = new int[CAPACITY], _next = new int[CAPACITY];
+
+    // Only needed on the writer side
+    private final PlatformMap<Object, Integer> _indexes;
+
+    private int _count, _first, _last;
+
+    ValueCache(boolean writer) {
+        _indexes = writer ? new PlatformMap<Object, Integer>() : null;
+    }
+
+    final void reset() {
+        for (int i = 0; i < _count; i++)
+            _values[i] = null;
+
+        if (_indexes != null)
+            _indexes.clear();
+
+        _count = 0;
+    }
+
+    final int indexOf(Object value) {
+        Integer index = _indexes.get(value);
+        return index != null ? index : -1;
+    }
+
+    final Object get(int index) {
+        if (Debug.ENABLED)
+            Debug.assertion(index < _count);
+
+        touch(index);
+        return _values[index];
+    }
+
+    final void add(Object value) {
+        int index;
+
+        if (_count < CAPACITY) {
+            index = _count++;
+
+            if (index == 0) {
+                _first = _last = 0;
+                _values[0] = value;
+
+                if (_indexes != null)
+                    _indexes.put(value, 0);
+
+                return;
+            }
+        } else {
+            index = _first;
+
+            if (_indexes != null)
+                _indexes.remove(_values[index]);
+
+            _first = _next[index];
+        }
+
+        _values[index] = value;
+
+        if (_indexes != null)
+            _indexes.put(value, index);
+
+        _previous[index] = _last;
+        _next[_last] = index;
+        _last = index;
+    }
+
+    final void touch(int index) {
+        if (index == _last)
+            return;
+
+        if (index == _first)
+            _first = _next[index];
+        else {
+            _next[_previous[index]] = _next[index];
+            _previous[_next[index]] = _previous[index];
+        }
+
+        _previous[index] = _last;
+        _next[_last] = index;
+        _last = index;
+    }
+}
@@ -36,6 +36,14 @@ abstract class View {
 
     abstract void getBlock(URI uri, long tick);
 
+    /**
+     * False if the view knows it cannot provide the block, e.g. a store which does not
+     * list it, so that reads are not scheduled on it.
+     */
+    boolean mayHave(long tick) {
+        return true;
+    }
+
     abstract void onBlock(URI uri, long tick, Buff[] buffs, long[] removals, boolean requested);
 
     //
@@ -17,6 +17,12 @@ import org.objectfabric.CloseCounter.Callback;
 import org.objectfabric.Counter.CounterRead;
 import org.objectfabric.Counter.CounterSharedVersion;
 import org.objectfabric.Counter.CounterVersion;
+import org.objectfabric.TKeyedLong.TKeyedLongRead;
+import org.objectfabric.TKeyedLong.TKeyedLongSharedVersion;
+import org.objectfabric.TKeyedLong.TKeyedLongVersion;
+import org.objectfabric.TList.TListRead;
+import org.objectfabric.TList.TListSharedVersion;
+import org.objectfabric.TList.TListVersion;
 import org.objectfabric.Resource.NewBlock;
 import org.objectfabric.Resource.ResourceRead;
 import org.objectfabric.Resource.ResourceVersion;
@@ -49,6 +55,8 @@ final class Watcher extends Extension {
 
     private Version[] _versions;
 
+    private boolean _checkpoint;
+
     Watcher(Workspace workspace) {
         super(workspace, true);
 
@@ -307,6 +315,9 @@ final class Watcher extends Extension {
         if (_versions == null)
             _versions = new Version[OpenMap.CAPACITY];
 
+        if (_checkpoint)
+            version.markFull();
+
         _versions = TransactionBase.putVersion(_versions, version);
     }
 
@@ -321,6 +332,24 @@ final class Watcher extends Extension {
     final void onVisitedResource(Resource resource) {
         super.onVisitedResource(resource);
 
+        if (resource.checkpointDue()) {
+            // Replace changes by whole state, objects are queued with new ones
+            while (_buffs.size() > 0)
+                _buffs.removeLast().recycle();
+
+            _writer.reset();
+            Buff buff = addBuffer();
+            buff.putByte(TObject.SERIALIZATION_VERSION);
+
+            for (int i = 0; _versions != null && i < _versions.length; i++)
+                if (_versions[i] != null)
+                    _added.add(_versions[i].object());
+
+            _versions = null;
+            resource.getObjects(_added);
+            _checkpoint = true;
+        }
+
         if (_added.size() > 0) {
             visitingNewObject(true);
             int map1 = mapIndex1();
@@ -337,6 +366,10 @@ final class Watcher extends Extension {
                 if (Debug.ENABLED)
                     Debug.assertion(object.resource() == resource);
 
+                // Objects can be written by several blocks
+                if (_checkpoint && _versions != null && TransactionBase.getVersion(_versions, object) != null)
+                    continue;
+
                 visit(object);
             }
 
@@ -348,6 +381,11 @@ final class Watcher extends Extension {
         if (_buffs.size() > 1 || _buffs.get(0).position() > 1)
             _clock.onBlock(resource, _versions);
 
+        if (_checkpoint) {
+            resource.onCheckpoint();
+            _checkpoint = false;
+        }
+
         _versions = null;
     }
 
@@ -406,7 +444,13 @@ final class Watcher extends Extension {
     }
 
     private final Buff addBuffer() {
-        Buff buff = Buff.getOrCreate();
+        int capacity = 0;
+
+        // Grows with block, so large ones are not split in many default buffs
+        for (int i = 0; i < _buffs.size(); i++)
+            capacity += _buffs.get(i).capacity();
+
+        Buff buff = Buff.getOrCreate(capacity);
         _buffs.add(buff);
         _writer.setBuff(buff);
         return buff;
@@ -582,6 +626,37 @@ final class Watcher extends Extension {
         throw new IllegalStateException();
     }
 
+    // TKeyedLong
+
+    @Override
+    final void visit(TKeyedLongRead version) {
+        for (;;) {
+            _writer.writeTKeyedLong(version.object(), version.getEntries(), false, version.getFullyRead());
+
+            if (!interrupted())
+                break;
+
+            addBuffer();
+        }
+    }
+
+    @Override
+    final void visit(TKeyedLongVersion version) {
+        for (;;) {
+            _writer.writeTKeyedLong(version.object(), version.getEntries(), version.getCleared(), false);
+
+            if (!interrupted())
+                break;
+
+            addBuffer();
+        }
+    }
+
+    @Override
+    final void visit(TKeyedLongSharedVersion shared) {
+        throw new IllegalStateException();
+    }
+
     // Counter
 
     @Override
@@ -613,6 +688,37 @@ final class Watcher extends Extension {
         throw new IllegalStateException();
     }
 
+    // TList
+
+    @Override
+    final void visit(TListRead version) {
+        for (;;) {
+            _writer.writeTList(version.object(), null);
+
+            if (!interrupted())
+                break;
+
+            addBuffer();
+        }
+    }
+
+    @Override
+    final void visit(TListVersion version) {
+        for (;;) {
+            _writer.writeTList(version.object(), version);
+
+            if (!interrupted())
+                break;
+
+            addBuffer();
+        }
+    }
+
+    @Override
+    final void visit(TListSharedVersion shared) {
+        throw new IllegalStateException();
+    }
+
     // Debug
 
     private final void assertIdle() {
@@ -14,6 +14,8 @@ package org.objectfabric;
 
 import org.objectfabric.TIndexed.Version32;
 import org.objectfabric.TIndexed.VersionN;
+import org.objectfabric.TKeyedLong.LongEntries;
+import org.objectfabric.TList.TListVersion;
 import org.objectfabric.ThreadAssert.SingleThreaded;
 
 @SuppressWarnings("rawtypes")
@@ -503,6 +505,132 @@ public final class Writer extends TObjectWriter {
         }
     }
 
+    /*
+     * Keyed with primitive keys. Entries are a state byte, the key and, for writes, the
+     * value, followed by a FREE state byte.
+     */
+
+    @SuppressWarnings("fallthrough")
+    final void writeTKeyedLong(TObject object, LongEntries entries, boolean cleared, boolean fullyRead) {
+        if (entries == null && !cleared && !fullyRead)
+            return;
+
+        KeyedStep step = KeyedStep.COMMAND;
+        int index = 0, part = 0;
+
+        if (interrupted()) {
+            step = (KeyedStep) resume();
+            index = resumeInt();
+            part = resumeInt();
+        }
+
+        switch (step) {
+            case COMMAND: {
+                writeCommand(command());
+
+                if (interrupted()) {
+                    interruptInt(part);
+                    interruptInt(index);
+                    interrupt(KeyedStep.COMMAND);
+                    return;
+                }
+            }
+            case TOBJECT: {
+                writeTObject(object);
+
+                if (interrupted()) {
+                    interruptInt(part);
+                    interruptInt(index);
+                    interrupt(KeyedStep.TOBJECT);
+                    return;
+                }
+            }
+            case BOOLEAN: {
+                if (!canWriteBoolean()) {
+                    interruptInt(part);
+                    interruptInt(index);
+                    interrupt(KeyedStep.BOOLEAN);
+                    return;
+                }
+
+                if (watcher().visitingRead()) {
+                    writeBoolean(fullyRead);
+
+                    if (fullyRead)
+                        return;
+                } else
+                    writeBoolean(cleared);
+            }
+            case ENTRIES: {
+                if (entries != null) {
+                    for (; index < entries.States.length; index++) {
+                        byte state = entries.States[index];
+
+                        if (state == LongEntries.PUT || state == LongEntries.REMOVAL) {
+                            if (part == 0) {
+                                if (!canWriteByte()) {
+                                    interruptInt(part);
+                                    interruptInt(index);
+                                    interrupt(KeyedStep.ENTRIES);
+                                    return;
+                                }
+
+                                writeByte(state);
+                                part = 1;
+                            }
+
+                            if (part == 1) {
+                                if (!canWriteLong()) {
+                                    interruptInt(part);
+                                    interruptInt(index);
+                                    interrupt(KeyedStep.ENTRIES);
+                                    return;
+                                }
+
+                                writeLong(entries.Keys[index]);
+                                part = 2;
+                            }
+
+                            if (state == LongEntries.PUT && !watcher().visitingRead()) {
+                                if (entries.Objects != null) {
+                                    writeObject(entries.Objects[index]);
+
+                                    if (interrupted()) {
+                                        interruptInt(part);
+                                        interruptInt(index);
+                                        interrupt(KeyedStep.ENTRIES);
+                                        return;
+                                    }
+                                } else {
+                                    if (!canWriteLong()) {
+                                        interruptInt(part);
+                                        interruptInt(index);
+                                        interrupt(KeyedStep.ENTRIES);
+                                        return;
+                                    }
+
+                                    writeLong(entries.Longs[index]);
+                                }
+                            }
+
+                            part = 0;
+                        }
+                    }
+                }
+            }
+            case END: {
+                if (!canWriteByte()) {
+                    interruptInt(part);
+                    interruptInt(index);
+                    interrupt(KeyedStep.END);
+                    return;
+                }
+
+                writeByte(LongEntries.FREE);
+            }
+        }
+    }
+
     /*
      * Counter.
      */
@@ -560,6 +688,121 @@ public final class Writer extends TObjectWriter {
         }
     }
 
+    /*
+     * TList.
+     */
+
+    private enum ListStep {
+        COMMAND, TOBJECT, CLEARED, OPERATIONS, END
+    }
+
+    @SuppressWarnings("fallthrough")
+    final void writeTList(TObject object, TListVersion version) {
+        if (version != null && version.getCount() == 0 && !version.getCleared())
+            return;
+
+        ListStep step = ListStep.COMMAND;
+        int index = 0, part = 0;
+
+        if (interrupted()) {
+            step = (ListStep) resume();
+            index = resumeInt();
+            part = resumeInt();
+        }
+
+        switch (step) {
+            case COMMAND: {
+                writeCommand(command());
+
+                if (interrupted()) {
+                    interruptInt(part);
+                    interruptInt(index);
+                    interrupt(ListStep.COMMAND);
+                    return;
+                }
+            }
+            case TOBJECT: {
+                writeTObject(object);
+
+                if (interrupted()) {
+                    interruptInt(part);
+                    interruptInt(index);
+                    interrupt(ListStep.TOBJECT);
+                    return;
+                }
+
+                if (version == null)
+                    return;
+            }
+            case CLEARED: {
+                if (!canWriteBoolean()) {
+                    interruptInt(part);
+                    interruptInt(index);
+                    interrupt(ListStep.CLEARED);
+                    return;
+                }
+
+                writeBoolean(version.getCleared());
+            }
+            case OPERATIONS: {
+                for (; index < version.getCount(); index++) {
+                    byte kind = version.getKind(index);
+
+                    if (part == 0) {
+                        if (!canWriteByte()) {
+                            interruptInt(part);
+                            interruptInt(index);
+                            interrupt(ListStep.OPERATIONS);
+                            return;
+                        }
+
+                        writeByte(kind);
+                        part = 1;
+                    }
+
+                    if (part == 1) {
+                        // Appends are applied at the end of the list
+                        if (kind != TListVersion.ADD) {
+                            if (!canWriteInteger()) {
+                                interruptInt(part);
+                                interruptInt(index);
+                                interrupt(ListStep.OPERATIONS);
+                                return;
+                            }
+
+                            writeInteger(version.getIndex(index));
+                        }
+
+                        part = 2;
+                    }
+
+                    if (kind != TListVersion.REMOVE) {
+                        writeObject(version.getValue(index));
+
+                        if (interrupted()) {
+                            interruptInt(part);
+                            interruptInt(index);
+                            interrupt(ListStep.OPERATIONS);
+                            return;
+                        }
+                    }
+
+                    part = 0;
+                }
+            }
+            case END: {
+                if (!canWriteByte()) {
+                    interruptInt(part);
+                    interruptInt(index);
+                    interrupt(ListStep.END);
+                    return;
+                }
+
+                writeByte(TListVersion.END);
+            }
+        }
+    }
+
     // Debug
 
     public static String getCommandString(int code) {
@@ -0,0 +1,125 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.objectfabric.TObject.Version;
+
+/**
+ * Slows down threads writing to a workspace faster than its extensions (e.g. a logger or
+ * persistence backend) can process changes. Changes are kept in a queue until processed,
+ * its depth is measured both in number of commits not yet merged, and in number of
+ * versions they contain, as commits can be of very different sizes.
+ * <nl>
+ * Default policy lets threads commit freely below 80% of the maximum depth, then delays
+ * them for a time growing with the depth, so that writers are slowed down progressively
+ * instead of all at once. Override {@link #delay(int, int)} for other policies.
+ */
+public class BackPressure {
+
+    public static final int DEFAULT_MAXIMUM_COMMITS = 100;
+
+    public static final int DEFAULT_MAXIMUM_VERSIONS = 100000;
+
+    static final int THRESHOLD_PERCENT = 80;
+
+    static final int MAXIMUM_DELAY = 16;
+
+    private final int _maximumCommits, _maximumVersions;
+
+    private final AtomicLong _throttleCount = new AtomicLong();
+
+    private final AtomicLong _throttleTime = new AtomicLong();
+
+    private final AtomicLong _maximumDepth = new AtomicLong();
+
+    public BackPressure() {
+        this(DEFAULT_MAXIMUM_COMMITS, DEFAULT_MAXIMUM_VERSIONS);
+    }
+
+    public BackPressure(int maximumCommits, int maximumVersions) {
+        if (maximumCommits <= 0 || maximumVersions <= 0)
+            throw new IllegalArgumentException();
+
+        _maximumCommits = maximumCommits;
+        _maximumVersions = maximumVersions;
+    }
+
+    public final int maximumCommits() {
+        return _maximumCommits;
+    }
+
+    public final int maximumVersions() {
+        return _maximumVersions;
+    }
+
+    /**
+     * Number of times a thread has been delayed.
+     */
+    public final long throttleCount() {
+        return _throttleCount.get();
+    }
+
+    /**
+     * Total time threads have been delayed, in milliseconds.
+     */
+    public final long throttleTime() {
+        return _throttleTime.get();
+    }
+
+    /**
+     * Highest number of versions seen in the queue while throttling.
+     */
+    public final long maximumDepth() {
+        return _maximumDepth.get();
+    }
+
+    /**
+     * Called before a thread publishes changes. Returns the time in milliseconds the
+     * thread should wait, 0 to publish immediately, or -1 if the queue is full, in which
+     * case {@link Workspace#onOverloaded()} is called.
+     */
+    protected int delay(int commits, int versions) {
+        long percent = Math.max(commits * 100L / _maximumCommits, versions * 100L / _maximumVersions);
+
+        if (percent < THRESHOLD_PERCENT)
+            return 0;
+
+        if (percent >= 100)
+            return -1;
+
+        return 1 + (int) ((percent - THRESHOLD_PERCENT) * (MAXIMUM_DELAY - 1) / (100 - THRESHOLD_PERCENT));
+    }
+
+    final void onThrottled(int versions, int delay) {
+        _throttleCount.incrementAndGet();
+        _throttleTime.addAndGet(delay);
+        Stats.max(_maximumDepth, versions);
+    }
+
+    /**
+     * Commits are counted from the last merged one. Versions are counted as slots in
+     * versions arrays, which also approximates memory used.
+     */
+    static int versions(Snapshot snapshot) {
+        Version[][] writes = snapshot.writes();
+        int versions = 0;
+
+        for (int i = writes.length - 1; i > TransactionManager.OBJECTS_VERSIONS_INDEX; i--)
+            versions += writes[i].length;
+
+        return versions;
+    }
+}
@@ -38,6 +38,22 @@ final class BuiltInClass {
 
     static final int COUNTER_CLASS_ID = 4;
 
+    static final BuiltInClass TLIST;
+
+    static final int TLIST_CLASS_ID = 5;
+
+    static final BuiltInClass TMAP_LONG_LONG;
+
+    static final int TMAP_LONG_LONG_CLASS_ID = 6;
+
+    static final BuiltInClass TMAP_LONG_OBJECT;
+
+    static final int TMAP_LONG_OBJECT_CLASS_ID = 7;
+
+    static final BuiltInClass TMAP_INT_OBJECT;
+
+    static final int TMAP_INT_OBJECT_CLASS_ID = 8;
+
     //
 
     static final BuiltInClass[] ALL;
@@ -49,6 +65,10 @@ final class BuiltInClass {
         all.add(TSET = new BuiltInClass(TSET_CLASS_ID, "org.objectfabric.TSet"));
         all.add(TMAP = new BuiltInClass(TMAP_CLASS_ID, "org.objectfabric.TMap"));
         all.add(TCOUNTER = new BuiltInClass(COUNTER_CLASS_ID, "org.objectfabric.Counter"));
+        all.add(TLIST = new BuiltInClass(TLIST_CLASS_ID, "org.objectfabric.TList"));
+        all.add(TMAP_LONG_LONG = new BuiltInClass(TMAP_LONG_LONG_CLASS_ID, "org.objectfabric.TMapLongLong"));
+        all.add(TMAP_LONG_OBJECT = new BuiltInClass(TMAP_LONG_OBJECT_CLASS_ID, "org.objectfabric.TMapLongObject"));
+        all.add(TMAP_INT_OBJECT = new BuiltInClass(TMAP_INT_OBJECT_CLASS_ID, "org.objectfabric.TMapIntObject"));
         ALL = new BuiltInClass[all.size()];
         all.copyToFixed(ALL);
     }
@@ -320,6 +320,11 @@ public class Counter extends TObject {
             return empty;
         }
 
+        @Override
+        void markFull() {
+            _reset = true;
+        }
+
         // Debug
 
         @Override
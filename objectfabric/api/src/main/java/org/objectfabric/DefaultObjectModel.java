@@ -86,6 +86,14 @@ final class DefaultObjectModel extends ObjectModel {
                 return TMap.class;
             case BuiltInClass.COUNTER_CLASS_ID:
                 return Counter.class;
+            case BuiltInClass.TLIST_CLASS_ID:
+                return TList.class;
+            case BuiltInClass.TMAP_LONG_LONG_CLASS_ID:
+                return TMapLongLong.class;
+            case BuiltInClass.TMAP_LONG_OBJECT_CLASS_ID:
+                return TMapLongObject.class;
+            case BuiltInClass.TMAP_INT_OBJECT_CLASS_ID:
+                return TMapIntObject.class;
         }
 
         return super.getClass(classId, genericParameters);
@@ -153,6 +161,23 @@ final class DefaultObjectModel extends ObjectModel {
                 return new TMap(resource, genericParameters[0], genericParameters[1]);
             case BuiltInClass.COUNTER_CLASS_ID:
                 return new Counter(resource);
+            case BuiltInClass.TLIST_CLASS_ID:
+                if (genericParameters == null)
+                    return new TList(resource);
+
+                return new TList(resource, genericParameters[0]);
+            case BuiltInClass.TMAP_LONG_LONG_CLASS_ID:
+                return new TMapLongLong(resource);
+            case BuiltInClass.TMAP_LONG_OBJECT_CLASS_ID:
+                if (genericParameters == null)
+                    return new TMapLongObject(resource);
+
+                return new TMapLongObject(resource, genericParameters[0]);
+            case BuiltInClass.TMAP_INT_OBJECT_CLASS_ID:
+                if (genericParameters == null)
+                    return new TMapIntObject(resource);
+
+                return new TMapIntObject(resource, genericParameters[0]);
         }
 
         return super.createInstance(resource, classId, genericParameters);
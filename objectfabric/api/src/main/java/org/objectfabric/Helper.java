@@ -190,12 +190,26 @@ final class Helper {
     }
 
     static boolean validate(VersionMap map, Version[] reads, Snapshot snapshot, int start, int stop) {
-        if (start < stop)
-            if (reads != null)
+        if (start < stop && reads != null) {
+            long[] filter = VersionMap.createFilter(reads);
+
+            for (int m = start; m < stop; m++) {
+                if (!VersionMap.intersects(filter, snapshot.getVersionMaps()[m].getFilter())) {
+                    if (Stats.ENABLED)
+                        Stats.Instance.ValidationFilterHits.incrementAndGet();
+
+                    continue;
+                }
+
+                if (Stats.ENABLED)
+                    Stats.Instance.ValidationFilterMisses.incrementAndGet();
+
                 for (int i = reads.length - 1; i >= 0; i--)
                     if (reads[i] != null)
-                        if (!reads[i].validAgainst(map, snapshot, start, stop))
+                        if (!reads[i].validAgainst(map, snapshot, m, m + 1))
                             return false;
+            }
+        }
 
         return true;
     }
@@ -0,0 +1,29 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+/**
+ * Called when a list is modified. Indexes are the ones the change was applied at, in the
+ * order changes were made, so replaying them in order on a copy of the list keeps it in
+ * sync.
+ */
+public interface ListListener {
+
+    void onAdd(int index);
+
+    void onRemove(int index);
+
+    void onSet(int index);
+
+    void onClear();
+}
@@ -0,0 +1,386 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+/**
+ * Process wide counters and latency histograms. Unlike Stats, which is compiled out of
+ * release builds, metrics are switched on at runtime and are cheap enough to leave on in
+ * production. Each thread records in its own arrays without synchronization, which are
+ * only summed when read, and commits and validations are timed one in {@link #SAMPLE}
+ * as reading the clock costs more than the rest.
+ *
+ * Values written concurrently can be read slightly stale, and reset while threads are
+ * recording can miss some of their values. Disabled by default. Values can be pulled
+ * using {@link Workspace#getMetrics()}, or on the JVM through JMX.
+ */
+public final class Metrics {
+
+    static final int COMMITTED = 0, ABORTED = 1, VALIDATION_RETRIES = 2, BLOCK_READS = 3, BLOCK_WRITES = 4, CONNECTION_WRITES = 5, RESOURCE_OPENS = 6;
+
+    static final int COUNTERS = 7;
+
+    static final int COMMIT = 0, VALIDATION = 1, BLOCK_READ = 2, BLOCK_WRITE = 3, CONNECTION_WRITE = 4, RESOURCE_OPEN = 5;
+
+    static final int HISTOGRAMS = 6;
+
+    public static final int SAMPLE = 8;
+
+    static final Metrics Instance = new Metrics();
+
+    // Checked on hot paths before counting or timing
+    static volatile boolean Enabled;
+
+    private final PlatformThreadLocal<Recorder> _recorder = new PlatformThreadLocal<Recorder>();
+
+    // Threads' recorders are kept after they end so that totals do not decrease
+    private final PlatformConcurrentQueue<Recorder> _recorders = new PlatformConcurrentQueue<Recorder>();
+
+    Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return Enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        Enabled = value;
+    }
+
+    /**
+     * Current thread's recorder, or null if disabled.
+     */
+    static Recorder recorder() {
+        return Enabled ? Instance.getOrCreateRecorder() : null;
+    }
+
+    final Recorder getOrCreateRecorder() {
+        Recorder recorder = _recorder.get();
+
+        if (recorder == null) {
+            _recorder.set(recorder = new Recorder());
+            _recorders.add(recorder);
+        }
+
+        return recorder;
+    }
+
+    static void increment(int counter) {
+        Recorder recorder = recorder();
+
+        if (recorder != null)
+            recorder.add(counter, 1);
+    }
+
+    /**
+     * For operations slow enough to time all of them, e.g. I/O. Returns 0 if disabled,
+     * in which case the matching end call does nothing.
+     */
+    static long start() {
+        return Enabled ? Platform.get().nanoTime() : 0;
+    }
+
+    static void onBlockRead(long start) {
+        end(BLOCK_READS, 1, BLOCK_READ, start);
+    }
+
+    static void onBlockWrite(long start, int blocks) {
+        end(BLOCK_WRITES, blocks, BLOCK_WRITE, start);
+    }
+
+    static void onConnectionWrite(long start) {
+        end(CONNECTION_WRITES, 1, CONNECTION_WRITE, start);
+    }
+
+    static void onResourceOpen(long start) {
+        end(RESOURCE_OPENS, 1, RESOURCE_OPEN, start);
+    }
+
+    private static void end(int counter, long count, int histogram, long start) {
+        if (start != 0) {
+            Recorder recorder = Instance.getOrCreateRecorder();
+            recorder.add(counter, count);
+            recorder.end(histogram, start);
+        }
+    }
+
+    public long committed() {
+        return sum(COMMITTED);
+    }
+
+    public long aborted() {
+        return sum(ABORTED);
+    }
+
+    public long validationRetries() {
+        return sum(VALIDATION_RETRIES);
+    }
+
+    public long blockReads() {
+        return sum(BLOCK_READS);
+    }
+
+    public long blockWrites() {
+        return sum(BLOCK_WRITES);
+    }
+
+    /**
+     * Number of times a connection has serialized data to its transport.
+     */
+    public long connectionWrites() {
+        return sum(CONNECTION_WRITES);
+    }
+
+    /**
+     * Number of resources loaded, i.e. opened and not already in memory.
+     */
+    public long resourceOpens() {
+        return sum(RESOURCE_OPENS);
+    }
+
+    /**
+     * Time to commit a top-level transaction, including validation and retries. Sampled.
+     */
+    public Histogram commitLatency() {
+        return histogram(COMMIT);
+    }
+
+    /**
+     * Time to validate a transaction's reads against commits since it started. Sampled.
+     */
+    public Histogram validationLatency() {
+        return histogram(VALIDATION);
+    }
+
+    public Histogram blockReadLatency() {
+        return histogram(BLOCK_READ);
+    }
+
+    public Histogram blockWriteLatency() {
+        return histogram(BLOCK_WRITE);
+    }
+
+    public Histogram connectionWriteLatency() {
+        return histogram(CONNECTION_WRITE);
+    }
+
+    /**
+     * Time from opening a resource to its content being loaded from stores or remotes.
+     */
+    public Histogram resourceOpenLatency() {
+        return histogram(RESOURCE_OPEN);
+    }
+
+    public void reset() {
+        for (Recorder recorder : _recorders)
+            recorder.reset();
+    }
+
+    private final long sum(int counter) {
+        long sum = 0;
+
+        for (Recorder recorder : _recorders)
+            sum += recorder._counters[counter];
+
+        return sum;
+    }
+
+    private final Histogram histogram(int index) {
+        long[] buckets = new long[Histogram.BUCKETS];
+        long sum = 0, max = 0;
+
+        for (Recorder recorder : _recorders) {
+            long[] values = recorder._buckets[index];
+
+            if (values != null) {
+                for (int i = 0; i < buckets.length; i++)
+                    buckets[i] += values[i];
+
+                sum += recorder._sums[index];
+                max = Math.max(max, recorder._maxes[index]);
+            }
+        }
+
+        return new Histogram(buckets, sum, max);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("committed: " + committed() + ", aborted: " + aborted());
+        sb.append(", validationRetries: " + validationRetries());
+        sb.append(", blockReads: " + blockReads() + ", blockWrites: " + blockWrites());
+        sb.append(", connectionWrites: " + connectionWrites() + ", resourceOpens: " + resourceOpens());
+        sb.append(", commit: " + commitLatency() + ", validation: " + validationLatency());
+        sb.append(", blockRead: " + blockReadLatency() + ", blockWrite: " + blockWriteLatency());
+        sb.append(", connectionWrite: " + connectionWriteLatency() + ", resourceOpen: " + resourceOpenLatency());
+        return sb.toString();
+    }
+
+    /**
+     * Written only by its thread.
+     */
+    static final class Recorder {
+
+        private final long[] _counters = new long[COUNTERS];
+
+        private final long[][] _buckets = new long[HISTOGRAMS][];
+
+        private final long[] _sums = new long[HISTOGRAMS];
+
+        private final long[] _maxes = new long[HISTOGRAMS];
+
+        private int _samples;
+
+        /**
+         * Like Metrics.start(), but only returns a time one in SAMPLE calls.
+         */
+        final long sample() {
+            return (++_samples & (SAMPLE - 1)) == 0 ? Platform.get().nanoTime() : 0;
+        }
+
+        final void add(int counter, long value) {
+            _counters[counter] += value;
+        }
+
+        final void end(int histogram, long start) {
+            if (start != 0)
+                record(histogram, Platform.get().nanoTime() - start);
+        }
+
+        final void record(int histogram, long value) {
+            long[] buckets = _buckets[histogram];
+
+            if (buckets == null)
+                _buckets[histogram] = buckets = new long[Histogram.BUCKETS];
+
+            buckets[Histogram.index(value)]++;
+            _sums[histogram] += value;
+
+            if (value > _maxes[histogram])
+                _maxes[histogram] = value;
+        }
+
+        final void reset() {
+            for (int i = 0; i < COUNTERS; i++)
+                _counters[i] = 0;
+
+            for (int i = 0; i < HISTOGRAMS; i++) {
+                if (_buckets[i] != null)
+                    for (int t = 0; t < _buckets[i].length; t++)
+                        _buckets[i][t] = 0;
+
+                _sums[i] = 0;
+                _maxes[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Latencies in nanoseconds. Each power of two is split in 16 linear buckets, so
+     * percentiles are within about 6% of actual values, from 1ns to about 18 minutes.
+     * Larger values are counted in the last bucket.
+     */
+    public static final class Histogram {
+
+        static final int SUB_BITS = 4;
+
+        static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        static final int MAX_BITS = 40;
+
+        static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_BUCKETS;
+
+        private final long[] _buckets;
+
+        private final long _count, _sum, _max;
+
+        Histogram(long[] buckets, long sum, long max) {
+            long count = 0;
+
+            for (int i = 0; i < buckets.length; i++)
+                count += buckets[i];
+
+            _buckets = buckets;
+            _count = count;
+            _sum = sum;
+            _max = max;
+        }
+
+        static int index(long value) {
+            if (value < SUB_BUCKETS)
+                return value < 0 ? 0 : (int) value;
+
+            int bits = 64 - Long.numberOfLeadingZeros(value);
+
+            if (bits > MAX_BITS)
+                return BUCKETS - 1;
+
+            int shift = bits - SUB_BITS - 1;
+            return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+        }
+
+        /**
+         * Largest value counted in bucket.
+         */
+        static long highest(int index) {
+            if (index < SUB_BUCKETS)
+                return index;
+
+            int shift = index / SUB_BUCKETS - 1;
+            long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+            return ((sub + 1) << shift) - 1;
+        }
+
+        public long count() {
+            return _count;
+        }
+
+        public long max() {
+            return _max;
+        }
+
+        public long mean() {
+            return _count != 0 ? _sum / _count : 0;
+        }
+
+        /**
+         * Value below which given percentage of values fall, e.g. 99 for the 99th
+         * percentile.
+         */
+        public long percentile(double percent) {
+            if (percent < 0 || percent > 100)
+                throw new IllegalArgumentException();
+
+            if (_count == 0)
+                return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(percent / 100 * _count));
+            long seen = 0;
+
+            for (int i = 0; i < _buckets.length; i++) {
+                seen += _buckets[i];
+
+                if (seen >= rank)
+                    return Math.min(highest(i), _max);
+            }
+
+            return _max;
+        }
+
+        @Override
+        public String toString() {
+            return "{count: " + _count + ", mean: " + mean() + ", p50: " + percentile(50) + ", p99: " + percentile(99) + ", max: " + _max + "}";
+        }
+    }
+}
@@ -61,6 +61,9 @@ public class Resource extends TObject {
 
     private final List<Block> _ordered = new List<Block>();
 
+    // Size of _ordered after last checkpoint
+    private int _checkpointed;
+
     private volatile List<long[]> _goals = new List<long[]>();
 
     //
@@ -333,7 +336,8 @@ public class Resource extends TObject {
                 if (ticks.length == 0)
                     onUpToDate();
                 else {
-                    boolean pending = false;
+                    long[] missing = null;
+                    int count = 0;
 
                     for (int i = 0; i < ticks.length; i++) {
                         if (!Tick.isNull(ticks[i])) {
@@ -344,21 +348,33 @@ public class Resource extends TObject {
                                     skip = true;
 
                             if (!skip) {
-                                pending = true;
-                                Object key;
-
-                                if (Debug.THREADS)
-                                    ThreadAssert.suspend(key = new Object());
+                                if (missing == null)
+                                    missing = new long[ticks.length];
 
-                                _uri.getBlock(Resource.this, ticks[i]);
-
-                                if (Debug.THREADS)
-                                    ThreadAssert.resume(key);
+                                missing[count++] = ticks[i];
                             }
                         }
                     }
 
-                    if (pending) {
+                    if (count > 0) {
+                        /*
+                         * Requests all blocks at once, oldest first. Stores read them
+                         * concurrently in that order, so they mostly arrive after their
+                         * dependencies and can be loaded as they come instead of
+                         * accumulating in _pending.
+                         */
+                        Tick.sortByTime(missing, count);
+                        Object key;
+
+                        if (Debug.THREADS)
+                            ThreadAssert.suspend(key = new Object());
+
+                        for (int i = 0; i < count; i++)
+                            _uri.getBlock(Resource.this, missing[i]);
+
+                        if (Debug.THREADS)
+                            ThreadAssert.resume(key);
+
                         List<long[]> goals = _goals;
 
                         if (goals != null)
@@ -643,6 +659,18 @@ public class Resource extends TObject {
     private final void order(List<Block> list) {
         Version[] versions = null;
 
+        // In happened-before order, blocks are appended instead of masked by later ones
+        if (list.size() > 1) {
+            List<Block> sorted = new List<Block>();
+
+            for (int i = 0; i < list.size(); i++) {
+                Block block = list.get(i);
+                sorted.add(binarySearch(sorted, block.Tick, block.HappenedBefore), block);
+            }
+
+            list = sorted;
+        }
+
         for (int i = 0; i < list.size(); i++)
             versions = order(list.get(i), versions);
 
@@ -718,10 +746,7 @@ public class Resource extends TObject {
     }
 
     private static int compare(long a, long[] aHB, long b, long[] bHB) {
-        // TODO pre-compute in Peer somehow?
-        byte[] uidA = Peer.get(Tick.peer(a)).uid();
-        byte[] uidB = Peer.get(Tick.peer(b)).uid();
-        int compare = UID.compare(uidA, uidB);
+        int compare = Peer.compare(Tick.peer(a), Tick.peer(b));
 
         if (compare == 0) {
             if (Debug.ENABLED) {
@@ -934,6 +959,41 @@ public class Resource extends TObject {
     void onNewBlock() {
     }
 
+    /*
+     * Checkpoints.
+     */
+
+    /**
+     * True if enough blocks have been added since last checkpoint that the next one
+     * written should contain the whole resource state. It masks all previous blocks so
+     * they get removed from locations.
+     */
+    final boolean checkpointDue() {
+        int interval = _workspace.getCheckpointInterval();
+        return interval > 0 && _ordered.size() - _checkpointed >= interval;
+    }
+
+    /**
+     * Objects written by blocks of the current history.
+     */
+    final void getObjects(Queue<TObject> queue) {
+        for (int i = 0; i < _ordered.size(); i++) {
+            Version[] versions = _ordered.get(i).Versions;
+
+            for (int j = versions.length - 1; j >= 0; j--)
+                if (versions[j] != null)
+                    queue.add(versions[j].object());
+        }
+    }
+
+    final void onCheckpoint() {
+        // Blocks not fully masked, e.g. concurrent ones, will count towards next one
+        _checkpointed = _ordered.size();
+
+        if (Stats.ENABLED)
+            Stats.Instance.Checkpoints.incrementAndGet();
+    }
+
     private final void updatePendingAcks(NewBlock block) {
         if (block.PendingAcksBitSet != 0) {
             if (_pendingAcks.size() == 0)
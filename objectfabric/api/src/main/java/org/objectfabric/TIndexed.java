@@ -89,6 +89,100 @@ public abstract class TIndexed extends TIndexedBase {
         return version;
     }
 
+    /*
+     * Bulk accesses.
+     */
+
+    /**
+     * Versions visible from a transaction which can hold elements from start to end
+     * excluded, most recent first and ending with the shared one. Reads of elements the
+     * transaction has not written are recorded a unit at a time.
+     */
+    final VersionN[] getVersionsN_(Transaction current, int start, int end) {
+        List<VersionN> list = new List<VersionN>();
+        VersionN version = (VersionN) current.getVersion(this);
+
+        if (version != null)
+            list.add(version);
+
+        Version[][] privates = current.getPrivateSnapshotVersions();
+
+        for (int i = privates != null ? privates.length - 1 : -1; i >= 0; i--) {
+            version = (VersionN) TransactionBase.getVersion(privates[i], this);
+
+            if (version != null)
+                list.add(version);
+        }
+
+        if (!current.ignoreReads()) {
+            TIndexedNRead read = null;
+
+            for (int i = start; i < end; i = Bits.unitEnd(i, end)) {
+                int intIndex = i >> Bits.BITS_PER_UNIT_SHIFT;
+                int mask = Bits.unitMask(i, Bits.unitEnd(i, end));
+
+                for (int j = 0; j < list.size(); j++)
+                    mask &= ~list.get(j).getUnitBits(intIndex);
+
+                if (mask != 0) {
+                    if (read == null) {
+                        read = (TIndexedNRead) current.getRead(this);
+
+                        if (read == null) {
+                            read = (TIndexedNRead) createRead();
+                            current.putRead(read);
+                        }
+                    }
+
+                    read.setUnitBits(intIndex, mask);
+                }
+            }
+        }
+
+        Version[][] publics = current.getPublicSnapshotVersions();
+
+        for (int i = publics.length - 1; i > TransactionManager.OBJECTS_VERSIONS_INDEX; i--) {
+            version = (VersionN) TransactionBase.getVersion(publics[i], this);
+
+            if (version != null)
+                list.add(version);
+        }
+
+        list.add((VersionN) shared_());
+        VersionN[] versions = new VersionN[list.size()];
+        list.copyToFixed(versions);
+        return versions;
+    }
+
+    /**
+     * Version holding the element at index.
+     */
+    static VersionN findVersionN(VersionN[] versions, int index) {
+        for (int i = 0; i < versions.length - 1; i++)
+            if (versions[i].getBit(index))
+                return versions[i];
+
+        return versions[versions.length - 1];
+    }
+
+    /**
+     * Version holding all elements of mask in the unit at intIndex, or null if they come
+     * from different versions.
+     */
+    static VersionN findVersionN(VersionN[] versions, int intIndex, int mask) {
+        for (int i = 0; i < versions.length - 1; i++) {
+            int bits = versions[i].getUnitBits(intIndex) & mask;
+
+            if (bits == mask)
+                return versions[i];
+
+            if (bits != 0)
+                return null;
+        }
+
+        return versions[versions.length - 1];
+    }
+
     //
 
     protected abstract class TIndexedIterator {
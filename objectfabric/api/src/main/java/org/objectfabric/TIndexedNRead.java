@@ -53,6 +53,21 @@ class TIndexedNRead extends TIndexed.Read {
             reindex();
     }
 
+    public final int getUnitBits(int intIndex) {
+        return Bits.getUnit(_bits, intIndex);
+    }
+
+    public final void setUnitBits(int intIndex, int mask) {
+        if (Debug.ENABLED)
+            Debug.assertion(this != object().shared_());
+
+        if (_bits == null)
+            _bits = new Bits.Entry[Bits.SPARSE_BITSET_DEFAULT_CAPACITY];
+
+        while (!Bits.tryToSetUnit(_bits, intIndex, mask))
+            reindex();
+    }
+
     final int addEntry(Bits.Entry entry) {
         if (_bits == null)
             _bits = new Bits.Entry[Bits.SPARSE_BITSET_DEFAULT_CAPACITY];
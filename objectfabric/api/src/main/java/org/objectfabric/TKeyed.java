@@ -90,7 +90,7 @@ abstract class TKeyed<K> extends TObject {
         }
 
         TKeyedSharedVersion shared = (TKeyedSharedVersion) shared_();
-        return TKeyedBase1.getEntry(shared.getWrites(), key, hash);
+        return shared.getEntry(key, hash);
     }
 
     static TKeyedEntry getEntry(Version[][] snapshot, TObject object, int mapIndex, Object key, int hash) {
@@ -108,7 +108,7 @@ abstract class TKeyed<K> extends TObject {
             }
         }
 
-        return TKeyedBase1.getEntry(((TKeyedSharedVersion) object.shared_()).getWrites(), key, hash);
+        return ((TKeyedSharedVersion) object.shared_()).getEntry(key, hash);
     }
 
     //
@@ -413,6 +413,11 @@ abstract class TKeyed<K> extends TObject {
          */
         private TKeyedEntry[] _writes;
 
+        /*
+         * Shared array being migrated, iterated after the shared writes.
+         */
+        private TKeyedEntry[] _sharedPrevious;
+
         private boolean _cleared;
 
         private TKeyedEntry _next;
@@ -528,7 +533,10 @@ abstract class TKeyed<K> extends TObject {
 
                 TKeyedEntry[] writes = null;
 
-                if (_privateVersionIndex >= 0) {
+                if (_sharedPrevious != null) {
+                    writes = _sharedPrevious;
+                    _sharedPrevious = null;
+                } else if (_privateVersionIndex >= 0) {
                     TObject.Version[] versions = _privateVersions[_privateVersionIndex--];
                     TKeyedBase2 version = (TKeyedBase2) TransactionBase.getVersion(versions, TKeyed.this);
 
@@ -540,6 +548,7 @@ abstract class TKeyed<K> extends TObject {
                     if (_publicVersionIndex == TransactionManager.OBJECTS_VERSIONS_INDEX) {
                         TKeyedSharedVersion version = (TKeyedSharedVersion) TKeyed.this.shared_();
                         writes = version.getWrites();
+                        _sharedPrevious = version.getPrevious();
                     } else {
                         TObject.Version[] versions = _publicVersions[_publicVersionIndex];
                         TKeyedBase2 version = (TKeyedBase2) TransactionBase.getVersion(versions, TKeyed.this);
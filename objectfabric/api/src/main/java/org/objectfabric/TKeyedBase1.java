@@ -86,7 +86,7 @@ class TKeyedBase1 extends TObject.Version {
         return entries;
     }
 
-    private static boolean tryToPut(TKeyedEntry[] entries, TKeyedEntry entry) {
+    static boolean tryToPut(TKeyedEntry[] entries, TKeyedEntry entry) {
         int index = entry.getHash() & (entries.length - 1);
 
         for (int i = OpenMap.attemptsStart(entries.length); i >= 0; i--) {
@@ -121,11 +121,7 @@ class TKeyedBase2 extends TKeyedBase1 {
                 Debug.assertion(_entries == null);
 
             TKeyedSharedVersion source = (TKeyedSharedVersion) source_;
-
-            if (source.getWrites() != null) {
-                _entries = new TKeyedEntry[source.getWrites().length];
-                Platform.arraycopy(source.getWrites(), 0, _entries, 0, _entries.length);
-            }
+            _entries = source.copyWrites();
         } else {
             TKeyedBase2 source = (TKeyedBase2) source_;
 
@@ -0,0 +1,1127 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.HashSet;
+import java.util.concurrent.Executor;
+
+/**
+ * Base class for maps with primitive keys. Instead of entries, keys and values are stored
+ * in arrays of an open addressing table, so reads and writes do not allocate. Int keys
+ * are stored as longs.
+ */
+@SuppressWarnings("rawtypes")
+abstract class TKeyedLong<K> extends TObject {
+
+    private final boolean _objects;
+
+    private final boolean _integers;
+
+    protected TKeyedLong(Resource resource, boolean objects, boolean integers) {
+        super(resource, new TKeyedLongSharedVersion());
+
+        _objects = objects;
+        _integers = integers;
+    }
+
+    final boolean objectValues() {
+        return _objects;
+    }
+
+    /**
+     * Key as seen by listeners and extensions.
+     */
+    final Object box(long key) {
+        if (_integers)
+            return Integer.valueOf((int) key);
+
+        return Long.valueOf(key);
+    }
+
+    /**
+     * Value as seen by listeners and extensions.
+     */
+    final Object box(LongEntries entries, int index) {
+        if (entries.Objects != null)
+            return entries.Objects[index];
+
+        return Long.valueOf(entries.Longs[index]);
+    }
+
+    final LongEntries createEntries(int capacity, boolean values, Object owner) {
+        return new LongEntries(capacity, values && !_objects, values && _objects, owner);
+    }
+
+    final void checkResource(Object value) {
+        if (value instanceof TObject && ((TObject) value).resource() != resource())
+            wrongResource_();
+    }
+
+    //
+
+    /**
+     * Returns the table holding the last write to the key, or null if the key has not
+     * been written since the map was created or cleared.
+     */
+    final LongEntries getEntries(long key) {
+        Transaction outer = current_();
+        Transaction inner = startRead_(outer);
+        LongEntries entries;
+
+        try {
+            entries = getEntries(inner, key);
+        } finally {
+            endRead_(outer, inner);
+        }
+
+        return entries;
+    }
+
+    final LongEntries getEntries(Transaction current, long key) {
+        /*
+         * If we have already written to this key, use this.
+         */
+        {
+            TKeyedLongVersion version = (TKeyedLongVersion) current.getVersion(this);
+
+            if (version != null) {
+                LongEntries entries = version.getWrite(key);
+
+                if (entries != null)
+                    return entries;
+
+                if (version.getCleared())
+                    return null;
+            }
+        }
+
+        /*
+         * Same if it was in a private snapshot.
+         */
+        Version[][] versions = current.getPrivateSnapshotVersions();
+
+        if (versions != null) {
+            for (int i = versions.length - 1; i >= 0; i--) {
+                TKeyedLongVersion version = (TKeyedLongVersion) TransactionBase.getVersion(versions[i], this);
+
+                if (version != null) {
+                    LongEntries entries = version.getWrite(key);
+
+                    if (entries != null)
+                        return entries;
+
+                    if (version.getCleared())
+                        return null;
+                }
+            }
+        }
+
+        /*
+         * Otherwise keep track of read and find previous value.
+         */
+        if (!current.ignoreReads())
+            getOrCreateRead(current).put(key, LongEntries.PUT, 0, null, true);
+
+        return getPublicEntries(current, key);
+    }
+
+    final LongEntries getPublicEntries(Transaction transaction, long key) {
+        Version[][] versions = transaction.getPublicSnapshotVersions();
+        return getEntries(versions, this, versions.length, key);
+    }
+
+    static LongEntries getEntries(Version[][] snapshot, TObject object, int mapIndex, long key) {
+        for (int i = mapIndex - 1; i > TransactionManager.OBJECTS_VERSIONS_INDEX; i--) {
+            TKeyedLongVersion version = (TKeyedLongVersion) TransactionBase.getVersion(snapshot[i], object);
+
+            if (version != null) {
+                LongEntries entries = version.getWrite(key);
+
+                if (entries != null)
+                    return entries;
+
+                if (version.getCleared())
+                    return null;
+            }
+        }
+
+        LongEntries shared = ((TKeyedLongSharedVersion) object.shared_()).getEntries();
+
+        if (shared != null && shared.index(key) >= 0)
+            return shared;
+
+        return null;
+    }
+
+    static boolean contains(LongEntries entries, long key) {
+        if (entries != null) {
+            int index = entries.index(key);
+            return index >= 0 && entries.States[index] == LongEntries.PUT;
+        }
+
+        return false;
+    }
+
+    //
+
+    final void putTKeyedLong(long key, byte state, long value, Object object) {
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        boolean ok = false;
+
+        try {
+            putTKeyedLong(inner, key, state, value, object);
+            ok = true;
+        } finally {
+            endWrite_(outer, inner, ok);
+        }
+    }
+
+    /*
+     * Like TMap.putOnly, never reads the map. The size delta is verified during commit.
+     */
+    final void putTKeyedLong(Transaction transaction, long key, byte state, long value, Object object) {
+        LongEntries previous = null;
+        boolean cleared = false;
+        TKeyedLongVersion version = (TKeyedLongVersion) transaction.getVersion(this);
+
+        if (version != null) {
+            previous = version.getWrite(key);
+            cleared = version.getCleared();
+        }
+
+        /*
+         * Private versions.
+         */
+        if (previous == null && !cleared) {
+            Version[][] versions = transaction.getPrivateSnapshotVersions();
+
+            if (versions != null) {
+                for (int i = versions.length - 1; i >= 0; i--) {
+                    TKeyedLongVersion current = (TKeyedLongVersion) TransactionBase.getVersion(versions[i], this);
+
+                    if (current != null) {
+                        previous = current.getWrite(key);
+
+                        if (previous != null)
+                            break;
+
+                        if (current.getCleared()) {
+                            cleared = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        boolean verifySizeDeltaOnCommit = false;
+
+        if (previous == null && !cleared) {
+            previous = getPublicEntries(transaction, key);
+            verifySizeDeltaOnCommit = true;
+        }
+
+        boolean existed = contains(previous, key);
+
+        if (state == LongEntries.PUT || existed) {
+            if (version == null) {
+                version = createVersion_();
+                transaction.putVersion(version);
+            }
+
+            version.put(key, state, value, object, true);
+
+            if (verifySizeDeltaOnCommit)
+                version.setVerifySizeDeltaOnCommit();
+
+            version.onPut(state, existed);
+        }
+    }
+
+    final void clearTKeyedLong() {
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        TKeyedLongVersion version = (TKeyedLongVersion) inner.getVersion(this);
+
+        if (version == null) {
+            version = createVersion_();
+            inner.putVersion(version);
+        }
+
+        version.clearCollection();
+        endWrite_(outer, inner);
+    }
+
+    //
+
+    final int sizeTKeyedLong() {
+        Transaction outer = current_();
+        Transaction inner = startRead_(outer);
+        int size;
+
+        try {
+            size = size(inner);
+        } finally {
+            endRead_(outer, inner);
+        }
+
+        return size;
+    }
+
+    private final int size(Transaction transaction) {
+        int delta = 0;
+        boolean committed = transaction.isCommitted();
+        TKeyedLongVersion version = null;
+
+        if (transaction.getWrites() != null)
+            version = (TKeyedLongVersion) TransactionBase.getVersion(transaction.getWrites(), this);
+
+        if (version != null) {
+            if (committed)
+                return version.size();
+
+            delta = version.sizeDelta();
+
+            if (version.getCleared())
+                return delta;
+        }
+
+        Version[][] privateVersions = transaction.getPrivateSnapshotVersions();
+
+        if (privateVersions != null) {
+            for (int i = privateVersions.length - 1; i >= 0; i--) {
+                version = (TKeyedLongVersion) TransactionBase.getVersion(privateVersions[i], this);
+
+                if (version != null) {
+                    if (committed)
+                        return version.size();
+
+                    delta += version.sizeDelta();
+
+                    if (version.getCleared())
+                        return delta;
+                }
+            }
+        }
+
+        /*
+         * Otherwise mark read and use public versions.
+         */
+        if (!transaction.ignoreReads())
+            getOrCreateRead(transaction).setFullyRead(true);
+
+        Version[][] publicVersions = transaction.getPublicSnapshotVersions();
+        return getPreviousSize(publicVersions, this, publicVersions.length) + delta;
+    }
+
+    static int getPreviousSize(Version[][] snapshot, TObject object, int mapIndex) {
+        for (int i = mapIndex - 1; i > TransactionManager.OBJECTS_VERSIONS_INDEX; i--) {
+            TObject.Version version = TransactionBase.getVersion(snapshot[i], object);
+
+            if (version != null)
+                return ((TKeyedLongVersion) version).size();
+        }
+
+        return ((TKeyedLongSharedVersion) object.shared_()).size();
+    }
+
+    //
+
+    public final void addListener(KeyListener<K> listener) {
+        addListener(listener, workspace().callbackExecutor());
+    }
+
+    public final void addListener(KeyListener<K> listener, Executor executor) {
+        workspace().addListener(this, listener, executor);
+    }
+
+    public final void removeListener(KeyListener<K> listener) {
+        removeListener(listener, workspace().callbackExecutor());
+    }
+
+    public final void removeListener(KeyListener<K> listener, Executor executor) {
+        workspace().removeListener(this, listener, executor);
+    }
+
+    //
+
+    final TKeyedLongRead getOrCreateRead(Transaction transaction) {
+        TKeyedLongRead read = (TKeyedLongRead) transaction.getRead(this);
+
+        if (read == null) {
+            read = createRead();
+            transaction.putRead(read);
+        }
+
+        return read;
+    }
+
+    @Override
+    final TKeyedLongRead createRead() {
+        TKeyedLongRead version = new TKeyedLongRead();
+        version.setObject(this);
+        return version;
+    }
+
+    @Override
+    protected final TKeyedLongVersion createVersion_() {
+        TKeyedLongVersion version = new TKeyedLongVersion();
+        version.setObject(this);
+        return version;
+    }
+
+    /**
+     * Open addressing table with linear probing. Slots are written key and value first
+     * and state last, and removed slots are only reclaimed when the table is rebuilt, so
+     * that the shared version can be updated in place while other threads probe it for
+     * other keys.
+     */
+    static final class LongEntries {
+
+        static final byte FREE = 0;
+
+        static final byte PUT = 1;
+
+        static final byte REMOVAL = 2;
+
+        static final byte REMOVED = 3;
+
+        final long[] Keys;
+
+        final long[] Longs;
+
+        final Object[] Objects;
+
+        final byte[] States;
+
+        private final Object _owner;
+
+        private int _used;
+
+        LongEntries(int capacity, boolean longs, boolean objects, Object owner) {
+            if (Debug.ENABLED)
+                Debug.assertion(Utils.nextPowerOf2(capacity) == capacity);
+
+            Keys = new long[capacity];
+            Longs = longs ? new long[capacity] : null;
+            Objects = objects ? new Object[capacity] : null;
+            States = new byte[capacity];
+            _owner = owner;
+        }
+
+        /**
+         * Version allowed to modify the table in place, others copy it first.
+         */
+        final Object owner() {
+            return _owner;
+        }
+
+        final LongEntries copy(Object owner) {
+            LongEntries copy = new LongEntries(States.length, Longs != null, Objects != null, owner);
+            Platform.arraycopy(Keys, 0, copy.Keys, 0, Keys.length);
+
+            if (Longs != null)
+                Platform.arraycopy(Longs, 0, copy.Longs, 0, Longs.length);
+
+            if (Objects != null)
+                Platform.arraycopy(Objects, 0, copy.Objects, 0, Objects.length);
+
+            Platform.arraycopy(States, 0, copy.States, 0, States.length);
+            copy._used = _used;
+            return copy;
+        }
+
+        static int hash(long key) {
+            return TKeyed.rehash((int) (key ^ (key >>> 32)));
+        }
+
+        final int index(long key) {
+            int mask = States.length - 1;
+            int index = hash(key) & mask;
+
+            for (int i = mask; i >= 0; i--) {
+                byte state = States[index];
+
+                if (state == FREE)
+                    return -1;
+
+                if (state != REMOVED && Keys[index] == key)
+                    return index;
+
+                index = (index + 1) & mask;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Returns this or a larger table if it was full.
+         */
+        final LongEntries put(long key, byte state, long value, Object object, boolean keepRemovals) {
+            if (Debug.ENABLED)
+                Debug.assertion(state == PUT || state == REMOVAL);
+
+            int index = index(key);
+
+            if (index >= 0) {
+                if (state == REMOVAL && !keepRemovals) {
+                    States[index] = REMOVED;
+
+                    if (Objects != null)
+                        Objects[index] = null;
+                } else
+                    set(index, key, state, value, object);
+
+                return this;
+            }
+
+            if (state == REMOVAL && !keepRemovals)
+                return this;
+
+            LongEntries entries = this;
+
+            if ((_used + 1) * 4 > States.length * 3)
+                entries = rebuild(_owner);
+
+            entries.add(key, state, value, object);
+            return entries;
+        }
+
+        private final void add(long key, byte state, long value, Object object) {
+            int mask = States.length - 1;
+            int index = hash(key) & mask;
+
+            while (States[index] != FREE)
+                index = (index + 1) & mask;
+
+            set(index, key, state, value, object);
+            _used++;
+        }
+
+        private final void set(int index, long key, byte state, long value, Object object) {
+            Keys[index] = key;
+
+            if (Longs != null)
+                Longs[index] = value;
+
+            if (Objects != null)
+                Objects[index] = object;
+
+            States[index] = state;
+        }
+
+        /**
+         * New table without removed slots, at most half full.
+         */
+        final LongEntries rebuild(Object owner) {
+            int count = 0;
+
+            for (int i = States.length - 1; i >= 0; i--)
+                if (States[i] == PUT || States[i] == REMOVAL)
+                    count++;
+
+            int capacity = States.length;
+
+            while ((count + 1) * 2 > capacity)
+                capacity <<= OpenMap.TIMES_TWO_SHIFT;
+
+            LongEntries entries = new LongEntries(capacity, Longs != null, Objects != null, owner);
+
+            for (int i = States.length - 1; i >= 0; i--) {
+                if (States[i] == PUT || States[i] == REMOVAL) {
+                    long value = Longs != null ? Longs[i] : 0;
+                    Object object = Objects != null ? Objects[i] : null;
+                    entries.add(Keys[i], States[i], value, object);
+                }
+            }
+
+            return entries;
+        }
+
+        final void remove(int index) {
+            States[index] = REMOVED;
+
+            if (Objects != null)
+                Objects[index] = null;
+        }
+
+        final boolean hasWrites() {
+            for (int i = States.length - 1; i >= 0; i--)
+                if (States[i] == PUT || States[i] == REMOVAL)
+                    return true;
+
+            return false;
+        }
+    }
+
+    /**
+     * Reads and writes share the table management, only writes can clear the map.
+     */
+    static abstract class TKeyedLongBase extends TObject.Version {
+
+        LongEntries _entries;
+
+        private boolean _cleared;
+
+        final LongEntries getEntries() {
+            return _entries;
+        }
+
+        final boolean getCleared() {
+            return _cleared;
+        }
+
+        final void setCleared_(boolean value) {
+            _cleared = value;
+        }
+
+        final LongEntries getWrite(long key) {
+            if (_entries != null && _entries.index(key) >= 0)
+                return _entries;
+
+            return null;
+        }
+
+        abstract boolean hasValues();
+
+        final void put(long key, byte state, long value, Object object, boolean keepRemovals) {
+            if (_entries == null)
+                _entries = ((TKeyedLong) object()).createEntries(OpenMap.CAPACITY, hasValues(), this);
+            else if (_entries.owner() != this)
+                _entries = _entries.copy(this);
+
+            _entries = _entries.put(key, state, value, object, keepRemovals);
+        }
+
+        final void putAll(LongEntries source, boolean keepRemovals) {
+            for (int i = source.States.length - 1; i >= 0; i--) {
+                byte state = source.States[i];
+
+                if (state == LongEntries.PUT || state == LongEntries.REMOVAL) {
+                    long value = source.Longs != null ? source.Longs[i] : 0;
+                    Object object = source.Objects != null ? source.Objects[i] : null;
+                    put(source.Keys[i], state, value, object, keepRemovals);
+                }
+            }
+        }
+
+        @Override
+        TObject.Version merge(TObject.Version target, TObject.Version next, boolean threadPrivate) {
+            TKeyedLongBase source = (TKeyedLongBase) next;
+            TKeyedLongBase merged = this;
+
+            if (source._cleared || source._entries != null) {
+                if (this == target && !threadPrivate)
+                    merged = (TKeyedLongBase) clone(this instanceof TKeyedLongRead);
+
+                if (source._cleared || merged._entries == null)
+                    merged._entries = source._entries;
+                else if (source._entries != null)
+                    merged.putAll(source._entries, !merged._cleared);
+            }
+
+            return merged;
+        }
+
+        @Override
+        void deepCopy(Version source_) {
+            if (source_ instanceof TKeyedLongSharedVersion) {
+                if (Debug.ENABLED)
+                    Debug.assertion(_entries == null);
+
+                LongEntries entries = ((TKeyedLongSharedVersion) source_).getEntries();
+
+                if (entries != null)
+                    _entries = entries.rebuild(this);
+            } else {
+                TKeyedLongBase source = (TKeyedLongBase) source_;
+
+                if (_entries == null || source._cleared) {
+                    if (source._entries != null)
+                        _entries = source._entries.copy(this);
+                } else if (source._entries != null)
+                    putAll(source._entries, true);
+            }
+        }
+
+        @Override
+        void clone(Version source_) {
+            TKeyedLongBase source = (TKeyedLongBase) source_;
+            _entries = source._entries;
+            _cleared = source._cleared;
+        }
+
+        final boolean isConflict(long key) {
+            return _entries != null && _entries.index(key) >= 0;
+        }
+
+        // Debug
+
+        @Override
+        void getContentForDebug(List<Object> list) {
+            super.getContentForDebug(list);
+
+            list.add(_entries);
+        }
+
+        @Override
+        boolean hasWritesForDebug() {
+            if (!Debug.ENABLED)
+                throw new IllegalStateException();
+
+            return _entries != null && _entries.hasWrites();
+        }
+    }
+
+    static final class TKeyedLongRead extends TKeyedLongBase {
+
+        private boolean _fullyRead;
+
+        final boolean getFullyRead() {
+            return _fullyRead;
+        }
+
+        final void setFullyRead(boolean value) {
+            _fullyRead = value;
+        }
+
+        @Override
+        boolean hasValues() {
+            return false;
+        }
+
+        @Override
+        public boolean validAgainst(VersionMap map, Snapshot snapshot, int start, int stop) {
+            for (int i = start; i < stop; i++) {
+                TObject.Version write = TransactionBase.getVersion(snapshot.writes()[i], object());
+
+                if (write != null && !validAgainst((TKeyedLongVersion) write))
+                    return false;
+            }
+
+            return true;
+        }
+
+        private final boolean validAgainst(TKeyedLongVersion version) {
+            if (version.getCleared())
+                return false;
+
+            LongEntries entries = version.getEntries();
+
+            if (entries == null)
+                return true;
+
+            if (_fullyRead)
+                return false;
+
+            for (int i = entries.States.length - 1; i >= 0; i--) {
+                byte state = entries.States[i];
+
+                if ((state == LongEntries.PUT || state == LongEntries.REMOVAL) && isConflict(entries.Keys[i]))
+                    return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        TObject.Version merge(TObject.Version target, TObject.Version next, boolean threadPrivate) {
+            TKeyedLongRead source = (TKeyedLongRead) next;
+            TKeyedLongRead merged = (TKeyedLongRead) super.merge(target, next, threadPrivate);
+
+            if (source._fullyRead && !merged._fullyRead) {
+                if (merged == target && !threadPrivate)
+                    merged = (TKeyedLongRead) clone(true);
+
+                merged._fullyRead = true;
+            }
+
+            return merged;
+        }
+
+        @Override
+        void deepCopy(Version source_) {
+            super.deepCopy(source_);
+
+            _fullyRead |= ((TKeyedLongRead) source_)._fullyRead;
+        }
+
+        @Override
+        void clone(Version source_) {
+            super.clone(source_);
+
+            _fullyRead = ((TKeyedLongRead) source_)._fullyRead;
+        }
+
+        @Override
+        void visit(org.objectfabric.Visitor visitor) {
+            visitor.visit(this);
+        }
+    }
+
+    static final class TKeyedLongVersion extends TKeyedLongBase {
+
+        private int _size = -1;
+
+        private int _sizeDelta;
+
+        private boolean _verifySizeDeltaOnCommit;
+
+        final boolean sizeValid() {
+            return _size >= 0;
+        }
+
+        final int size() {
+            if (Debug.ENABLED)
+                Debug.assertion(sizeValid());
+
+            return _size;
+        }
+
+        final int sizeDelta() {
+            return _sizeDelta;
+        }
+
+        final void setVerifySizeDeltaOnCommit() {
+            _verifySizeDeltaOnCommit = true;
+        }
+
+        final void setCleared(boolean value) {
+            setCleared_(value);
+        }
+
+        @Override
+        boolean hasValues() {
+            return true;
+        }
+
+        final void clearCollection() {
+            _entries = null;
+            _sizeDelta = 0;
+            setCleared(true);
+            _verifySizeDeltaOnCommit = false;
+        }
+
+        final void onPut(byte state, boolean existed) {
+            if (state == LongEntries.PUT && !existed)
+                _sizeDelta++;
+            else if (state == LongEntries.REMOVAL && existed)
+                _sizeDelta--;
+        }
+
+        //
+
+        @Override
+        void onPublishing(Snapshot newSnapshot, int mapIndex) {
+            int sizeDelta = _sizeDelta;
+
+            if (_verifySizeDeltaOnCommit)
+                sizeDelta = updateEntriesAndGetDelta(newSnapshot, mapIndex);
+
+            int size = 0;
+
+            if (!getCleared())
+                size = getPreviousSize(newSnapshot.writes(), object(), mapIndex);
+
+            _size = size + sizeDelta;
+
+            if (Debug.ENABLED)
+                Debug.assertion(_size == countForDebug(newSnapshot.writes(), object(), mapIndex + 1));
+        }
+
+        @Override
+        void onDeserialized(Snapshot transactionSnapshot) {
+            _sizeDelta = updateEntriesAndGetDelta(transactionSnapshot, transactionSnapshot.writes().length - 1);
+        }
+
+        private int updateEntriesAndGetDelta(Snapshot snapshot, int mapIndex) {
+            if (Debug.ENABLED)
+                Debug.assertion(!getCleared());
+
+            int sizeDelta = 0;
+
+            /*
+             * Recompute delta by checking if writes add or remove elements.
+             */
+            if (_entries != null) {
+                for (int i = _entries.States.length - 1; i >= 0; i--) {
+                    byte state = _entries.States[i];
+
+                    if (state == LongEntries.PUT || state == LongEntries.REMOVAL) {
+                        long key = _entries.Keys[i];
+                        boolean existed = contains(TKeyedLong.getEntries(snapshot.writes(), object(), mapIndex, key), key);
+
+                        if (state == LongEntries.PUT && !existed)
+                            sizeDelta++;
+                        else if (state == LongEntries.REMOVAL && existed)
+                            sizeDelta--;
+                        else if (state == LongEntries.REMOVAL && !existed) {
+                            if (_entries.owner() != this)
+                                _entries = _entries.copy(this);
+
+                            _entries.remove(i);
+                        }
+                    }
+                }
+            }
+
+            return sizeDelta;
+        }
+
+        @Override
+        TObject.Version merge(TObject.Version target, TObject.Version next, boolean threadPrivate) {
+            TKeyedLongVersion source = (TKeyedLongVersion) next;
+            TKeyedLongVersion merged = (TKeyedLongVersion) super.merge(target, next, threadPrivate);
+
+            if (merged == target && !threadPrivate)
+                merged = (TKeyedLongVersion) clone(false);
+
+            if (source.getCleared()) {
+                merged.setCleared(true);
+                merged._sizeDelta = 0;
+                merged._verifySizeDeltaOnCommit = false;
+            }
+
+            if (threadPrivate)
+                merged._sizeDelta += source._sizeDelta;
+            else {
+                if (Debug.ENABLED)
+                    Debug.assertion(merged.sizeValid() && source.sizeValid());
+
+                merged._size = source._size;
+            }
+
+            return merged;
+        }
+
+        @Override
+        void deepCopy(Version source_) {
+            super.deepCopy(source_);
+
+            if (source_ instanceof TKeyedLongSharedVersion)
+                _size = ((TKeyedLongSharedVersion) source_).size();
+            else {
+                TKeyedLongVersion source = (TKeyedLongVersion) source_;
+
+                if (source.getCleared()) {
+                    setCleared(true);
+                    _sizeDelta = 0;
+                    _verifySizeDeltaOnCommit = false;
+                }
+
+                _size = source._size;
+            }
+        }
+
+        @Override
+        void clone(Version source_) {
+            super.clone(source_);
+
+            TKeyedLongVersion source = (TKeyedLongVersion) source_;
+            _size = source._size;
+            _sizeDelta = source._sizeDelta;
+            _verifySizeDeltaOnCommit = source._verifySizeDeltaOnCommit;
+        }
+
+        @Override
+        void visit(org.objectfabric.Visitor visitor) {
+            visitor.visit(this);
+        }
+
+        @Override
+        final boolean mask(Version version) {
+            TKeyedLongVersion earlier = (TKeyedLongVersion) version;
+            boolean empty = true;
+
+            if (getCleared())
+                earlier._entries = null;
+            else if (earlier._entries != null) {
+                LongEntries entries = earlier._entries;
+
+                for (int i = entries.States.length - 1; i >= 0; i--) {
+                    byte state = entries.States[i];
+
+                    if (state == LongEntries.PUT || state == LongEntries.REMOVAL) {
+                        if (isConflict(entries.Keys[i])) {
+                            if (entries.owner() != earlier)
+                                earlier._entries = entries = entries.copy(earlier);
+
+                            entries.remove(i);
+                        } else
+                            empty = false;
+                    }
+                }
+            }
+
+            return empty;
+        }
+
+        @Override
+        final void markFull() {
+            setCleared(true);
+            _sizeDelta = 0;
+            _verifySizeDeltaOnCommit = false;
+        }
+
+        // Debug
+
+        @Override
+        void getContentForDebug(List<Object> list) {
+            super.getContentForDebug(list);
+
+            list.add(getCleared());
+        }
+
+        @Override
+        boolean hasWritesForDebug() {
+            if (!Debug.ENABLED)
+                throw new IllegalStateException();
+
+            return getCleared() || super.hasWritesForDebug();
+        }
+    }
+
+    static final class TKeyedLongSharedVersion extends TObject.Version {
+
+        /*
+         * Volatile since the table can be replaced during merge by a new one which might
+         * not be visible to all threads.
+         */
+        private volatile LongEntries _entries;
+
+        private int _size;
+
+        final LongEntries getEntries() {
+            return _entries;
+        }
+
+        final int size() {
+            return _size;
+        }
+
+        @Override
+        TObject.Version merge(TObject.Version target, TObject.Version next, boolean threadPrivate) {
+            TKeyedLongVersion source = (TKeyedLongVersion) next;
+            LongEntries initial = source.getCleared() ? null : _entries;
+            LongEntries entries = initial;
+
+            if (source.getEntries() != null) {
+                LongEntries writes = source.getEntries();
+
+                if (entries == null)
+                    entries = ((TKeyedLong) object()).createEntries(writes.States.length, true, this);
+
+                for (int i = writes.States.length - 1; i >= 0; i--) {
+                    byte state = writes.States[i];
+
+                    if (state == LongEntries.PUT || state == LongEntries.REMOVAL) {
+                        long value = writes.Longs != null ? writes.Longs[i] : 0;
+                        Object object = writes.Objects != null ? writes.Objects[i] : null;
+                        entries = entries.put(writes.Keys[i], state, value, object, false);
+                    }
+                }
+            }
+
+            if (entries != _entries)
+                _entries = entries;
+
+            if (threadPrivate) {
+                _size = 0;
+
+                if (entries != null)
+                    for (int i = entries.States.length - 1; i >= 0; i--)
+                        if (entries.States[i] == LongEntries.PUT)
+                            _size++;
+            } else
+                _size = source.size();
+
+            if (Debug.ENABLED)
+                Debug.assertion(_size == countForDebug(null, object(), TransactionManager.OBJECTS_VERSIONS_INDEX + 1));
+
+            return this;
+        }
+
+        @Override
+        void deepCopy(Version source) {
+            super.deepCopy(source);
+
+            if (Debug.ENABLED)
+                Debug.fail();
+        }
+
+        @Override
+        void visit(Visitor visitor) {
+            visitor.visit(this);
+        }
+
+        // Debug
+
+        @Override
+        void getContentForDebug(List<Object> list) {
+            super.getContentForDebug(list);
+
+            list.add(_entries);
+        }
+
+        @Override
+        boolean hasWritesForDebug() {
+            throw new AssertionError();
+        }
+    }
+
+    // Debug
+
+    /**
+     * Counts keys by walking versions instead of using sizes.
+     */
+    static int countForDebug(Version[][] snapshot, TObject object, int mapIndex) {
+        if (!Debug.ENABLED)
+            throw new IllegalStateException();
+
+        HashSet<Long> seen = new HashSet<Long>();
+        int count = 0;
+
+        for (int i = mapIndex - 1; i >= TransactionManager.OBJECTS_VERSIONS_INDEX; i--) {
+            LongEntries entries;
+            boolean cleared = false;
+
+            if (i == TransactionManager.OBJECTS_VERSIONS_INDEX)
+                entries = ((TKeyedLongSharedVersion) object.shared_()).getEntries();
+            else {
+                TKeyedLongVersion version = (TKeyedLongVersion) TransactionBase.getVersion(snapshot[i], object);
+
+                if (version == null)
+                    continue;
+
+                entries = version.getEntries();
+                cleared = version.getCleared();
+            }
+
+            if (entries != null) {
+                for (int j = entries.States.length - 1; j >= 0; j--) {
+                    byte state = entries.States[j];
+
+                    if (state == LongEntries.PUT || state == LongEntries.REMOVAL)
+                        if (seen.add(entries.Keys[j]) && state == LongEntries.PUT)
+                            count++;
+                }
+            }
+
+            if (cleared)
+                break;
+        }
+
+        return count;
+    }
+}
@@ -14,22 +14,50 @@ package org.objectfabric;
 
 import org.objectfabric.TObject.Version;
 
+/**
+ * When full, entries are not rehashed at once as this would stall the committing thread
+ * for large maps. A larger array replaces the writes and entries of the previous one
+ * are moved a few at a time on each merge. Lookups check both arrays until done.
+ */
 @SuppressWarnings("rawtypes")
 final class TKeyedSharedVersion extends TKeyedBase1 {
 
+    /**
+     * Minimum number of slots of the previous array migrated per merge, more if the merge
+     * adds more entries so that migration always ends before the new array is full.
+     */
+    static final int MIGRATION_STEP = 64;
+
     /*
      * Volatile since array can be resized during merge to a new one which might not be
      * visible to all thread.
      */
     private volatile TKeyedEntry[] _writes;
 
+    /*
+     * Array being migrated to _writes, or null. Entries are copied but not removed, so
+     * that a lookup checking _writes then _previous cannot miss one being moved. Always
+     * written before _writes, and read after.
+     */
+    private volatile TKeyedEntry[] _previous;
+
+    /*
+     * Slots of _previous above this index have been migrated.
+     */
+    private int _migrated;
+
     private int _size;
 
     final TKeyedEntry[] getWrites() {
         return _writes;
     }
 
+    final TKeyedEntry[] getPrevious() {
+        return _previous;
+    }
+
     final void setWrites(TKeyedEntry[] value) {
+        _previous = null;
         _writes = value;
     }
 
@@ -37,39 +65,83 @@ final class TKeyedSharedVersion extends TKeyedBase1 {
         return _size;
     }
 
+    final TKeyedEntry getEntry(Object key, int hash) {
+        TKeyedEntry[] writes = _writes;
+        TKeyedEntry entry = getEntry(writes, key, hash);
+
+        if (entry == null) {
+            TKeyedEntry[] previous = _previous;
+
+            if (previous != null)
+                entry = getEntry(previous, key, hash);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Copy of all entries in a single array.
+     */
+    final TKeyedEntry[] copyWrites() {
+        TKeyedEntry[] writes = _writes;
+        TKeyedEntry[] previous = _previous;
+
+        if (writes == null)
+            return null;
+
+        TKeyedEntry[] copy = new TKeyedEntry[writes.length];
+        Platform.arraycopy(writes, 0, copy, 0, copy.length);
+
+        if (previous != null)
+            for (int i = previous.length - 1; i >= 0; i--)
+                if (previous[i] != null && previous[i] != TKeyedEntry.REMOVED && getEntry(copy, previous[i].getKey(), previous[i].getHash()) == null)
+                    copy = putEntryAndSkipOnException(copy, previous[i], false);
+
+        return copy;
+    }
+
     @Override
     TObject.Version merge(TObject.Version target, TObject.Version next, boolean threadPrivate) {
         TKeyedBase2 source = (TKeyedBase2) next;
-        TKeyedEntry[] initialWrites = _writes;
-        TKeyedEntry[] writes = initialWrites;
 
-        if (source.getCleared())
-            if (writes != null)
-                for (int i = writes.length - 1; i >= 0; i--)
-                    writes[i] = null;
+        if (source.getCleared()) {
+            _previous = null;
+
+            if (_writes != null)
+                for (int i = _writes.length - 1; i >= 0; i--)
+                    _writes[i] = null;
+        }
 
         if (source.getEntries() != null) {
+            int count = 0;
+
+            for (int i = source.getEntries().length - 1; i >= 0; i--) {
+                TKeyedEntry entry = source.getEntries()[i];
+
+                if (entry != null && entry != TKeyedEntry.REMOVED)
+                    count++;
+            }
+
+            if (_previous != null)
+                migrate(Math.max(MIGRATION_STEP, count * 4));
+
             for (int i = source.getEntries().length - 1; i >= 0; i--) {
                 TKeyedEntry entry = source.getEntries()[i];
 
                 if (entry != null && entry != TKeyedEntry.REMOVED) {
-                    if (writes == null)
-                        writes = new TKeyedEntry[source.getEntries().length];
+                    if (_writes == null)
+                        _writes = new TKeyedEntry[source.getEntries().length];
 
-                    writes = putEntryAndSkipOnException(writes, entry, false);
+                    putSkipOnException(entry);
                 }
             }
         }
 
-        if (writes != initialWrites)
-            _writes = writes;
-
         if (threadPrivate) {
-            _size = 0;
+            _size = _writes != null ? count(_writes, _writes.length - 1) : 0;
 
-            for (int i = _writes.length - 1; i >= 0; i--)
-                if (_writes[i] != null && _writes[i] != TKeyedEntry.REMOVED)
-                    _size++;
+            if (_previous != null)
+                _size += count(_previous, _migrated);
         } else
             _size = ((TKeyedVersion) source).size();
 
@@ -79,6 +151,88 @@ final class TKeyedSharedVersion extends TKeyedBase1 {
         return this;
     }
 
+    private final void putSkipOnException(TKeyedEntry entry) {
+        try {
+            put(entry);
+        } catch (Exception e) {
+            Log.write(e);
+        }
+    }
+
+    private final void put(TKeyedEntry entry) {
+        TKeyedEntry[] previous = _previous;
+
+        /*
+         * Readers of this key find it in the version being merged, so it can be removed
+         * from the previous array even if not migrated yet.
+         */
+        if (previous != null) {
+            int index = getIndex(previous, entry.getKey(), entry.getHash());
+
+            if (index >= 0)
+                previous[index] = TKeyedEntry.REMOVED;
+        }
+
+        TKeyedEntry[] writes = _writes;
+        int index = getIndex(writes, entry.getKey(), entry.getHash());
+
+        if (index >= 0)
+            writes[index] = entry.isRemoval() ? TKeyedEntry.REMOVED : entry;
+        else if (!entry.isRemoval()) {
+            if (Stats.ENABLED)
+                Stats.Instance.Put.incrementAndGet();
+
+            if (!tryToPut(writes, entry)) {
+                if (_previous != null)
+                    migrate(Integer.MAX_VALUE);
+
+                writes = _writes;
+                _migrated = writes.length - 1;
+                _previous = writes;
+                _writes = writes = new TKeyedEntry[writes.length << OpenMap.TIMES_TWO_SHIFT];
+
+                if (!tryToPut(writes, entry)) {
+                    // Many equal hashes, fall back to rehashing everything now
+                    migrate(Integer.MAX_VALUE);
+                    _writes = putEntry(_writes, entry, false, false);
+                }
+            }
+        }
+    }
+
+    private final void migrate(int slots) {
+        TKeyedEntry[] previous = _previous;
+        TKeyedEntry[] initial = _writes;
+        TKeyedEntry[] writes = initial;
+        int index = _migrated;
+
+        for (; index >= 0 && slots > 0; index--, slots--) {
+            TKeyedEntry entry = previous[index];
+
+            if (entry != null && entry != TKeyedEntry.REMOVED)
+                if (!tryToPut(writes, entry))
+                    writes = putEntryAndSkipOnException(writes, entry, false);
+        }
+
+        if (writes != initial)
+            _writes = writes;
+
+        _migrated = index;
+
+        if (index < 0)
+            _previous = null;
+    }
+
+    private static int count(TKeyedEntry[] entries, int last) {
+        int count = 0;
+
+        for (int i = last; i >= 0; i--)
+            if (entries[i] != null && entries[i] != TKeyedEntry.REMOVED)
+                count++;
+
+        return count;
+    }
+
     @Override
     void deepCopy(Version source) {
         super.deepCopy(source);
@@ -114,10 +268,11 @@ final class TKeyedSharedVersion extends TKeyedBase1 {
         super.getContentForDebug(list);
 
         list.add(_writes);
+        list.add(_previous);
     }
 
     @Override
     boolean hasWritesForDebug() {
         throw new AssertionError();
     }
-}
\ No newline at end of file
+}
@@ -264,6 +264,13 @@ final class TKeyedVersion extends TKeyedBase2 {
         return empty;
     }
 
+    @Override
+    final void markFull() {
+        setCleared(true);
+        _sizeDelta = 0;
+        _verifySizeDeltaOnCommit = false;
+    }
+
     // Debug
 
     @Override
@@ -0,0 +1,1228 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+
+/**
+ * Transactional list. For each thread this class behaves like an ArrayList, except it
+ * does not implement clone().<br>
+ * <br>
+ * Elements are stored in fixed size chunks, and a transaction only copies the chunks it
+ * modifies, so appending an element costs about the same as setting one in a TArray. Like
+ * for a {@link Counter}, a transaction which only appends elements using
+ * {@link TList#add(Object)} does not read the list and will never be in conflict. Other
+ * methods read the list, e.g. to check an index, and conflict with concurrent changes.<br>
+ * <br>
+ * Iterators work on a snapshot of the list taken when they are created, and never throw
+ * ConcurrentModificationException. List iterators and sub lists read the list again on
+ * each access.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class TList<E> extends TObject implements java.util.List<E> {
+
+    public static final TType TYPE;
+
+    static {
+        TYPE = Platform.newTType(Platform.get().defaultObjectModel(), BuiltInClass.TLIST_CLASS_ID);
+    }
+
+    private final TType[] _genericParameters;
+
+    public TList(Resource resource) {
+        this(resource, null);
+    }
+
+    /**
+     * This constructor is only useful if the object might get replicated to a .NET
+     * process, to specify which type would be instantiated by the remote runtime.
+     */
+    public TList(Resource resource, TType genericParam) {
+        super(resource, new TListSharedVersion());
+
+        if (genericParam == null)
+            _genericParameters = null;
+        else {
+            _genericParameters = Platform.newTTypeArray(1);
+            _genericParameters[0] = genericParam;
+        }
+    }
+
+    @Override
+    final TType[] genericParameters() {
+        return _genericParameters;
+    }
+
+    /**
+     * Appends an element. Does not read the list, so concurrent appends do not conflict.
+     * Their elements are ordered as their transactions are committed.
+     */
+    @Override
+    public boolean add(E element) {
+        checkResource(element);
+
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        getOrCreateVersion(inner).add(element);
+        endWrite_(outer, inner);
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkResource(element);
+
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        boolean ok = false;
+
+        try {
+            checkPosition(index, getForRead(inner).size());
+            getOrCreateVersion(inner).insert(index, element);
+            ok = true;
+        } finally {
+            endWrite_(outer, inner, ok);
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        Object[] elements = c.toArray();
+
+        for (int i = 0; i < elements.length; i++)
+            checkResource(elements[i]);
+
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        TListVersion version = getOrCreateVersion(inner);
+
+        for (int i = 0; i < elements.length; i++)
+            version.add(elements[i]);
+
+        endWrite_(outer, inner);
+        return elements.length != 0;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        Object[] elements = c.toArray();
+
+        for (int i = 0; i < elements.length; i++)
+            checkResource(elements[i]);
+
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        boolean ok = false;
+
+        try {
+            checkPosition(index, getForRead(inner).size());
+            TListVersion version = getOrCreateVersion(inner);
+
+            for (int i = 0; i < elements.length; i++)
+                version.insert(index + i, elements[i]);
+
+            ok = true;
+        } finally {
+            endWrite_(outer, inner, ok);
+        }
+
+        return elements.length != 0;
+    }
+
+    @Override
+    public E get(int index) {
+        Transaction outer = current_();
+        Transaction inner = startRead_(outer);
+        Elements elements = getForRead(inner);
+        int size = elements.size();
+        Object value = index >= 0 && index < size ? elements.get(index) : null;
+        endRead_(outer, inner);
+
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(outOfBounds(index, size));
+
+        return (E) value;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkResource(element);
+
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        boolean ok = false;
+        Object previous;
+
+        try {
+            checkIndex(index, getForRead(inner).size());
+            previous = getOrCreateVersion(inner).set(index, element);
+            ok = true;
+        } finally {
+            endWrite_(outer, inner, ok);
+        }
+
+        return (E) previous;
+    }
+
+    @Override
+    public E remove(int index) {
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        boolean ok = false;
+        Object previous;
+
+        try {
+            checkIndex(index, getForRead(inner).size());
+            previous = getOrCreateVersion(inner).remove(index);
+            ok = true;
+        } finally {
+            endWrite_(outer, inner, ok);
+        }
+
+        return (E) previous;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        boolean ok = false, result = false;
+
+        try {
+            int index = indexOf(getForRead(inner), o);
+
+            if (index >= 0) {
+                getOrCreateVersion(inner).remove(index);
+                result = true;
+            }
+
+            ok = true;
+        } finally {
+            endWrite_(outer, inner, ok);
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return removeAll(c, true);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return removeAll(c, false);
+    }
+
+    private final boolean removeAll(Collection<?> c, boolean contained) {
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        boolean ok = false, result = false;
+
+        try {
+            Elements elements = getForRead(inner);
+            TListVersion version = null;
+
+            for (int i = elements.size() - 1; i >= 0; i--) {
+                if (c.contains(elements.get(i)) == contained) {
+                    if (version == null) {
+                        version = getOrCreateVersion(inner);
+
+                        // Version might be the one iterated
+                        elements = version;
+                    }
+
+                    version.remove(i);
+                    result = true;
+                }
+            }
+
+            ok = true;
+        } finally {
+            endWrite_(outer, inner, ok);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        Transaction outer = current_();
+        Transaction inner = startWrite_(outer);
+        getOrCreateVersion(inner).clear();
+        endWrite_(outer, inner);
+    }
+
+    @Override
+    public int size() {
+        Transaction outer = current_();
+        Transaction inner = startRead_(outer);
+        int size = getForRead(inner).size();
+        endRead_(outer, inner);
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        Transaction outer = current_();
+        Transaction inner = startRead_(outer);
+        boolean result = true;
+
+        try {
+            Elements elements = getForRead(inner);
+
+            for (Object element : c) {
+                if (indexOf(elements, element) < 0) {
+                    result = false;
+                    break;
+                }
+            }
+        } finally {
+            endRead_(outer, inner);
+        }
+
+        return result;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Transaction outer = current_();
+        Transaction inner = startRead_(outer);
+        int index;
+
+        try {
+            index = indexOf(getForRead(inner), o);
+        } finally {
+            endRead_(outer, inner);
+        }
+
+        return index;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        Transaction outer = current_();
+        Transaction inner = startRead_(outer);
+        int index = -1;
+
+        try {
+            Elements elements = getForRead(inner);
+
+            for (int i = elements.size() - 1; i >= 0; i--) {
+                if (equal(o, elements.get(i))) {
+                    index = i;
+                    break;
+                }
+            }
+        } finally {
+            endRead_(outer, inner);
+        }
+
+        return index;
+    }
+
+    private static int indexOf(Elements elements, Object o) {
+        for (int i = 0; i < elements.size(); i++)
+            if (equal(o, elements.get(i)))
+                return i;
+
+        return -1;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Transaction outer = current_();
+        Transaction inner = startRead_(outer);
+        Object[] array = getForRead(inner).toArray();
+        endRead_(outer, inner);
+        return array;
+    }
+
+    @Override
+    public <T> T[] toArray(T[] array) {
+        if (array == null)
+            ExpectedExceptionThrower.throwNullPointerException();
+
+        Object[] elements = toArray();
+
+        if (elements.length <= array.length) {
+            Platform.arraycopy(elements, 0, array, 0, elements.length);
+
+            if (elements.length < array.length) {
+                // null-terminate (C.f. ArrayList)
+                array[elements.length] = null;
+            }
+
+            return array;
+        }
+
+        return (T[]) Platform.get().copyWithTypedResize(elements, elements.length, array);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+
+        if (!(o instanceof java.util.List))
+            return false;
+
+        Object[] elements = toArray();
+        java.util.List other = (java.util.List) o;
+
+        if (other.size() != elements.length)
+            return false;
+
+        Iterator it = other.iterator();
+
+        for (int i = 0; i < elements.length; i++)
+            if (!it.hasNext() || !equal(elements[i], it.next()))
+                return false;
+
+        return !it.hasNext();
+    }
+
+    @Override
+    public int hashCode() {
+        Object[] elements = toArray();
+        int h = 1;
+
+        if (Debug.ENABLED)
+            Helper.instance().disableEqualsOrHashCheck();
+
+        for (int i = 0; i < elements.length; i++)
+            h = 31 * h + (elements[i] != null ? elements[i].hashCode() : 0);
+
+        if (Debug.ENABLED)
+            Helper.instance().enableEqualsOrHashCheck();
+
+        return h;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        if (a == null)
+            return b == null;
+
+        if (Debug.ENABLED)
+            Helper.instance().disableEqualsOrHashCheck();
+
+        boolean result = a.equals(b);
+
+        if (Debug.ENABLED)
+            Helper.instance().enableEqualsOrHashCheck();
+
+        return result;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        Transaction outer = current_();
+        Transaction inner = startRead_(outer);
+        Elements elements = getForRead(inner);
+
+        // Later writes from this transaction must not modify the iterated chunks
+        elements.freeze();
+
+        IteratorImpl iterator = new IteratorImpl(elements.root(), elements.size());
+        endRead_(outer, inner);
+        return iterator;
+    }
+
+    private final class IteratorImpl implements Iterator<E> {
+
+        private final Object[] _root;
+
+        private final int _size;
+
+        private int _cursor, _removed;
+
+        private boolean _canRemove;
+
+        IteratorImpl(Object[] root, int size) {
+            _root = root;
+            _size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _cursor != _size;
+        }
+
+        @Override
+        public E next() {
+            if (_cursor == _size)
+                throw new NoSuchElementException();
+
+            _canRemove = true;
+            return (E) Elements.get(_root, _cursor++);
+        }
+
+        /**
+         * Removes the element at the index it had in the snapshot, minus the number of
+         * elements already removed by this iterator.
+         */
+        @Override
+        public void remove() {
+            if (!_canRemove)
+                throw new IllegalStateException();
+
+            TList.this.remove(_cursor - 1 - _removed++);
+            _canRemove = false;
+        }
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return new View().listIterator();
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        return new View().listIterator(index);
+    }
+
+    @Override
+    public java.util.List<E> subList(int fromIndex, int toIndex) {
+        return new View().subList(fromIndex, toIndex);
+    }
+
+    private final class View extends java.util.AbstractList<E> {
+
+        @Override
+        public E get(int index) {
+            return TList.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return TList.this.size();
+        }
+
+        @Override
+        public E set(int index, E element) {
+            return TList.this.set(index, element);
+        }
+
+        @Override
+        public void add(int index, E element) {
+            TList.this.add(index, element);
+        }
+
+        @Override
+        public E remove(int index) {
+            return TList.this.remove(index);
+        }
+    }
+
+    /**
+     * Registers a listener to be called when the list changes.
+     */
+    public final void addListener(ListListener listener) {
+        addListener(listener, workspace().callbackExecutor());
+    }
+
+    /**
+     * Also specifies on which executor the listener should be invoked.
+     */
+    public final void addListener(ListListener listener, Executor executor) {
+        workspace().addListener(this, listener, executor);
+    }
+
+    public final void removeListener(ListListener listener) {
+        removeListener(listener, workspace().callbackExecutor());
+    }
+
+    public final void removeListener(ListListener listener, Executor executor) {
+        workspace().removeListener(this, listener, executor);
+    }
+
+    //
+
+    private final void checkResource(Object value) {
+        if (value instanceof TObject && ((TObject) value).resource() != resource())
+            wrongResource_();
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(outOfBounds(index, size));
+    }
+
+    private static void checkPosition(int index, int size) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException(outOfBounds(index, size));
+    }
+
+    private static String outOfBounds(int index, int size) {
+        return "Index: " + index + ", Size: " + size;
+    }
+
+    private final TListVersion getOrCreateVersion(Transaction transaction) {
+        TListVersion version = (TListVersion) transaction.getVersion(this);
+
+        if (version == null) {
+            version = createVersion_();
+            transaction.putVersion(version);
+            version.init(getForWrite(transaction));
+        }
+
+        return version;
+    }
+
+    private final Elements getForRead(Transaction transaction) {
+        Elements elements = null;
+
+        // Current version
+        {
+            TListVersion version = (TListVersion) transaction.getVersion(this);
+
+            if (version != null) {
+                elements = version;
+
+                if (version.getCleared())
+                    return elements;
+            }
+        }
+
+        // Private versions
+        {
+            Version[][] versions = transaction.getPrivateSnapshotVersions();
+
+            if (versions != null) {
+                for (int i = versions.length - 1; i >= 0; i--) {
+                    TListVersion version = (TListVersion) TransactionBase.getVersion(versions[i], this);
+
+                    if (version != null) {
+                        if (elements == null)
+                            elements = version;
+
+                        if (version.getCleared())
+                            return elements;
+                    }
+                }
+            }
+        }
+
+        if (!transaction.ignoreReads()) {
+            Version read = transaction.getRead(this);
+
+            if (read == null) {
+                read = createRead();
+                transaction.putRead(read);
+            }
+
+            if (Debug.ENABLED)
+                Debug.assertion(read instanceof TListRead);
+        }
+
+        if (elements != null)
+            return elements;
+
+        return getPublic(transaction);
+    }
+
+    private final Elements getForWrite(Transaction transaction) {
+        Version[][] versions = transaction.getPrivateSnapshotVersions();
+
+        if (versions != null) {
+            for (int i = versions.length - 1; i >= 0; i--) {
+                TListVersion version = (TListVersion) TransactionBase.getVersion(versions[i], this);
+
+                if (version != null)
+                    return version;
+            }
+        }
+
+        return getPublic(transaction);
+    }
+
+    private final Elements getPublic(Transaction transaction) {
+        Version[][] versions = transaction.getPublicSnapshotVersions();
+
+        for (int i = versions.length - 1; i > TransactionManager.OBJECTS_VERSIONS_INDEX; i--) {
+            TListVersion version = (TListVersion) TransactionBase.getVersion(versions[i], this);
+
+            if (version != null)
+                return version;
+        }
+
+        return (TListSharedVersion) shared_();
+    }
+
+    //
+
+    @Override
+    final TListRead createRead() {
+        TListRead version = new TListRead();
+        version.setObject(this);
+        return version;
+    }
+
+    @Override
+    protected final TListVersion createVersion_() {
+        TListVersion version = new TListVersion();
+        version.setObject(this);
+        return version;
+    }
+
+    @Override
+    protected final int classId_() {
+        return BuiltInClass.TLIST_CLASS_ID;
+    }
+
+    //
+
+    static final class TListRead extends TObject.Version {
+
+        @Override
+        public boolean validAgainst(VersionMap map, Snapshot snapshot, int start, int stop) {
+            for (int i = start; i < stop; i++) {
+                TObject.Version write = TransactionBase.getVersion(snapshot.writes()[i], object());
+
+                if (write != null)
+                    return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public void visit(org.objectfabric.Visitor visitor) {
+            visitor.visit(this);
+        }
+    }
+
+    /**
+     * Content of the list. Elements are in chunks, referenced by nodes, referenced by the
+     * root. The last slot of each array holds the token of the version allowed to modify
+     * it in place. Other versions share it and copy it on first write.
+     */
+    static abstract class Elements extends TObject.Version {
+
+        static final int SHIFT = 6;
+
+        static final int WIDTH = 1 << SHIFT;
+
+        static final int MASK = WIDTH - 1;
+
+        private Object[] _root;
+
+        private int _size;
+
+        private Object _edit;
+
+        final Object[] root() {
+            return _root;
+        }
+
+        final int size() {
+            return _size;
+        }
+
+        final Object get(int index) {
+            return get(_root, index);
+        }
+
+        static Object get(Object[] root, int index) {
+            Object[] node = (Object[]) root[index >>> (SHIFT * 2)];
+            Object[] chunk = (Object[]) node[(index >>> SHIFT) & MASK];
+            return chunk[index & MASK];
+        }
+
+        final Object[] toArray() {
+            Object[] array = new Object[_size];
+
+            for (int i = 0; i < _size; i += WIDTH) {
+                Object[] node = (Object[]) _root[i >>> (SHIFT * 2)];
+                Object[] chunk = (Object[]) node[(i >>> SHIFT) & MASK];
+                Platform.arraycopy(chunk, 0, array, i, Math.min(WIDTH, _size - i));
+            }
+
+            return array;
+        }
+
+        /**
+         * Subsequent writes will copy chunks instead of modifying them.
+         */
+        final void freeze() {
+            if (_edit != null)
+                _edit = null;
+        }
+
+        final void setElements(Elements source) {
+            _root = source._root;
+            _size = source._size;
+            _edit = null;
+        }
+
+        final void cloneElements(Elements source) {
+            _root = source._root;
+            _size = source._size;
+            _edit = source._edit;
+        }
+
+        final void clearElements() {
+            _root = null;
+            _size = 0;
+        }
+
+        final void addElement(Object value) {
+            chunk(_size)[_size & MASK] = value;
+            _size++;
+        }
+
+        final Object setElement(int index, Object value) {
+            Object[] chunk = chunk(index);
+            Object previous = chunk[index & MASK];
+            chunk[index & MASK] = value;
+            return previous;
+        }
+
+        final void insertElement(int index, Object value) {
+            Object carry = value;
+
+            for (int start = index; start <= _size; start = (start | MASK) + 1) {
+                Object[] chunk = chunk(start);
+                int offset = start & MASK;
+                Object last = chunk[MASK];
+                Platform.arraycopy(chunk, offset, chunk, offset + 1, MASK - offset);
+                chunk[offset] = carry;
+                carry = last;
+            }
+
+            _size++;
+        }
+
+        final Object removeElement(int index) {
+            Object carry = null;
+            int first = index & ~MASK;
+
+            for (int start = (_size - 1) & ~MASK; start >= first; start -= WIDTH) {
+                Object[] chunk = chunk(start);
+                int offset = start == first ? index & MASK : 0;
+                Object removed = chunk[offset];
+                Platform.arraycopy(chunk, offset + 1, chunk, offset, MASK - offset);
+                chunk[MASK] = carry;
+                carry = removed;
+            }
+
+            _size--;
+            return carry;
+        }
+
+        /**
+         * Applies an operation which might have been recorded on a different content, so
+         * indexes are checked. Returns the index it has been applied at.
+         */
+        final int apply(byte kind, int index, Object value) {
+            switch (kind) {
+                case TListVersion.ADD:
+                    index = _size;
+                    addElement(value);
+                    break;
+                case TListVersion.INSERT:
+                    if (index > _size)
+                        index = _size;
+
+                    insertElement(index, value);
+                    break;
+                case TListVersion.REMOVE:
+                    if (index < _size)
+                        removeElement(index);
+
+                    break;
+                case TListVersion.SET:
+                    if (index < _size)
+                        setElement(index, value);
+
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+
+            return index;
+        }
+
+        /**
+         * Chunk containing index, copied along with its node and root if they are not
+         * owned by this version yet.
+         */
+        private final Object[] chunk(int index) {
+            if (_edit == null)
+                _edit = new Object();
+
+            int r = index >>> (SHIFT * 2);
+            Object[] root = _root;
+            int length = root != null ? root.length - 1 : 0;
+
+            if (r >= length || root[length] != _edit) {
+                int capacity = r < length ? length : Math.max(length << OpenMap.TIMES_TWO_SHIFT, r + 1);
+                Object[] copy = new Object[capacity + 1];
+
+                if (root != null)
+                    Platform.arraycopy(root, 0, copy, 0, length);
+
+                copy[capacity] = _edit;
+                _root = root = copy;
+            }
+
+            Object[] node = writable((Object[]) root[r]);
+            root[r] = node;
+            int n = (index >>> SHIFT) & MASK;
+            Object[] chunk = writable((Object[]) node[n]);
+            node[n] = chunk;
+            return chunk;
+        }
+
+        private final Object[] writable(Object[] array) {
+            if (array != null && array[WIDTH] == _edit)
+                return array;
+
+            Object[] copy = new Object[WIDTH + 1];
+
+            if (array != null)
+                Platform.arraycopy(array, 0, copy, 0, WIDTH);
+
+            copy[WIDTH] = _edit;
+            return copy;
+        }
+
+        // Debug
+
+        @Override
+        void getContentForDebug(List<Object> list) {
+            if (!Debug.ENABLED)
+                throw new IllegalStateException();
+
+            list.add(_root);
+            list.add(_size);
+        }
+    }
+
+    static final class TListVersion extends Elements {
+
+        static final byte ADD = 0;
+
+        static final byte INSERT = 1;
+
+        static final byte REMOVE = 2;
+
+        static final byte SET = 3;
+
+        static final byte END = 4;
+
+        private boolean _cleared;
+
+        private byte[] _kinds;
+
+        private int[] _indexes;
+
+        private Object[] _values;
+
+        private int _count;
+
+        // Content the operations were applied on, to replay them if it has changed
+
+        private Object[] _baseRoot;
+
+        private int _baseSize;
+
+        private boolean _hasBase;
+
+        final boolean getCleared() {
+            return _cleared;
+        }
+
+        final void setCleared(boolean value) {
+            _cleared = value;
+        }
+
+        final int getCount() {
+            return _count;
+        }
+
+        final byte getKind(int index) {
+            return _kinds[index];
+        }
+
+        final int getIndex(int index) {
+            return _indexes[index];
+        }
+
+        final Object getValue(int index) {
+            return _values[index];
+        }
+
+        final void init(Elements base) {
+            setElements(base);
+            _baseRoot = base.root();
+            _baseSize = base.size();
+            _hasBase = true;
+        }
+
+        final void add(Object value) {
+            log(ADD, size(), value);
+            addElement(value);
+        }
+
+        final void insert(int index, Object value) {
+            log(INSERT, index, value);
+            insertElement(index, value);
+        }
+
+        final Object set(int index, Object value) {
+            log(SET, index, value);
+            return setElement(index, value);
+        }
+
+        final Object remove(int index) {
+            log(REMOVE, index, null);
+            return removeElement(index);
+        }
+
+        final void clear() {
+            clearOperations();
+            clearElements();
+            _cleared = true;
+        }
+
+        /**
+         * Records an operation. Versions read from a stream only have operations, their
+         * content is computed on publication.
+         */
+        final void log(byte kind, int index, Object value) {
+            if (_kinds == null || _count == _kinds.length)
+                resize(_kinds == null ? List.CAPACITY : _count << OpenMap.TIMES_TWO_SHIFT);
+
+            _kinds[_count] = kind;
+            _indexes[_count] = index;
+            _values[_count] = value;
+            _count++;
+        }
+
+        private final void resize(int capacity) {
+            byte[] kinds = new byte[capacity];
+            int[] indexes = new int[capacity];
+            Object[] values = new Object[capacity];
+
+            if (_count > 0) {
+                Platform.arraycopy(_kinds, 0, kinds, 0, _count);
+                Platform.arraycopy(_indexes, 0, indexes, 0, _count);
+                Platform.arraycopy(_values, 0, values, 0, _count);
+            }
+
+            _kinds = kinds;
+            _indexes = indexes;
+            _values = values;
+        }
+
+        private final void clearOperations() {
+            _kinds = null;
+            _indexes = null;
+            _values = null;
+            _count = 0;
+        }
+
+        private final void append(TListVersion source, boolean shared) {
+            if (source._cleared) {
+                clearOperations();
+                _cleared = true;
+            } else if (shared) {
+                // Arrays are shared with the cloned version
+                resize(_count + source._count);
+            }
+
+            for (int i = 0; i < source._count; i++)
+                log(source._kinds[i], source._indexes[i], source._values[i]);
+        }
+
+        private final void replay(Elements base) {
+            if (_cleared)
+                clearElements();
+            else
+                setElements(base);
+
+            for (int i = 0; i < _count; i++)
+                _indexes[i] = apply(_kinds[i], _indexes[i], _values[i]);
+        }
+
+        final void applyTo(Elements elements) {
+            if (_cleared)
+                elements.clearElements();
+
+            for (int i = 0; i < _count; i++)
+                elements.apply(_kinds[i], _indexes[i], _values[i]);
+        }
+
+        @Override
+        void onPublishing(Snapshot newSnapshot, int mapIndex) {
+            Elements previous = null;
+
+            for (int i = mapIndex - 1; i > TransactionManager.OBJECTS_VERSIONS_INDEX; i--) {
+                previous = (TListVersion) TransactionBase.getVersion(newSnapshot.writes()[i], object());
+
+                if (previous != null)
+                    break;
+            }
+
+            if (previous == null)
+                previous = (TListSharedVersion) object().shared_();
+
+            boolean changed = previous.root() != _baseRoot || previous.size() != _baseSize;
+
+            if (!_hasBase || (changed && !_cleared)) {
+                freeze();
+                replay(previous);
+                _baseRoot = previous.root();
+                _baseSize = previous.size();
+                _hasBase = true;
+            }
+
+            freeze();
+        }
+
+        @Override
+        TObject.Version merge(TObject.Version target, TObject.Version next, boolean threadPrivate) {
+            TListVersion source = (TListVersion) next;
+            TListVersion merged = this;
+            boolean clone = this == target && !threadPrivate;
+
+            if (clone)
+                merged = (TListVersion) clone(false);
+
+            merged.append(source, clone);
+            merged.setElements(source);
+
+            if (!source._hasBase)
+                merged._hasBase = false;
+
+            return merged;
+        }
+
+        @Override
+        void deepCopy(TObject.Version source) {
+            if (source instanceof TListSharedVersion) {
+                Elements shared = (Elements) source;
+
+                if (Debug.ENABLED)
+                    Debug.assertion(_count == 0);
+
+                _cleared = true;
+
+                if (shared.size() > 0)
+                    resize(shared.size());
+
+                for (int i = 0; i < shared.size(); i++)
+                    log(ADD, i, shared.get(i));
+
+                setElements(shared);
+            } else {
+                TListVersion version = (TListVersion) source;
+                append(version, false);
+                setElements(version);
+            }
+
+            _hasBase = false;
+        }
+
+        @Override
+        void clone(TObject.Version source) {
+            TListVersion version = (TListVersion) source;
+            cloneElements(version);
+            _cleared = version._cleared;
+            _kinds = version._kinds;
+            _indexes = version._indexes;
+            _values = version._values;
+            _count = version._count;
+            _baseRoot = version._baseRoot;
+            _baseSize = version._baseSize;
+            _hasBase = version._hasBase;
+        }
+
+        @Override
+        void visit(org.objectfabric.Visitor visitor) {
+            visitor.visit(this);
+        }
+
+        @Override
+        boolean mask(Version version) {
+            boolean empty = false;
+
+            if (_cleared) {
+                ((TListVersion) version).clearOperations();
+                empty = true;
+            }
+
+            return empty;
+        }
+
+        @Override
+        void markFull() {
+            _cleared = true;
+        }
+
+        // Debug
+
+        @Override
+        void getContentForDebug(List<Object> list) {
+            super.getContentForDebug(list);
+
+            list.add(_cleared);
+            list.add(_count);
+            list.add(_values);
+        }
+
+        @Override
+        boolean hasWritesForDebug() {
+            if (!Debug.ENABLED)
+                throw new IllegalStateException();
+
+            return _count != 0 || _cleared;
+        }
+    }
+
+    static final class TListSharedVersion extends Elements {
+
+        @Override
+        TObject.Version merge(TObject.Version target, TObject.Version next, boolean threadPrivate) {
+            TListVersion source = (TListVersion) next;
+
+            if (threadPrivate) {
+                source.applyTo(this);
+                freeze();
+            } else
+                setElements(source);
+
+            return this;
+        }
+
+        @Override
+        void visit(org.objectfabric.Visitor visitor) {
+            visitor.visit(this);
+        }
+    }
+}
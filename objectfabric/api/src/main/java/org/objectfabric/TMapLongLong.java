@@ -0,0 +1,79 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import org.objectfabric.TKeyedLong.LongEntries;
+
+/**
+ * Transactional map from long to long. Keys and values are stored in arrays instead of
+ * entries, so reading or writing an element does not allocate. Missing keys read as 0,
+ * use {@link #containsKey(long)} to tell them apart.<br>
+ * <br>
+ * Like {@link TMap#putOnly(Object, Object)}, put and remove do not return the previous
+ * value, so they never read the map and cannot conflict. Listeners registered with
+ * addListener receive boxed keys.
+ */
+public class TMapLongLong extends TKeyedLong<Long> {
+
+    public static final TType TYPE;
+
+    static {
+        TYPE = Platform.newTType(Platform.get().defaultObjectModel(), BuiltInClass.TMAP_LONG_LONG_CLASS_ID);
+    }
+
+    public TMapLongLong(Resource resource) {
+        super(resource, false, false);
+    }
+
+    public void clear() {
+        clearTKeyedLong();
+    }
+
+    public boolean containsKey(long key) {
+        return contains(getEntries(key), key);
+    }
+
+    public long get(long key) {
+        LongEntries entries = getEntries(key);
+
+        if (entries != null) {
+            int index = entries.index(key);
+
+            if (index >= 0 && entries.States[index] == LongEntries.PUT)
+                return entries.Longs[index];
+        }
+
+        return 0;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void put(long key, long value) {
+        putTKeyedLong(key, LongEntries.PUT, value, null);
+    }
+
+    public void remove(long key) {
+        putTKeyedLong(key, LongEntries.REMOVAL, 0, null);
+    }
+
+    public int size() {
+        return sizeTKeyedLong();
+    }
+
+    @Override
+    protected final int classId_() {
+        return BuiltInClass.TMAP_LONG_LONG_CLASS_ID;
+    }
+}
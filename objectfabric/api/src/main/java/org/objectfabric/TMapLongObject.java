@@ -0,0 +1,103 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import org.objectfabric.TKeyedLong.LongEntries;
+
+/**
+ * Transactional map from long to objects. Keys are stored in an array of longs instead
+ * of entries, so they are not boxed. Values are read and written like with {@link TMap},
+ * and missing keys read as null.<br>
+ * <br>
+ * Like {@link TMap#putOnly(Object, Object)}, put and remove do not return the previous
+ * value, so they never read the map and cannot conflict. Listeners registered with
+ * addListener receive boxed keys.
+ */
+@SuppressWarnings("unchecked")
+public class TMapLongObject<V> extends TKeyedLong<Long> {
+
+    public static final TType TYPE;
+
+    static {
+        TYPE = Platform.newTType(Platform.get().defaultObjectModel(), BuiltInClass.TMAP_LONG_OBJECT_CLASS_ID);
+    }
+
+    private final TType[] _genericParameters;
+
+    public TMapLongObject(Resource resource) {
+        this(resource, null);
+    }
+
+    /**
+     * This constructor is only useful if the object might get replicated to a .NET
+     * process, to specify which type would be instantiated by the remote runtime.
+     */
+    public TMapLongObject(Resource resource, TType genericParamValue) {
+        super(resource, true, false);
+
+        if (genericParamValue == null)
+            _genericParameters = null;
+        else {
+            _genericParameters = Platform.newTTypeArray(1);
+            _genericParameters[0] = genericParamValue;
+        }
+    }
+
+    @Override
+    final TType[] genericParameters() {
+        return _genericParameters;
+    }
+
+    public void clear() {
+        clearTKeyedLong();
+    }
+
+    public boolean containsKey(long key) {
+        return contains(getEntries(key), key);
+    }
+
+    public V get(long key) {
+        LongEntries entries = getEntries(key);
+
+        if (entries != null) {
+            int index = entries.index(key);
+
+            if (index >= 0 && entries.States[index] == LongEntries.PUT)
+                return (V) entries.Objects[index];
+        }
+
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void put(long key, V value) {
+        checkResource(value);
+        putTKeyedLong(key, LongEntries.PUT, 0, value);
+    }
+
+    public void remove(long key) {
+        putTKeyedLong(key, LongEntries.REMOVAL, 0, null);
+    }
+
+    public int size() {
+        return sizeTKeyedLong();
+    }
+
+    @Override
+    protected final int classId_() {
+        return BuiltInClass.TMAP_LONG_OBJECT_CLASS_ID;
+    }
+}
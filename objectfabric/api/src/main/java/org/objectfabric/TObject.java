@@ -30,7 +30,7 @@ public class TObject {
 
     static final String OBJECT_FABRIC_VERSION = "0.9";
 
-    static final byte SERIALIZATION_VERSION = 1;
+    static final byte SERIALIZATION_VERSION = 4;
 
     static final int FLAG_REFERENCED_BY_URI = 1 << 8;
 
@@ -407,6 +407,13 @@ public class TObject {
             return true;
         }
 
+        /**
+         * Called on versions holding the whole state of their object, e.g. written for
+         * a checkpoint, so that they replace previous ones instead of adding to them.
+         */
+        void markFull() {
+        }
+
         // Debug
 
         void getContentForDebug(List<Object> list) {
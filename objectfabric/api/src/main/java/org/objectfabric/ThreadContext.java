@@ -24,7 +24,7 @@ final class ThreadContext extends PlatformThreadContext {
 
     final char[] PathCache = new char[Utils.TIME_HEX + Utils.PEER_HEX];
 
-    List<Buff> Buffs;
+    final List<Buff>[] Buffs = new List[Buff.SIZES.length];
 
     private final Reader _reader = new Reader();
 
@@ -54,6 +54,11 @@ abstract class TransactionBase {
     // TODO needed in transaction? merge?
     private VersionMap _map;
 
+    /*
+     * Watcher added on snapshot's last map, c.f. VersionMap.tryToAddWatcher.
+     */
+    private int _snapshotWatcher;
+
     // !! Add new fields to reset()
 
     TransactionBase(Workspace workspace, Transaction parent) {
@@ -103,6 +108,7 @@ abstract class TransactionBase {
 
         _snapshot = null;
         _map = null;
+        _snapshotWatcher = 0;
     }
 
     final int flags() {
@@ -445,6 +451,14 @@ abstract class TransactionBase {
         _map = value;
     }
 
+    final int getSnapshotWatcher() {
+        return _snapshotWatcher;
+    }
+
+    final void setSnapshotWatcher(int value) {
+        _snapshotWatcher = value;
+    }
+
     final VersionMap getOrCreateVersionMap() {
         if (_map == null) {
             _map = new VersionMap();
@@ -22,16 +22,13 @@ import org.objectfabric.Workspace.Granularity;
 final class TransactionManager {
 
     /*
-     * TODO extend AtomicReferenceArray and move all CAS here with indexes far from each
-     * other to avoid same cache line conflicts.
+     * CASed fields (Workspace snapshot, version maps watchers and merge info) are padded
+     * to avoid same cache line conflicts, c.f. PaddedAtomicReference and
+     * PaddedAtomicInteger.
      */
 
     public static final int OBJECTS_VERSIONS_INDEX = 0;
 
-    private static final int MAP_QUEUE_SIZE_THRESHOLD = 80;
-
-    private static final int MAP_QUEUE_SIZE_MAXIMUM = 100;
-
     public static final TObject.Version[] OBJECTS_VERSIONS = new TObject.Version[0];
 
     private TransactionManager() {
@@ -49,6 +46,8 @@ final class TransactionManager {
 
         if (parent == null) {
             Workspace workspace = transaction.workspace();
+            Metrics.Recorder metrics = Metrics.recorder();
+            long start = metrics != null ? metrics.sample() : 0;
 
             if (transaction.getWrites() != null) {
                 if (Debug.ENABLED) {
@@ -63,7 +62,7 @@ final class TransactionManager {
                 if (Debug.ENABLED)
                     workspace.releaseSnapshotDebug(snapshot, transaction, "TransactionManager.commit (No write)");
 
-                workspace.releaseSnapshot(snapshot);
+                workspace.releaseSnapshot(transaction);
                 transaction.reset();
 
                 if (Debug.THREADS)
@@ -77,6 +76,13 @@ final class TransactionManager {
                 if (result)
                     Stats.Instance.Committed.incrementAndGet();
             }
+
+            if (metrics != null) {
+                if (result)
+                    metrics.add(Metrics.COMMITTED, 1);
+
+                metrics.end(Metrics.COMMIT, start);
+            }
         } else {
             parent.mergePrivate(transaction);
 
@@ -94,16 +100,24 @@ final class TransactionManager {
         final Version[] reads = transaction.getReads();
         final Version[] writes = transaction.getWrites();
         final VersionMap map = transaction.getOrCreateVersionMap();
+        map.setFilter(VersionMap.createFilter(writes));
 
         Snapshot snapshot;
         Snapshot lastValidated = transaction.getSnapshot();
-        int lastValidatedAddedWatchers = 1;
+        int lastValidatedAddedWatchers = 0;
         List<Object> lastValidatedAddedWatchersList = null;
 
+        /*
+         * Watcher added when transaction started, released separately as it might be
+         * striped. Keep it until after commit if snapshot has not changed.
+         */
+        final Snapshot started = transaction.getSnapshot();
+        final int startedWatcher = transaction.getSnapshotWatcher();
+        boolean startedWatched = true;
+
         if (Debug.ENABLED) {
             Debug.assertion(transaction.parent() == null);
             lastValidatedAddedWatchersList = new List<Object>();
-            lastValidatedAddedWatchersList.add(transaction);
         }
 
         final Snapshot newSnapshot = new Snapshot();
@@ -135,19 +149,8 @@ final class TransactionManager {
                         }
                     }
 
-                    /*
-                     * TODO also measure size of each map, do not allow merging of maps if
-                     * over size of a commit using same stuff as for source splitting.
-                     */
-
-                    if (snapshot.getVersionMaps().length >= MAP_QUEUE_SIZE_MAXIMUM)
-                        workspace.onOverloaded();
-                    else {
-                        if (snapshot.getVersionMaps().length >= MAP_QUEUE_SIZE_THRESHOLD)
-                            workspace.onOverloading();
-
+                    if (workspace.throttle(snapshot))
                         break;
-                    }
                 }
 
                 if (Debug.ENABLED) {
@@ -205,27 +208,6 @@ final class TransactionManager {
                         for (int i = 0; i < watchersList.size(); i++)
                             Helper.instance().addWatcher(snapshot.last(), watchersList.get(i), snapshot, "validateAndUpdateSnapshot");
 
-                    /*
-                     * If we use transaction's snapshot, keep it until after commit
-                     * instead of after validation only.
-                     */
-                    if (snapshot == transaction.getSnapshot()) {
-                        addedWatchers++;
-                        temporaryWatchers++;
-                        lastValidatedAddedWatchers--;
-
-                        if (Debug.ENABLED) {
-                            watchersList.add(transaction);
-                            temporaryWatchersList.add(transaction);
-
-                            if (lastValidatedAddedWatchersList == null)
-                                throw new AssertionError();
-
-                            boolean r = lastValidatedAddedWatchersList.remove(transaction);
-                            Debug.assertion(r);
-                        }
-                    }
-
                     break;
                 }
             }
@@ -239,6 +221,8 @@ final class TransactionManager {
                     if (reads != null) {
                         int start = Helper.getIndex(snapshot, lastValidated.last()) + 1;
                         int stop = snapshot.writes().length;
+                        Metrics.Recorder metrics = Metrics.recorder();
+                        long time = metrics != null ? metrics.sample() : 0;
 
                         if (!Helper.validateCheckOnce(map, reads, snapshot, start, stop)) {
                             if (Debug.ENABLED)
@@ -246,6 +230,9 @@ final class TransactionManager {
 
                             conflict = true;
                         }
+
+                        if (metrics != null)
+                            metrics.end(Metrics.VALIDATION, time);
                     }
                 }
 
@@ -261,6 +248,21 @@ final class TransactionManager {
                     delayedMerge = lastValidated.last().removeWatchers(workspace, lastValidatedAddedWatchers, true, lastValidated);
                 }
 
+                if (startedWatched && snapshot != started) {
+                    if (Debug.ENABLED)
+                        Helper.instance().removeWatcher(started.last(), transaction, snapshot, "Validation done (started)");
+
+                    Runnable runnable = started.last().removeWatcher(workspace, startedWatcher, true, started);
+                    startedWatched = false;
+
+                    if (runnable != null) {
+                        if (Debug.ENABLED)
+                            Debug.assertion(delayedMerge == null);
+
+                        delayedMerge = runnable;
+                    }
+                }
+
                 if (Debug.ENABLED) {
                     if (Helper.instance().ConflictAlways)
                         conflict = true;
@@ -273,6 +275,13 @@ final class TransactionManager {
                     if (delayedMerge != null)
                         delayedMerge.run();
 
+                    if (startedWatched) {
+                        if (Debug.ENABLED)
+                            Helper.instance().removeWatcher(started.last(), transaction, snapshot, "Validation failed (started)");
+
+                        started.last().removeWatcher(workspace, startedWatcher, false, started);
+                    }
+
                     dispose(transaction, addedWatchers, watchersList, snapshot);
                     return false;
                 }
@@ -314,6 +323,11 @@ final class TransactionManager {
                 if (writes[i] != null)
                     writes[i].onPublishing(newSnapshot, snapshot.writes().length);
 
+            VersionMap claimed = null;
+
+            if (!preventsMerge && !map.isRemote())
+                claimed = tryToMergeOnPublish(map, snapshot, newSnapshot, addedWatchers, temporaryWatchers, startedWatched, startedWatcher);
+
             if (Debug.THREADS) {
                 ThreadAssert.share(map);
 
@@ -322,10 +336,14 @@ final class TransactionManager {
             }
 
             /*
-             * Try to publish the new snapshot. TODO: do merge on same CAS, only if fails
-             * use delayedMerge.
+             * Try to publish the new snapshot.
              */
             if (!workspace.casSnapshot(snapshot, newSnapshot)) {
+                if (claimed != null) {
+                    claimed.unclaim();
+                    map.setFilter(VersionMap.createFilter(writes));
+                }
+
                 if (Debug.THREADS) {
                     if (preventsMerge) {
                         ThreadAssert.removeShared(transaction);
@@ -339,6 +357,8 @@ final class TransactionManager {
                 if (delayedMerge != null)
                     delayedMerge.run();
 
+                Metrics.increment(Metrics.VALIDATION_RETRIES);
+
                 if (Debug.ENABLED) {
                     retryCount++;
 
@@ -371,6 +391,9 @@ final class TransactionManager {
                 /*
                  * Success!
                  */
+                if (claimed != null)
+                    claimed.onMergedOnPublish();
+
                 if (Debug.ENABLED) {
                     /*
                      * Assert all watched maps are still there.
@@ -400,9 +423,19 @@ final class TransactionManager {
                         Helper.instance().removeWatcher(snapshot.last(), temporaryWatchersList.get(i), snapshot, "Success!");
 
                     Helper.instance().removeWatcher(snapshot.last(), workspace, snapshot, "No more last");
+
+                    if (startedWatched)
+                        Helper.instance().removeWatcher(started.last(), transaction, snapshot, "Success! (started)");
                 }
 
-                snapshot.last().removeWatchers(workspace, temporaryWatchers + 1, false, snapshot);
+                if (claimed == null) {
+                    snapshot.last().seal(workspace);
+
+                    if (startedWatched)
+                        started.last().removeWatcher(workspace, startedWatcher, false, started);
+
+                    snapshot.last().removeWatchers(workspace, temporaryWatchers + 1, false, snapshot);
+                }
 
                 if (snapshot.slowChanging() != null) {
                     Actor[] actors = snapshot.slowChanging().Actors;
@@ -426,6 +459,63 @@ final class TransactionManager {
         }
     }
 
+    /**
+     * If the committing thread is the only one watching the last map, replaces it in
+     * the new snapshot by the committed one, with merged versions, so that it does not
+     * need to be merged in a second CAS. Returns the last map if claimed.
+     */
+    private static VersionMap tryToMergeOnPublish(VersionMap map, Snapshot snapshot, Snapshot newSnapshot, int addedWatchers, int temporaryWatchers, boolean startedWatched, int startedWatcher) {
+        int lastIndex = snapshot.getVersionMaps().length - 1;
+
+        // Extensions watchers, or initial map
+        if (addedWatchers != temporaryWatchers || lastIndex == OBJECTS_VERSIONS_INDEX)
+            return null;
+
+        /*
+         * Watchers held by this thread: the default one of last map, the temporary ones
+         * and the one added at start if snapshot has not changed since.
+         */
+        int watchers = VersionMap.DEFAULT_WATCHERS + temporaryWatchers;
+
+        if (startedWatched) {
+            // Striped watchers do not show in the count
+            if (startedWatcher != 0)
+                return null;
+
+            watchers++;
+        }
+
+        VersionMap last = snapshot.last();
+
+        if (watchers == VersionMap.DEFAULT_WATCHERS || last.getWatchers() != watchers)
+            return null;
+
+        Version[] mergedWrites = VersionMap.mergeCopies(newSnapshot.writes()[lastIndex], newSnapshot.writes()[lastIndex + 1], false);
+        Version[][] reads = newSnapshot.getReads();
+
+        if (reads != null) {
+            Version[] mergedReads = VersionMap.mergeCopies(reads[lastIndex], reads[lastIndex + 1], true);
+            reads = Helper.removeVersions(reads, lastIndex);
+            reads[lastIndex] = mergedReads;
+        }
+
+        if (!last.tryToClaim(watchers))
+            return null;
+
+        newSnapshot.setVersionMaps(Helper.removeVersionMap(newSnapshot.getVersionMaps(), lastIndex));
+        newSnapshot.setReads(reads);
+        newSnapshot.writes(Helper.removeVersions(newSnapshot.writes(), lastIndex));
+        newSnapshot.writes()[lastIndex] = mergedWrites;
+        map.mergeFilter(last);
+
+        if (Debug.ENABLED) {
+            Debug.assertion(newSnapshot.last() == map);
+            Debug.assertion(newSnapshot.writes()[OBJECTS_VERSIONS_INDEX] == OBJECTS_VERSIONS);
+        }
+
+        return last;
+    }
+
     // Merge with abort
     private static void dispose(Transaction transaction, int addedWatchers, List<Object> watchersList, Snapshot snapshot) {
         if (Debug.ENABLED)
@@ -451,6 +541,8 @@ final class TransactionManager {
         if (Stats.ENABLED)
             Stats.Instance.Aborted.incrementAndGet();
 
+        Metrics.increment(Metrics.ABORTED);
+
         if (Debug.THREADS)
             if (transaction.getVersionMap() != null)
                 ThreadAssert.removePrivate(transaction.getVersionMap());
@@ -472,6 +564,7 @@ final class TransactionManager {
 
         final VersionMap map = new VersionMap();
         map.setRemote();
+        map.setFilter(VersionMap.createFilter(versions));
         final Snapshot newSnapshot = new Snapshot();
         int retryCount = 0;
 
@@ -589,6 +682,8 @@ final class TransactionManager {
                     ThreadAssert.addPrivate(map);
                 }
 
+                Metrics.increment(Metrics.VALIDATION_RETRIES);
+
                 if (Debug.ENABLED) {
                     retryCount++;
 
@@ -622,6 +717,7 @@ final class TransactionManager {
                 if (Debug.ENABLED)
                     Helper.instance().removeWatcher(snapshot.last(), workspace, snapshot, "TransactionManager::load old");
 
+                snapshot.last().seal(workspace);
                 snapshot.last().removeWatchers(workspace, 1, false, null);
 
                 //
@@ -654,7 +750,7 @@ final class TransactionManager {
                 workspace.releaseSnapshotDebug(transaction.getSnapshot(), transaction, "TransactionManager::load abort");
             }
 
-            workspace.releaseSnapshot(transaction.getSnapshot());
+            workspace.releaseSnapshot(transaction);
             transaction.reset();
 
             if (Debug.THREADS)
@@ -664,6 +760,8 @@ final class TransactionManager {
 
             if (Stats.ENABLED)
                 Stats.Instance.Aborted.incrementAndGet();
+
+            Metrics.increment(Metrics.ABORTED);
         } else {
             if (Debug.ENABLED)
                 if (transaction.getVersionMap() != null)
@@ -13,6 +13,7 @@
 package org.objectfabric;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.objectfabric.TObject.Transaction;
 import org.objectfabric.TObject.Version;
@@ -24,7 +25,7 @@ import org.objectfabric.ThreadAssert.SingleThreadedThenShared;
  */
 @SuppressWarnings("serial")
 @SingleThreadedThenShared
-final class VersionMap extends AtomicInteger {
+final class VersionMap extends PaddedAtomicInteger {
 
     static final VersionMap CLOSING = new VersionMap(-1);
 
@@ -32,7 +33,16 @@ final class VersionMap extends AtomicInteger {
 
     private boolean _remote;
 
-    // TODO add a condensed filter of reads & write to skip validation
+    /**
+     * Condensed filter of objects written by this map. Validation can skip the map if a
+     * transaction's reads do not intersect it. Null if unknown, e.g. for the initial map,
+     * in which case the map is always validated against.
+     */
+    private long[] _filter;
+
+    static final int FILTER_WORDS = 4;
+
+    private static final int FILTER_MASK = FILTER_WORDS * 64 - 1;
 
     //
 
@@ -57,7 +67,29 @@ final class VersionMap extends AtomicInteger {
      * This field prevents two threads to merge the same map with another one at the same
      * time.
      */
-    private final AtomicInteger _mergeInfo = new AtomicInteger();
+    private final AtomicInteger _mergeInfo = new PaddedAtomicInteger();
+
+    /*
+     * Transactions starting on the last map of a snapshot all add and remove a watcher.
+     * When the count is contended, they are counted in per-thread stripes instead. A
+     * stripe holds a single watcher on this map until the map is sealed, i.e. is not
+     * last anymore, so threads starting transactions in a row only update their own
+     * stripe. Stripes are created lazily and padded to avoid false sharing.
+     */
+    static final int STRIPES = 32;
+
+    private volatile AtomicReferenceArray<PaddedAtomicInteger> _stripes;
+
+    private volatile boolean _sealed;
+
+    /*
+     * Stripe values >= 0 are watchers count, sealed stripes store -(count + 1).
+     */
+    private static final PaddedAtomicInteger SEALED = new PaddedAtomicInteger(-1);
+
+    private static final AtomicInteger _threadCount = new AtomicInteger();
+
+    private static final PlatformThreadLocal<Integer> _threadIndex = new PlatformThreadLocal<Integer>();
 
     static {
         if (Debug.THREADS) {
@@ -66,10 +98,6 @@ final class VersionMap extends AtomicInteger {
         }
     }
 
-    /*
-     * TODO Use an array of counters indexed by a kind of thread id, and only update this
-     * when thread counter reaches 0.
-     */
     VersionMap() {
         this(DEFAULT_WATCHERS);
     }
@@ -102,6 +130,60 @@ final class VersionMap extends AtomicInteger {
         _remote = true;
     }
 
+    final long[] getFilter() {
+        return _filter;
+    }
+
+    final void setFilter(long[] value) {
+        _filter = value;
+    }
+
+    /**
+     * Sets two bits per object so that two filters built from disjoint sets of objects
+     * are likely not to intersect.
+     */
+    static long[] createFilter(Version[] versions) {
+        long[] filter = new long[FILTER_WORDS];
+
+        for (int i = versions.length - 1; i >= 0; i--) {
+            if (versions[i] != null) {
+                int hash = versions[i].object().hash();
+                int a = hash & FILTER_MASK;
+                int b = (hash >>> 8) & FILTER_MASK;
+                filter[a >>> 6] |= 1L << a;
+                filter[b >>> 6] |= 1L << b;
+            }
+        }
+
+        return filter;
+    }
+
+    /**
+     * If false, no object can be in both filters.
+     */
+    static boolean intersects(long[] a, long[] b) {
+        if (a == null || b == null)
+            return true;
+
+        for (int i = FILTER_WORDS - 1; i >= 0; i--)
+            if ((a[i] & b[i]) != 0)
+                return true;
+
+        return false;
+    }
+
+    private static long[] union(long[] a, long[] b) {
+        if (a == null || b == null)
+            return null;
+
+        long[] union = new long[FILTER_WORDS];
+
+        for (int i = FILTER_WORDS - 1; i >= 0; i--)
+            union[i] = a[i] | b[i];
+
+        return union;
+    }
+
     //
 
     final boolean isNotMerging() {
@@ -125,12 +207,10 @@ final class VersionMap extends AtomicInteger {
         for (;;) {
             int watchers = get();
 
-            if (watchers == 0)
+            // Negative if claimed for merge-on-publish
+            if (watchers <= 0)
                 return false;
 
-            if (Debug.ENABLED)
-                Debug.assertion(watchers > 0);
-
             int newWatchers = watchers + count;
 
             if (compareAndSet(watchers, newWatchers))
@@ -138,6 +218,140 @@ final class VersionMap extends AtomicInteger {
         }
     }
 
+    /**
+     * Adds a watcher for a transaction starting on this map. Returns -1 if the map has no
+     * watchers anymore, otherwise the value to pass to removeWatcher.
+     */
+    final int tryToAddWatcher() {
+        AtomicReferenceArray<PaddedAtomicInteger> stripes = _stripes;
+
+        if (stripes == null) {
+            int watchers = get();
+
+            if (watchers <= 0)
+                return -1;
+
+            if (compareAndSet(watchers, watchers + 1))
+                return 0;
+
+            if (Stats.ENABLED)
+                Stats.Instance.WatchersContended.incrementAndGet();
+
+            stripes = getOrCreateStripes();
+        }
+
+        /*
+         * Sealing sets the flag before reading stripes, so if the flag is not set here the
+         * sealing thread will see and seal this array.
+         */
+        if (_sealed)
+            return tryToAddWatchers(1) ? 0 : -1;
+
+        int index = threadIndex() & (STRIPES - 1);
+
+        for (;;) {
+            PaddedAtomicInteger stripe = stripes.get(index);
+
+            if (stripe == null) {
+                if (!tryToAddWatchers(1))
+                    return -1;
+
+                // Otherwise keep the watcher on the shared count
+                if (!stripes.compareAndSet(index, null, new PaddedAtomicInteger(1)))
+                    return 0;
+
+                return index + 1;
+            }
+
+            int count = stripe.get();
+
+            if (count < 0)
+                return tryToAddWatchers(1) ? 0 : -1;
+
+            if (stripe.compareAndSet(count, count + 1))
+                return index + 1;
+        }
+    }
+
+    final Runnable removeWatcher(Workspace workspace, int watcher, boolean delayed, Snapshot mapSnapshot) {
+        if (watcher == 0)
+            return removeWatchers(workspace, 1, delayed, mapSnapshot);
+
+        PaddedAtomicInteger stripe = _stripes.get(watcher - 1);
+
+        for (;;) {
+            int count = stripe.get();
+
+            if (count > 0) {
+                if (stripe.compareAndSet(count, count - 1))
+                    return null;
+            } else {
+                if (Debug.ENABLED)
+                    Debug.assertion(count < -1);
+
+                if (stripe.compareAndSet(count, count + 1)) {
+                    // Last watcher of a sealed stripe releases its shared one
+                    if (count + 1 == -1)
+                        return removeWatchers(workspace, 1, delayed, mapSnapshot);
+
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Called when a new map has been published after this one. Stripes release their
+     * watcher on this map, or let their last transaction do it.
+     */
+    final void seal(Workspace workspace) {
+        _sealed = true;
+        AtomicReferenceArray<PaddedAtomicInteger> stripes = _stripes;
+
+        if (stripes != null) {
+            for (int i = 0; i < STRIPES; i++) {
+                for (;;) {
+                    PaddedAtomicInteger stripe = stripes.get(i);
+
+                    if (stripe == null) {
+                        if (stripes.compareAndSet(i, null, SEALED))
+                            break;
+                    } else {
+                        int count = stripe.get();
+
+                        if (count < 0)
+                            break;
+
+                        if (stripe.compareAndSet(count, -(count + 1))) {
+                            if (count == 0)
+                                removeWatchers(workspace, 1, false, null);
+
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private AtomicReferenceArray<PaddedAtomicInteger> getOrCreateStripes() {
+        synchronized (this) {
+            if (_stripes == null)
+                _stripes = new AtomicReferenceArray<PaddedAtomicInteger>(STRIPES);
+
+            return _stripes;
+        }
+    }
+
+    private static int threadIndex() {
+        Integer index = _threadIndex.get();
+
+        if (index == null)
+            _threadIndex.set(index = _threadCount.getAndIncrement());
+
+        return index;
+    }
+
     final Runnable removeWatchers(final Workspace workspace, int count, boolean delayed, final Snapshot mapSnapshot) {
         if (Debug.ENABLED)
             Debug.assertion(count > 0);
@@ -145,6 +359,20 @@ final class VersionMap extends AtomicInteger {
         for (;;) {
             int watchers = get();
 
+            if (watchers < 0) {
+                /*
+                 * Claimed for merge-on-publish, the claiming thread still holds at least
+                 * one watcher so count cannot reach 0.
+                 */
+                if (Debug.ENABLED)
+                    Debug.assertion(watchers + count < 0);
+
+                if (compareAndSet(watchers, watchers + count))
+                    return null;
+
+                continue;
+            }
+
             if (Debug.ENABLED)
                 Debug.assertion(watchers > 0);
 
@@ -191,6 +419,125 @@ final class VersionMap extends AtomicInteger {
         }
     }
 
+    /*
+     * Merge-on-publish: a committing thread holding all watchers of the last map can
+     * replace it by the new map, with merged versions, in the CAS that publishes the
+     * new one. This avoids a second snapshot CAS and keeps the maps queue short under
+     * write bursts.
+     */
+
+    /**
+     * Succeeds if watchers count is exactly the given one, i.e. no other thread watches
+     * the map. Count is then stored negated until publication so that no other thread
+     * can start watching or merging it.
+     */
+    final boolean tryToClaim(int watchers) {
+        if (Debug.ENABLED)
+            Debug.assertion(watchers > DEFAULT_WATCHERS);
+
+        // A stripe with no transaction would not show in the count
+        if (_stripes != null || get() != watchers)
+            return false;
+
+        if (!_mergeInfo.compareAndSet(MERGE_DEFAULT, MERGE_A))
+            return false;
+
+        if (!compareAndSet(watchers, -watchers)) {
+            _mergeInfo.set(MERGE_DEFAULT);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Publication failed, restores watchers. Another thread might have published a map
+     * and released this one's default watcher meanwhile.
+     */
+    final void unclaim() {
+        for (;;) {
+            int watchers = get();
+
+            if (Debug.ENABLED)
+                Debug.assertion(watchers < 0);
+
+            if (compareAndSet(watchers, -watchers))
+                break;
+        }
+
+        _mergeInfo.set(MERGE_DEFAULT);
+    }
+
+    /**
+     * Publication succeeded, this map has been replaced by the next one.
+     */
+    final void onMergedOnPublish() {
+        if (Debug.ENABLED) {
+            Debug.assertion(get() < 0);
+            Debug.assertion(_mergeInfo.get() == MERGE_A);
+        }
+
+        set(0);
+        _mergeInfo.set(MERGE_DONE);
+
+        if (_transaction != null) {
+            dispose(_transaction);
+
+            if (Debug.THREADS)
+                ThreadAssert.addPrivate(this);
+
+            _transaction = null;
+
+            if (Debug.THREADS)
+                ThreadAssert.removePrivate(this);
+        }
+
+        if (Stats.ENABLED) {
+            Stats.Instance.Merged.incrementAndGet();
+            Stats.Instance.MergedOnPublish.incrementAndGet();
+        }
+
+        if (Debug.THREADS) {
+            ThreadAssert.addSharedDefinitively(this);
+            ThreadAssert.removeShared(this);
+        }
+    }
+
+    /**
+     * Like merge, but b's versions are merged in copies of a's as they are still visible
+     * if publication fails. Also used for reads.
+     */
+    static Version[] mergeCopies(Version[] aVersions, Version[] bVersions, boolean reads) {
+        if (aVersions == null)
+            return bVersions;
+
+        if (bVersions == null)
+            return aVersions;
+
+        Version[] result = new Version[aVersions.length];
+        Platform.arraycopy(aVersions, 0, result, 0, result.length);
+
+        for (int i = bVersions.length - 1; i >= 0; i--) {
+            if (bVersions[i] != null) {
+                TObject object = bVersions[i].object();
+                int index = TransactionBase.getIndex(result, object);
+
+                if (index >= 0) {
+                    Version copy = reads ? object.createRead() : object.createVersion_();
+                    copy.deepCopy(result[index]);
+                    result[index] = merge(copy, bVersions[i], false);
+                } else
+                    result = TransactionBase.putVersion(result, bVersions[i]);
+            }
+        }
+
+        return result;
+    }
+
+    final void mergeFilter(VersionMap a) {
+        _filter = union(a._filter, _filter);
+    }
+
     private boolean mergeAndReturnIfShouldWalkDelayedQueue(Workspace workspace, Snapshot mapSnapshot) {
         // TODO bench read field before for less CAS
 
@@ -247,6 +594,12 @@ final class VersionMap extends AtomicInteger {
         if (Debug.STM_LOG)
             Log.write("Merging " + this + " to " + b);
 
+        /*
+         * b takes the place of this map, with merged writes. Threads validating against
+         * previous snapshots can see either filter, as both contain b's writes.
+         */
+        b._filter = union(_filter, b._filter);
+
         Version[] mergedWrites = merge(this, snapshot.writes()[aIndex], b, snapshot.writes()[bIndex]);
         Version[] mergedReads = null;
 
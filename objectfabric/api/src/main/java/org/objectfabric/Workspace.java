@@ -92,9 +92,11 @@ public abstract class Workspace implements URIHandlersSet, Closeable {
         ALL
     }
 
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 128;
+
     private static volatile Serializer _serializer;
 
-    private final AtomicReference<Snapshot> _snapshot = new AtomicReference<Snapshot>();
+    private final PaddedAtomicReference<Snapshot> _snapshot = new PaddedAtomicReference<Snapshot>();
 
     private final PlatformThreadLocal<Transaction> _transaction = new PlatformThreadLocal<Transaction>();
 
@@ -126,6 +128,10 @@ public abstract class Workspace implements URIHandlersSet, Closeable {
 
     private final Executor _callbackExecutor;
 
+    private volatile BackPressure _backPressure = new BackPressure();
+
+    private volatile int _checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
     private boolean _loggedOverload;
 
     Workspace(Granularity granularity) {
@@ -645,6 +651,7 @@ public abstract class Workspace implements URIHandlersSet, Closeable {
     final Transaction startImpl(int flags) {
         Transaction transaction = getOrCreateTransaction();
         Snapshot snapshot;
+        int watcher;
 
         for (;;) {
             /*
@@ -665,7 +672,9 @@ public abstract class Workspace implements URIHandlersSet, Closeable {
              * Increment watchers count to prevent the map we are using as our snapshot
              * from merging with future commits.
              */
-            if (snapshot.last().tryToAddWatchers(1))
+            watcher = snapshot.last().tryToAddWatcher();
+
+            if (watcher >= 0)
                 break;
         }
 
@@ -675,6 +684,7 @@ public abstract class Workspace implements URIHandlersSet, Closeable {
         }
 
         startImpl(transaction, flags, snapshot);
+        transaction.setSnapshotWatcher(watcher);
         return transaction;
     }
 
@@ -698,8 +708,9 @@ public abstract class Workspace implements URIHandlersSet, Closeable {
         Helper.instance().removeWatcher(snapshot.last(), watcher, snapshot, context);
     }
 
-    final void releaseSnapshot(Snapshot snapshot) {
-        snapshot.last().removeWatchers(this, 1, false, snapshot);
+    final void releaseSnapshot(Transaction transaction) {
+        Snapshot snapshot = transaction.getSnapshot();
+        snapshot.last().removeWatcher(this, transaction.getSnapshotWatcher(), false, snapshot);
     }
 
     //
@@ -831,18 +842,77 @@ public abstract class Workspace implements URIHandlersSet, Closeable {
 
     //
 
+    public BackPressure getBackPressure() {
+        return _backPressure;
+    }
+
+    public void setBackPressure(BackPressure value) {
+        if (value == null)
+            throw new IllegalArgumentException();
+
+        _backPressure = value;
+    }
+
+    /**
+     * Number of blocks a resource's history can grow by before the next block written
+     * for it contains its whole state, which supersedes previous blocks so that
+     * locations can reclaim them. Loading a resource then costs its state size instead
+     * of its history length. 0 disables checkpoints.
+     */
+    public int getCheckpointInterval() {
+        return _checkpointInterval;
+    }
+
+    public void setCheckpointInterval(int value) {
+        if (value < 0)
+            throw new IllegalArgumentException();
+
+        _checkpointInterval = value;
+    }
+
+    /**
+     * Counters and latencies, shared by all workspaces of the process. They are only
+     * updated while {@link Metrics#setEnabled(boolean)} is on.
+     */
+    public Metrics getMetrics() {
+        return Metrics.Instance;
+    }
+
+    /**
+     * Returns false if the current thread cannot publish changes yet.
+     */
+    final boolean throttle(Snapshot snapshot) {
+        BackPressure backPressure = _backPressure;
+        int versions = BackPressure.versions(snapshot);
+        int delay = backPressure.delay(snapshot.getVersionMaps().length, versions);
+
+        if (delay == 0)
+            return true;
+
+        if (delay < 0) {
+            onOverloaded();
+            return false;
+        }
+
+        onOverloading();
+
+        if (Platform.get().value() != Platform.GWT)
+            Platform.get().sleep(delay);
+
+        backPressure.onThrottled(versions, delay);
+        return true;
+    }
+
     /**
      * Called when data is written to the workspace faster than extensions (e.g. a logger
      * or persistence backend) can process it. This should only happen if workspace
      * granularity is {@link Granularity#ALL}.
      * <nl>
-     * Default behavior is to block the current thread for a small amount of time. This
-     * slows writer threads, and helps resorb the overload.
+     * The current thread is then blocked for a time depending on the workspace's
+     * {@link BackPressure}. This slows writer threads, and helps resorb the overload.
+     * Default behavior is to log a warning the first time.
      */
     protected void onOverloading() {
-        if (Platform.get().value() != Platform.GWT)
-            Platform.get().sleep(1);
-
         if (!_loggedOverload) {
             _loggedOverload = true;
             Log.write("Warning: " + this + " is overloading.");
@@ -76,6 +76,20 @@ abstract class Bits {
         return false;
     }
 
+    /**
+     * Bits of the unit at intIndex.
+     */
+    public static int getUnit(Entry[] sparse, int intIndex) {
+        if (sparse != null) {
+            Entry entry = getEntry(sparse, intIndex);
+
+            if (entry != null)
+                return entry.Value;
+        }
+
+        return 0;
+    }
+
     private static Entry getEntry(Entry[] sparse, int intIndex) {
         int foldedIntIndex = intIndex & (sparse.length - 1);
 
@@ -145,22 +159,28 @@ abstract class Bits {
         if (Debug.ENABLED)
             Debug.assertion(index >= 0);
 
+        return tryToSetUnit(sparse, intIndex(index), maskArray(index));
+    }
+
+    /**
+     * Sets bits of mask in the unit at intIndex.
+     */
+    public static boolean tryToSetUnit(Entry[] sparse, int intIndex, int mask) {
         if (Debug.ENABLED)
             checkInvariants(sparse);
 
-        int intIndex = intIndex(index);
         int foldedIntIndex = intIndex & (sparse.length - 1);
 
         for (int i = OpenMap.attemptsStart(sparse.length); i >= 0; i--) {
             Entry current = sparse[foldedIntIndex];
 
             if (current != null && current.IntIndex == intIndex) {
-                current.Value |= maskArray(index);
+                current.Value |= mask;
                 return true;
             }
 
             if (current == null) {
-                sparse[foldedIntIndex] = new Bits.Entry(intIndex, maskArray(index));
+                sparse[foldedIntIndex] = new Bits.Entry(intIndex, mask);
                 return true;
             }
 
@@ -509,6 +529,29 @@ abstract class Bits {
 
     //
 
+    /**
+     * End of the unit containing index, or end if lower.
+     */
+    public static int unitEnd(int index, int end) {
+        int next = (index | BIT_INDEX_MASK) + 1;
+        return next < end ? next : end;
+    }
+
+    /**
+     * Masks bits from start to end excluded, which must be in the same unit.
+     */
+    public static int unitMask(int start, int end) {
+        if (Debug.ENABLED)
+            Debug.assertion(start < end && intIndex(start) == intIndex(end - 1));
+
+        int count = end - start;
+
+        if (count == BITS_PER_UNIT) // Cannot shift by 32
+            return -1;
+
+        return ((1 << count) - 1) << (start & BIT_INDEX_MASK);
+    }
+
     /**
      * Given a bit index return unit index containing it.
      */
@@ -36,10 +36,21 @@ abstract class Buff extends AtomicInteger {
         void recycle(Buff buff);
     }
 
-    private static final int LENGTH = 8192; // TODO tune
+    /**
+     * Size classes, the first is the default. Larger ones let socket reads and large
+     * blocks use a few buffs instead of many default ones.
+     */
+    static final int[] SIZES = { 8192, 64 * 1024, 256 * 1024 }; // TODO tune
+
+    // Buffs per thread-local magazine, moved to shared depot when full
+    private static final int MAGAZINE = 10;
+
+    // Bytes each class keeps in its shared depot, further buffs are left to GC
+    private static final int DEPOT_BYTES = 4 * 1024 * 1024;
+
+    private static final PlatformConcurrentQueue<List<Buff>>[] _depots;
 
-    // TODO a second cache for read Buff at socket size + LARGEST_UNSPLITABLE
-    private static final PlatformConcurrentQueue<List<Buff>> _shared = new PlatformConcurrentQueue<List<Buff>>();
+    private static final AtomicInteger[] _depotSizes;
 
     /*
      * TODO have only one instance, only increment counter. Duplicate buffer at socket
@@ -49,9 +60,26 @@ abstract class Buff extends AtomicInteger {
 
     private final boolean _recycle;
 
+    private int _sizeClass;
+
     // TODO
     // String _debug_stack;
 
+    @SuppressWarnings("unchecked")
+    private static final PlatformConcurrentQueue<List<Buff>>[] createDepots() {
+        return new PlatformConcurrentQueue[SIZES.length];
+    }
+
+    static {
+        _depots = createDepots();
+        _depotSizes = new AtomicInteger[SIZES.length];
+
+        for (int i = 0; i < SIZES.length; i++) {
+            _depots[i] = new PlatformConcurrentQueue<List<Buff>>();
+            _depotSizes[i] = new AtomicInteger();
+        }
+    }
+
     Buff(boolean recycle) {
         super(1);
 
@@ -65,23 +93,62 @@ abstract class Buff extends AtomicInteger {
     Buff(Buff parent) {
         _parent = parent;
         _recycle = true;
+        _sizeClass = parent._sizeClass;
     }
 
     static Buff getOrCreate() {
+        return getOrCreateImpl(0);
+    }
+
+    /**
+     * Buff from the smallest class holding capacity, or the largest class. Capacity is
+     * only a hint, callers must still check remaining.
+     */
+    static Buff getOrCreate(int capacity) {
+        return getOrCreateImpl(sizeClass(capacity));
+    }
+
+    static int sizeClass(int capacity) {
+        for (int i = 0; i < SIZES.length - 1; i++)
+            if (capacity <= SIZES[i])
+                return i;
+
+        return SIZES.length - 1;
+    }
+
+    private static Buff getOrCreateImpl(int sizeClass) {
         ThreadContext context = ThreadContext.get();
-        context.Buffs = InstanceCache.getOrCreateList(context.Buffs, _shared);
+        List<Buff> magazine = context.Buffs[sizeClass];
+
+        if (magazine == null || magazine.size() == 0) {
+            List<Buff> full = _depots[sizeClass].poll();
+
+            if (full != null) {
+                _depotSizes[sizeClass].decrementAndGet();
+
+                if (Debug.ENABLED)
+                    Debug.assertion(full.size() > 0);
+
+                context.Buffs[sizeClass] = magazine = full;
+            }
+        }
+
         Buff buff = null;
 
-        if (context.Buffs.size() != 0)
-            buff = context.Buffs.removeLast();
+        if (magazine != null && magazine.size() != 0)
+            buff = magazine.removeLast();
 
         if (buff == null) {
-            int capacity = LENGTH;
+            int capacity = SIZES[sizeClass];
 
             if (Debug.RANDOMIZE_TRANSFER_LENGTHS)
                 capacity = getLargestUnsplitable() + Platform.get().randomInt(80000);
 
             buff = Platform.get().newBuff(capacity, true);
+            buff._sizeClass = sizeClass;
+
+            if (Stats.ENABLED && sizeClass != 0)
+                Stats.Instance.BuffLarge.incrementAndGet();
         } else {
             if (Debug.ENABLED)
                 Debug.assertion(buff.get() == 0);
@@ -89,6 +156,9 @@ abstract class Buff extends AtomicInteger {
             buff.set(1);
         }
 
+        if (Stats.ENABLED)
+            Stats.Instance.BuffLive.incrementAndGet();
+
         if (Debug.THREADS)
             ThreadAssert.addPrivate(buff);
 
@@ -122,7 +192,7 @@ abstract class Buff extends AtomicInteger {
     final Buff duplicate() {
         if (Debug.ENABLED) {
             check(false);
-            InstanceCache.checkNotCached(ThreadContext.get().Buffs, _shared, this);
+            checkNotCached();
             Debug.assertion(remaining() > 0);
         }
 
@@ -151,6 +221,38 @@ abstract class Buff extends AtomicInteger {
         return duplicate;
     }
 
+    /**
+     * Duplicates for several readers, e.g. connections a block is broadcast to. Reference
+     * count is incremented once instead of once per duplicate.
+     */
+    final Buff[] duplicate(int count) {
+        if (Debug.ENABLED) {
+            check(false);
+            checkNotCached();
+            Debug.assertion(remaining() > 0);
+        }
+
+        Buff buff = _parent != null ? _parent : this;
+        Buff[] duplicates = new Buff[count];
+
+        for (int i = 0; i < count; i++) {
+            duplicates[i] = duplicateInternals(buff);
+
+            if (Debug.THREADS)
+                ThreadAssert.addPrivate(duplicates[i]);
+        }
+
+        if (Debug.ENABLED)
+            Debug.assertion(buff.get() > 0);
+
+        buff.addAndGet(count);
+
+        if (Debug.ENABLED)
+            check(false);
+
+        return duplicates;
+    }
+
     abstract Buff duplicateInternals(Buff parent);
 
     final void recycle() {
@@ -174,7 +276,7 @@ abstract class Buff extends AtomicInteger {
     private final void recycleImpl() {
         if (Debug.ENABLED) {
             Debug.assertion(get() > 0);
-            InstanceCache.checkNotCached(ThreadContext.get().Buffs, _shared, this);
+            checkNotCached();
         }
 
         if (decrementAndGet() == 0) {
@@ -187,12 +289,38 @@ abstract class Buff extends AtomicInteger {
                     Debug.assertion(previous != null);
                 }
 
+                if (Stats.ENABLED)
+                    Stats.Instance.BuffLive.decrementAndGet();
+
                 ThreadContext context = ThreadContext.get();
-                context.Buffs = InstanceCache.recycle(context.Buffs, _shared, this);
+                List<Buff> magazine = context.Buffs[_sizeClass];
+
+                if (magazine == null)
+                    context.Buffs[_sizeClass] = magazine = new List<Buff>();
+
+                magazine.add(this);
+
+                if (magazine.size() >= MAGAZINE) {
+                    context.Buffs[_sizeClass] = null;
+                    int max = Math.max(1, DEPOT_BYTES / (SIZES[_sizeClass] * MAGAZINE));
+
+                    if (_depotSizes[_sizeClass].incrementAndGet() <= max)
+                        _depots[_sizeClass].add(magazine);
+                    else {
+                        _depotSizes[_sizeClass].decrementAndGet();
+
+                        if (Stats.ENABLED)
+                            Stats.Instance.BuffDropped.addAndGet(magazine.size());
+                    }
+                }
             }
         }
     }
 
+    private final void checkNotCached() {
+        InstanceCache.checkNotCached(ThreadContext.get().Buffs[_sizeClass], _depots[_sizeClass], this);
+    }
+
     @Override
     public String toString() {
         return Platform.get().defaultToString(this);
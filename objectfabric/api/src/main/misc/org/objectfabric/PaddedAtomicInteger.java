@@ -0,0 +1,33 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counter CASed by many threads. Trailing fields keep it from sharing a cache line with
+ * fields of subclasses or objects allocated after it.
+ */
+@SuppressWarnings("serial")
+class PaddedAtomicInteger extends AtomicInteger {
+
+    long _p1, _p2, _p3, _p4, _p5, _p6, _p7;
+
+    PaddedAtomicInteger() {
+    }
+
+    PaddedAtomicInteger(int value) {
+        super(value);
+    }
+}
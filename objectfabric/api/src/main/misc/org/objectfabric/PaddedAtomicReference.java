@@ -0,0 +1,43 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Reference CASed by many threads. Stored in the middle of an array so that other
+ * elements keep it on its own cache line, whatever is allocated around.
+ */
+@SuppressWarnings("serial")
+final class PaddedAtomicReference<V> extends AtomicReferenceArray<V> {
+
+    // 64 bytes on each side even with compressed references
+    private static final int INDEX = 16;
+
+    PaddedAtomicReference() {
+        super(INDEX * 2);
+    }
+
+    final V get() {
+        return get(INDEX);
+    }
+
+    final void set(V value) {
+        set(INDEX, value);
+    }
+
+    final boolean compareAndSet(V expect, V update) {
+        return compareAndSet(INDEX, expect, update);
+    }
+}
@@ -143,6 +143,8 @@ abstract class Platform {
 
     abstract long approxTimeMs();
 
+    abstract long nanoTime();
+
     /*
      * Class
      */
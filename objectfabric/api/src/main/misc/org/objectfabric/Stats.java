@@ -16,7 +16,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 final class Stats {
 
-    // TODO export to JMX?
+    // Compiled out of release builds, see Metrics for counters available at runtime
 
     static final boolean ENABLED = false;
 
@@ -38,8 +38,16 @@ final class Stats {
 
     final AtomicLong TransactionRetriesMax = new AtomicLong();
 
+    final AtomicLong ValidationFilterHits = new AtomicLong();
+
+    final AtomicLong ValidationFilterMisses = new AtomicLong();
+
+    final AtomicLong WatchersContended = new AtomicLong();
+
     final AtomicLong Merged = new AtomicLong();
 
+    final AtomicLong MergedOnPublish = new AtomicLong();
+
     final AtomicLong MaxMapCount = new AtomicLong();
 
     final AtomicLong Put = new AtomicLong();
@@ -50,6 +58,8 @@ final class Stats {
 
     final AtomicLong BlockOverwritten = new AtomicLong();
 
+    final AtomicLong Checkpoints = new AtomicLong();
+
     final AtomicLong BlockReceived = new AtomicLong();
 
     final AtomicLong BlockRequestsSent = new AtomicLong();
@@ -62,6 +72,12 @@ final class Stats {
 
     final AtomicLong BuffCount = new AtomicLong();
 
+    final AtomicLong BuffLarge = new AtomicLong();
+
+    final AtomicLong BuffLive = new AtomicLong();
+
+    final AtomicLong BuffDropped = new AtomicLong();
+
     final AtomicLong ConnectionQueues = new AtomicLong();
 
     final AtomicLong BlockQueues = new AtomicLong();
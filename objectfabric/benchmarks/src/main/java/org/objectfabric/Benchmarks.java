@@ -0,0 +1,65 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs JMH suites for 1, 2, 4... threads up to the number of cores, or only for the
+ * count given with -t. Takes regular JMH options, e.g. a benchmark regex to run a
+ * subset. Results of all runs are written as JSON to the -rff file, or
+ * "jmh-result.json", so they can be compared across versions.
+ */
+public class Benchmarks {
+
+    public static final String DEFAULT_RESULT = "jmh-result.json";
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        ArrayList<Integer> threads = new ArrayList<Integer>();
+
+        if (options.getThreads().hasValue())
+            threads.add(options.getThreads().get());
+        else {
+            int cores = Runtime.getRuntime().availableProcessors();
+
+            for (int i = 1; i < cores; i *= 2)
+                threads.add(i);
+
+            threads.add(cores);
+        }
+
+        String file = options.getResult().hasValue() ? options.getResult().get() : DEFAULT_RESULT;
+        Collection<RunResult> results = new ArrayList<RunResult>();
+
+        for (int count : threads) {
+            Options run = new OptionsBuilder().parent(options).threads(count).build();
+            results.addAll(new Runner(run).run());
+        }
+
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, file).writeOut(results);
+        System.out.println("Results written to " + file);
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.concurrent.TimeUnit;
+
+import org.objectfabric.Resource.Block;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Ordering of blocks when a resource is loaded. Blocks are written in turn by a number
+ * of peers, each having seen the previous ones, and inserted in time order like known
+ * blocks are fetched.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class BlockOrderBenchmark {
+
+    static final int BLOCKS = 100000;
+
+    @Param({ "4", "64" })
+    public int peers;
+
+    private Block[] _blocks;
+
+    static {
+        JVMPlatform.loadClass();
+    }
+
+    @Setup
+    public void setup() {
+        int[] peers = new int[this.peers];
+
+        for (int i = 0; i < peers.length; i++)
+            peers[i] = Peer.get(new UID(Platform.get().newUID())).index();
+
+        _blocks = new Block[BLOCKS];
+        long[] loaded = new long[OpenMap.CAPACITY];
+
+        for (int i = 0; i < _blocks.length; i++) {
+            long tick = Tick.get(peers[i % peers.length], 1000000 + i);
+            long[] happenedBefore = new long[loaded.length];
+            Platform.arraycopy(loaded, 0, happenedBefore, 0, loaded.length);
+            _blocks[i] = new Block(tick, null, happenedBefore, null);
+            loaded = Tick.putMax(loaded, tick, true);
+        }
+    }
+
+    @Benchmark
+    public int insert() {
+        List<Block> list = new List<Block>();
+
+        for (int i = 0; i < _blocks.length; i++) {
+            int index = Resource.binarySearch(list, _blocks[i].Tick, _blocks[i].HappenedBefore);
+            list.add(index, _blocks[i]);
+        }
+
+        return list.size();
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Readers starting transactions while writers publish snapshots, to measure cache line
+ * conflicts between the Workspace snapshot reference and version maps counters. Runs 8
+ * threads by default, use e.g. "-tg 2,14" or "-tg 8,56" for 16 and 64 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Group)
+public class FalseSharingBenchmark {
+
+    Workspace Workspace;
+
+    TArrayLong Array;
+
+    long Sum;
+
+    final Runnable Write = new Runnable() {
+
+        @Override
+        public void run() {
+            Array.set(0, Array.get(0) + 1);
+        }
+    };
+
+    final Runnable Read = new Runnable() {
+
+        @Override
+        public void run() {
+            Sum = Array.get(0);
+        }
+    };
+
+    static {
+        JVMPlatform.loadClass();
+    }
+
+    @Setup
+    public void setup() {
+        Workspace = new JVMWorkspace();
+        Array = new TArrayLong(Workspace.open(""), 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Workspace.close();
+    }
+
+    @Benchmark
+    @Group("publish")
+    @GroupThreads(1)
+    public void write() {
+        Workspace.atomic(Write);
+    }
+
+    @Benchmark
+    @Group("publish")
+    @GroupThreads(7)
+    public long read() {
+        Workspace.atomicRead(Read);
+        return Sum;
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Encoding of known ticks sent to subscribers. Reconnect sends a resource's whole set to
+ * a new connection, update sends it again after one more block. Array is the format
+ * used with older peers, delta the one from Connection.KNOWN_DELTAS_VERSION. Encoded
+ * sizes are printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class KnownBenchmark {
+
+    static final int PEERS = 4;
+
+    @Param({ "100", "5000" })
+    public int ticks;
+
+    private long[] _ticks, _update;
+
+    private ImmutableWriter _writer;
+
+    private Buff _buff;
+
+    static {
+        JVMPlatform.loadClass();
+    }
+
+    @Setup
+    public void setup() {
+        int[] peers = new int[PEERS];
+
+        for (int i = 0; i < peers.length; i++)
+            peers[i] = Peer.get(new UID(Platform.get().newUID())).index();
+
+        // Clocks advance by roughly one per block
+        for (int i = 0; i < ticks; i++)
+            _ticks = Tick.add(_ticks, Tick.get(peers[i % PEERS], 1000000 + i));
+
+        _update = Tick.add(Platform.get().clone(_ticks), Tick.get(peers[0], 1000000 + ticks));
+        _writer = new ImmutableWriter(new List<Object>());
+        _buff = Buff.getOrCreate(Buff.SIZES[Buff.SIZES.length - 1]);
+        _writer.setBuff(_buff);
+
+        System.out.println();
+        System.out.println("Reconnect: array " + reconnectArray() + " bytes, delta " + reconnectDelta() + " bytes");
+        System.out.println("Update: array " + updateArray() + " bytes, delta " + updateDelta() + " bytes");
+    }
+
+    @TearDown
+    public void tearDown() {
+        _writer.setBuff(null);
+        _buff.recycle();
+    }
+
+    @Benchmark
+    public int reconnectArray() {
+        return writeArray(_ticks);
+    }
+
+    @Benchmark
+    public int reconnectDelta() {
+        return Serialization.encodeKnown(null, _ticks).length;
+    }
+
+    @Benchmark
+    public int updateArray() {
+        return writeArray(_update);
+    }
+
+    @Benchmark
+    public int updateDelta() {
+        return Serialization.encodeKnown(_ticks, _update).length;
+    }
+
+    private int writeArray(long[] ticks) {
+        _buff.position(0);
+        _buff.limit(_buff.capacity());
+        Serialization.writeTicks(_writer, ticks);
+
+        if (_writer.interrupted())
+            throw new IllegalStateException();
+
+        return _buff.position();
+    }
+}
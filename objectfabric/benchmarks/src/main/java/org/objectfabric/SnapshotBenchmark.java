@@ -0,0 +1,64 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Empty read transactions, to measure the cost of acquiring and releasing a snapshot
+ * alone. Threads all start transactions on the same last map, so throughput should grow
+ * linearly with thread count if watchers counts do not contend.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    private static final Runnable EMPTY = new Runnable() {
+
+        @Override
+        public void run() {
+        }
+    };
+
+    private Workspace _workspace;
+
+    static {
+        JVMPlatform.loadClass();
+    }
+
+    @Setup
+    public void setup() {
+        _workspace = new JVMWorkspace();
+    }
+
+    @TearDown
+    public void tearDown() {
+        _workspace.close();
+    }
+
+    @Benchmark
+    public void atomicRead() {
+        _workspace.atomicRead(EMPTY);
+    }
+}
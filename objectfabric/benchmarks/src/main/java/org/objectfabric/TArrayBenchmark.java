@@ -0,0 +1,72 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * TArrayLong set and get, each call running in its own implicit transaction. Range
+ * variants access the whole array in one call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TArrayBenchmark {
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        TArrayLong Array;
+
+        int Next;
+
+        final long[] Values = new long[WorkspaceState.ARRAY_LENGTH];
+
+        @Setup
+        public void setup(WorkspaceState state) {
+            Array = state.array();
+        }
+
+        final int nextIndex() {
+            return Next++ & (WorkspaceState.ARRAY_LENGTH - 1);
+        }
+    }
+
+    @Benchmark
+    public void set(ThreadState state) {
+        state.Array.set(state.nextIndex(), 42);
+    }
+
+    @Benchmark
+    public long get(ThreadState state) {
+        return state.Array.get(state.nextIndex());
+    }
+
+    @Benchmark
+    public void setRange(ThreadState state) {
+        state.Array.setRange(0, state.Values, 0, state.Values.length);
+    }
+
+    @Benchmark
+    public long[] getRange(ThreadState state) {
+        state.Array.getRange(0, state.Values, 0, state.Values.length);
+        return state.Values;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * TList appends and reads, each call running in its own implicit transaction, to compare
+ * with TArrayBenchmark set, setRange and get. Appends do not read the list so they do not conflict
+ * with HIGH contention. Lists are cleared regularly to bound memory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TListBenchmark {
+
+    static final int MAX_SIZE = 1 << 16;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        TList<Long> Elements;
+
+        TList<Long> Filled;
+
+        int Size, Next;
+
+        final Collection<Long> Values = new ArrayList<Long>();
+
+        @Setup
+        public void setup(WorkspaceState state) {
+            for (int i = 0; i < WorkspaceState.ARRAY_LENGTH; i++)
+                Values.add((long) i);
+
+            Elements = state.list();
+            Filled = new TList<Long>(state.Resource);
+            Filled.addAll(Values);
+        }
+
+        final void added(int count) {
+            Size += count;
+
+            if (Size >= MAX_SIZE) {
+                Size = 0;
+                Elements.clear();
+            }
+        }
+    }
+
+    @Benchmark
+    public void add(ThreadState state) {
+        state.Elements.add(42L);
+        state.added(1);
+    }
+
+    @Benchmark
+    public void addAll(ThreadState state) {
+        state.Elements.addAll(state.Values);
+        state.added(state.Values.size());
+    }
+
+    @Benchmark
+    public Long get(ThreadState state) {
+        return state.Filled.get(state.Next++ & (WorkspaceState.ARRAY_LENGTH - 1));
+    }
+}
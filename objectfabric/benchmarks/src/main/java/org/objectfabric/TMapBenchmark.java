@@ -0,0 +1,63 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * TMap put and get, each call running in its own implicit transaction.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TMapBenchmark {
+
+    static final int KEYS = 1024;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        TMap<Integer, Long> Map;
+
+        int Next;
+
+        @Setup
+        public void setup(WorkspaceState state) {
+            Map = state.map();
+
+            for (int i = 0; i < KEYS; i++)
+                Map.put(i, (long) i);
+        }
+
+        final Integer nextKey() {
+            return Next++ & (KEYS - 1);
+        }
+    }
+
+    @Benchmark
+    public void put(ThreadState state) {
+        state.Map.put(state.nextKey(), 42L);
+    }
+
+    @Benchmark
+    public Long get(ThreadState state) {
+        return state.Map.get(state.nextKey());
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * TMapLongLong against TMap<Long, Long> holding the same entries, each call running in its
+ * own implicit transaction. Keys are spread over the whole map so that lookups miss the
+ * cache, where boxed keys and entries cost an extra indirection each.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TMapLongLongBenchmark {
+
+    static final int BATCH = 100000;
+
+    @State(Scope.Benchmark)
+    public static class MapState {
+
+        @Param({ "10000000" })
+        public int entries;
+
+        Workspace Workspace;
+
+        TMapLongLong Primitive;
+
+        TMap<Long, Long> Boxed;
+
+        @Setup
+        public void setup() {
+            Workspace = new JVMWorkspace();
+            Resource resource = Workspace.open("");
+            Primitive = new TMapLongLong(resource);
+            Boxed = new TMap<Long, Long>(resource);
+
+            for (int start = 0; start < entries; start += BATCH) {
+                final int first = start, last = Math.min(start + BATCH, entries);
+
+                Workspace.atomic(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        for (int i = first; i < last; i++) {
+                            Primitive.put(i, i);
+                            Boxed.putOnly((long) i, (long) i);
+                        }
+                    }
+                });
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            Workspace.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        int Entries;
+
+        long Seed = 42;
+
+        @Setup
+        public void setup(MapState state) {
+            Entries = state.entries;
+        }
+
+        final long nextKey() {
+            Seed ^= Seed << 13;
+            Seed ^= Seed >>> 7;
+            Seed ^= Seed << 17;
+            return (Seed & Long.MAX_VALUE) % Entries;
+        }
+    }
+
+    @Benchmark
+    public long getPrimitive(MapState map, ThreadState state) {
+        return map.Primitive.get(state.nextKey());
+    }
+
+    @Benchmark
+    public Long getBoxed(MapState map, ThreadState state) {
+        return map.Boxed.get(state.nextKey());
+    }
+
+    @Benchmark
+    public void putPrimitive(MapState map, ThreadState state) {
+        map.Primitive.put(state.nextKey(), 42);
+    }
+
+    @Benchmark
+    public void putBoxed(MapState map, ThreadState state) {
+        map.Boxed.putOnly(state.nextKey(), 42L);
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of starting, validating and committing transactions. Each transaction reads and
+ * writes a few elements of an array, so with HIGH contention threads conflict and
+ * atomic() retries.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransactionBenchmark {
+
+    static final int ACCESSES = 4;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        TArrayLong Array;
+
+        Workspace Workspace;
+
+        long Sum;
+
+        final Runnable Increment = new Runnable() {
+
+            @Override
+            public void run() {
+                for (int i = 0; i < ACCESSES; i++)
+                    Array.set(i, Array.get(i) + 1);
+            }
+        };
+
+        final Runnable Read = new Runnable() {
+
+            @Override
+            public void run() {
+                long sum = 0;
+
+                for (int i = 0; i < ACCESSES; i++)
+                    sum += Array.get(i);
+
+                Sum = sum;
+            }
+        };
+
+        final Runnable Write = new Runnable() {
+
+            @Override
+            public void run() {
+                for (int i = 0; i < ACCESSES; i++)
+                    Array.set(i, i);
+            }
+        };
+
+        @Setup
+        public void setup(WorkspaceState state) {
+            Workspace = state.Workspace;
+            Array = state.array();
+        }
+    }
+
+    @Benchmark
+    public void atomic(ThreadState state) {
+        state.Workspace.atomic(state.Increment);
+    }
+
+    @Benchmark
+    public long atomicRead(ThreadState state) {
+        state.Workspace.atomicRead(state.Read);
+        return state.Sum;
+    }
+
+    @Benchmark
+    public void atomicWrite(ThreadState state) {
+        state.Workspace.atomicWrite(state.Write);
+    }
+}
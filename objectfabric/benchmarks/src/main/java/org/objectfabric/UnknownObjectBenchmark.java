@@ -0,0 +1,169 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Resolution of the code written before values of unknown types, e.g. in TMap entries.
+ * Chain is the instanceof sequence UnknownObjectSerializer used to go through for each
+ * value, code the current order, and write also encodes the value. MIXED alternates
+ * classes like keys and values of a map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class UnknownObjectBenchmark {
+
+    public static final String STRING = "STRING";
+
+    public static final String INTEGER = "INTEGER";
+
+    public static final String CHARACTER = "CHARACTER";
+
+    public static final String MIXED = "MIXED";
+
+    static final int VALUES = 64;
+
+    @Param({ STRING, INTEGER, CHARACTER, MIXED })
+    public String values;
+
+    private final Object[] _values = new Object[VALUES];
+
+    private int _index;
+
+    private ImmutableWriter _writer;
+
+    private Buff _buff;
+
+    static {
+        JVMPlatform.loadClass();
+    }
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < _values.length; i++) {
+            if (STRING.equals(values))
+                _values[i] = "key" + i;
+            else if (INTEGER.equals(values))
+                _values[i] = i;
+            else if (CHARACTER.equals(values))
+                _values[i] = (char) ('a' + i);
+            else {
+                switch (i % 4) {
+                    case 0:
+                        _values[i] = "key" + i;
+                        break;
+                    case 1:
+                        _values[i] = (long) i;
+                        break;
+                    case 2:
+                        _values[i] = (double) i;
+                        break;
+                    default:
+                        _values[i] = (char) ('a' + i);
+                        break;
+                }
+            }
+        }
+
+        _writer = new ImmutableWriter(new List<Object>());
+        _buff = Buff.getOrCreate();
+        _writer.setBuff(_buff);
+    }
+
+    @TearDown
+    public void tearDown() {
+        _writer.setBuff(null);
+        _buff.recycle();
+    }
+
+    private Object next() {
+        return _values[_index++ & (VALUES - 1)];
+    }
+
+    @Benchmark
+    public byte chain() {
+        return chain(next());
+    }
+
+    @Benchmark
+    public byte code() {
+        return UnknownObjectSerializer.code(next());
+    }
+
+    @Benchmark
+    public int write() {
+        _buff.position(0);
+        _buff.limit(_buff.capacity());
+        UnknownObjectSerializer.write(_writer, next());
+        return _buff.position();
+    }
+
+    private static byte chain(Object object) {
+        if (object instanceof TObject)
+            return (byte) Writer.VALUE_IS_TOBJECT;
+
+        if (object instanceof String)
+            return Immutable.STRING_INDEX;
+
+        if (object instanceof java.util.Date)
+            return Immutable.DATE_INDEX;
+
+        if (object instanceof byte[])
+            return Immutable.BINARY_INDEX;
+
+        if (object instanceof Integer)
+            return Immutable.INTEGER_INDEX;
+
+        if (object instanceof Long)
+            return Immutable.LONG_INDEX;
+
+        if (object instanceof Float)
+            return Immutable.FLOAT_INDEX;
+
+        if (object instanceof Double)
+            return Immutable.DOUBLE_INDEX;
+
+        if (object instanceof java.math.BigInteger)
+            return Immutable.BIG_INTEGER_INDEX;
+
+        if (object instanceof java.math.BigDecimal)
+            return Immutable.DECIMAL_INDEX;
+
+        if (object instanceof Boolean)
+            return Immutable.BOOLEAN_INDEX;
+
+        if (object instanceof Byte)
+            return Immutable.BYTE_INDEX;
+
+        if (object instanceof Short)
+            return Immutable.SHORT_INDEX;
+
+        if (object instanceof Character)
+            return Immutable.CHARACTER_INDEX;
+
+        return UnknownObjectSerializer.CUSTOM;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Workspace shared by all threads of a benchmark. With HIGH contention, threads work on
+ * the objects created here, with LOW contention each thread creates its own.
+ */
+@State(Scope.Benchmark)
+public class WorkspaceState {
+
+    public static final String LOW = "LOW";
+
+    public static final String HIGH = "HIGH";
+
+    public static final int ARRAY_LENGTH = 64;
+
+    @Param({ LOW, HIGH })
+    public String contention;
+
+    Workspace Workspace;
+
+    Resource Resource;
+
+    TArrayLong Array;
+
+    TMap<Integer, Long> Map;
+
+    Counter Counter;
+
+    TList<Long> Elements;
+
+    static {
+        JVMPlatform.loadClass();
+    }
+
+    @Setup
+    public void setup() {
+        Workspace = new JVMWorkspace();
+        Resource = Workspace.open("");
+        Array = new TArrayLong(Resource, ARRAY_LENGTH);
+        Map = new TMap<Integer, Long>(Resource);
+        Counter = new Counter(Resource);
+        Elements = new TList<Long>(Resource);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Workspace.close();
+    }
+
+    final boolean shared() {
+        return HIGH.equals(contention);
+    }
+
+    final TArrayLong array() {
+        return shared() ? Array : new TArrayLong(Resource, ARRAY_LENGTH);
+    }
+
+    final TMap<Integer, Long> map() {
+        return shared() ? Map : new TMap<Integer, Long>(Resource);
+    }
+
+    final Counter counter() {
+        return shared() ? Counter : new Counter(Resource);
+    }
+
+    final TList<Long> list() {
+        return shared() ? Elements : new TList<Long>(Resource);
+    }
+}
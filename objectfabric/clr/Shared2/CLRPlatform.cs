@@ -185,6 +185,11 @@ namespace ObjectFabric
             return _stopwatch.ElapsedMilliseconds;
         }
 
+        internal override long nanoTime()
+        {
+            return (long) (_stopwatch.ElapsedTicks * (1e9 / System.Diagnostics.Stopwatch.Frequency));
+        }
+
         // Debug
 
         internal override bool shallowEquals(object a, object b, Type c, string[] exceptions)
@@ -206,6 +206,8 @@ abstract class Platform {
 
     abstract long approxTimeMs();
 
+    abstract long nanoTime();
+
     /*
      * Class
      */
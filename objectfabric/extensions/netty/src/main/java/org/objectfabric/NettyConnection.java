@@ -59,7 +59,7 @@ class NettyConnection extends Connection {
         if (resumeRead()) {
             // TODO wrap if already a byte buffer
             while (buffer.readableBytes() != 0) {
-                JVMBuff buff = (JVMBuff) Buff.getOrCreate();
+                JVMBuff buff = (JVMBuff) Buff.getOrCreate(Buff.getLargestUnsplitable() + buffer.readableBytes());
 
                 // To put remaining from last buffer
                 buff.position(Buff.getLargestUnsplitable());
@@ -16,12 +16,20 @@ import java.io.File;
 
 public class SQLite extends Origin implements URIHandler {
 
+    /**
+     * Values of SQLite's synchronous setting. Databases are opened in WAL mode, where
+     * NORMAL can lose the last commits on power loss but never corrupts the file.
+     */
+    public static final int SYNCHRONOUS_OFF = 0, SYNCHRONOUS_NORMAL = 1, SYNCHRONOUS_FULL = 2;
+
     static {
         JVMPlatform.loadClass();
     }
 
     private final File _file;
 
+    private final int _synchronous;
+
     private final SQLiteQueue _queue;
 
     private final SQLiteLoop _readers;
@@ -37,12 +45,20 @@ public class SQLite extends Origin implements URIHandler {
     }
 
     public SQLite(File file, boolean cache, int readers) {
+        this(file, cache, readers, SYNCHRONOUS_FULL);
+    }
+
+    public SQLite(File file, boolean cache, int readers, int synchronous) {
         super(cache);
 
         if (Debug.PERSISTENCE_LOG)
             Log.write("SQLite opened");
 
+        if (synchronous < SYNCHRONOUS_OFF || synchronous > SYNCHRONOUS_FULL)
+            throw new IllegalArgumentException();
+
         _file = file;
+        _synchronous = synchronous;
         _file.getParentFile().mkdirs();
         _queue = new SQLiteQueue(this);
         _readers = new SQLiteLoop(this, readers, false);
@@ -53,6 +69,10 @@ public class SQLite extends Origin implements URIHandler {
         return _file;
     }
 
+    public final int synchronous() {
+        return _synchronous;
+    }
+
     public void close() {
         _queue.requestClose(null);
         _readers.close();
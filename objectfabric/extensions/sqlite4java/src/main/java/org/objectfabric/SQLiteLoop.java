@@ -13,6 +13,7 @@
 package org.objectfabric;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -24,12 +25,29 @@ final class SQLiteLoop {
 
     private static final int MAX_BATCH = 100; // TODO tune
 
+    /*
+     * Blocks written per transaction are also bounded by size, and a transaction is
+     * committed after some time even if queries keep coming, so acks are not delayed.
+     */
+    static final int MAX_BATCH_BYTES = 4 << 20;
+
+    private static final long MAX_TRANSACTION_NANOS = 100 * 1000000L;
+
+    private static final int MAX_READS = 256;
+
     static abstract class Query {
 
         int statements() {
             return 1;
         }
 
+        /**
+         * Set for block reads, c.f. Run.read.
+         */
+        SQLiteView view() {
+            return null;
+        }
+
         abstract void run(SQLiteConnection db) throws SQLiteException;
 
         void ack() {
@@ -105,12 +123,14 @@ final class SQLiteLoop {
         public void run() {
             SQLiteConnection db = new SQLiteConnection(_location.file());
             List<Query> toAck = new List<Query>();
+            HashMap<SQLiteView, List<Query>> reads = new HashMap<SQLiteView, List<Query>>();
 
             try {
                 db.open(true);
 
                 for (;;) {
                     try {
+                        db.exec(Shared.WAL);
                         db.exec(Shared.INIT);
                         break;
                     } catch (SQLiteBusyException e) {
@@ -118,11 +138,13 @@ final class SQLiteLoop {
                     }
                 }
 
+                db.exec(Shared.SYNCHRONOUS + _location.synchronous());
+
                 while (_running) {
                     Query query = _queue.take();
 
                     if (_ongoing == null)
-                        query.run(db);
+                        read(db, query, reads);
                     else {
                         if (_walks.size() == 0) {
                             /*
@@ -136,9 +158,15 @@ final class SQLiteLoop {
                                 Debug.assertion(toAck.size() == 0);
                         }
 
+                        long start = System.nanoTime();
+
                         while (query != null) {
                             query.run(db);
                             toAck.add(query);
+
+                            if (System.nanoTime() - start > MAX_TRANSACTION_NANOS)
+                                break;
+
                             query = _queue.poll();
                         }
 
@@ -173,5 +201,35 @@ final class SQLiteLoop {
                 db.dispose();
             }
         }
+
+        /**
+         * Runs queued queries, except block reads which are grouped by view so each
+         * view can load them with as few statements as possible.
+         */
+        private final void read(SQLiteConnection db, Query query, HashMap<SQLiteView, List<Query>> reads) throws SQLiteException {
+            int count = 0;
+
+            while (query != null) {
+                SQLiteView view = query.view();
+
+                if (view == null)
+                    query.run(db);
+                else {
+                    List<Query> list = reads.get(view);
+
+                    if (list == null)
+                        reads.put(view, list = new List<Query>());
+
+                    list.add(query);
+                }
+
+                query = ++count < MAX_READS ? _queue.poll() : null;
+            }
+
+            for (Map.Entry<SQLiteView, List<Query>> entry : reads.entrySet())
+                entry.getKey().read(db, entry.getValue());
+
+            reads.clear();
+        }
     }
 }
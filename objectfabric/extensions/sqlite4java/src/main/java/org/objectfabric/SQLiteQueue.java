@@ -66,8 +66,9 @@ final class SQLiteQueue extends BlockQueue implements Runnable {
             runMessages(false);
             final List<Block> list = new List<Block>();
             int room = _location.writer().room();
+            int bytes = 0;
 
-            for (int i = 0; i < room; i++) {
+            for (int i = 0; i < room && bytes < SQLiteLoop.MAX_BATCH_BYTES; i++) {
                 Block block = nextBlock();
 
                 if (block == null)
@@ -75,9 +76,12 @@ final class SQLiteQueue extends BlockQueue implements Runnable {
 
                 list.add(block);
 
-                if (Debug.THREADS)
-                    for (int t = 0; t < block.Buffs.length; t++)
+                for (int t = 0; t < block.Buffs.length; t++) {
+                    bytes += block.Buffs[t].remaining();
+
+                    if (Debug.THREADS)
                         ThreadAssert.exchangeGive(block, block.Buffs[t]);
+                }
             }
 
             if (list.size() > 0) {
@@ -132,6 +136,7 @@ final class SQLiteQueue extends BlockQueue implements Runnable {
 
         SQLiteView view = (SQLiteView) uri.getOrCreate(_location);
         SQLiteStatement st = db.prepare(Shared.REPLACE_BLOCK);
+        long start = Metrics.start();
 
         try {
             st.bind(1, view.sha1());
@@ -158,6 +163,8 @@ final class SQLiteQueue extends BlockQueue implements Runnable {
             st.dispose();
         }
 
+        Metrics.onBlockWrite(start, 1);
+
         if (removals != null)
             for (int i = 0; i < removals.length; i++)
                 if (!Tick.isNull(removals[i]))
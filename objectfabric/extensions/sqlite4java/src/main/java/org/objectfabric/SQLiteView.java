@@ -12,6 +12,8 @@
 
 package org.objectfabric;
 
+import java.util.Arrays;
+
 import org.objectfabric.SQLiteLoop.Query;
 
 import com.almworks.sqlite4java.SQLiteConnection;
@@ -96,83 +98,174 @@ final class SQLiteView extends ArrayView {
     }
 
     @Override
-    void getBlock(final URI uri, final long tick) {
+    final boolean mayHave(long tick) {
+        return contains(tick);
+    }
+
+    @Override
+    void getBlock(URI uri, long tick) {
         if (!contains(tick))
             return;
 
-        db().readers().add(new Query() {
+        db().readers().add(new BlockRead(uri, tick));
+    }
 
-            @Override
-            void run(SQLiteConnection db) throws SQLiteException {
-                if (Debug.PERSISTENCE_LOG)
-                    Log.write("SQLite read block " + uri + " - " + Tick.toString(tick));
-
-                if (Stats.ENABLED)
-                    Stats.Instance.BlockReadCount.incrementAndGet();
-
-                if (InFlight.starting(uri, tick)) {
-                    SQLiteStatement st = db.prepare(Shared.SELECT_BLOCK);
-                    List<JVMBuff> list = new List<JVMBuff>();
-
-                    try {
-                        st.bind(1, _sha1);
-                        st.bind(2, Tick.time(tick));
-                        st.bind(3, Peer.get(Tick.peer(tick)).uid());
-
-                        if (st.step()) {
-                            byte[] block = st.columnBlob(0);
-
-                            JVMBuff buff = JVMBuff.getWithPosition(0);
-                            int offset = 0;
-
-                            for (;;) {
-                                int length = Math.min(buff.remaining(), block.length - offset);
-                                buff.putImmutably(block, offset, length);
-                                offset += length;
-                                buff.limit(buff.position() + length);
-                                list.add(buff);
-
-                                if (offset == block.length)
-                                    break;
-
-                                buff = JVMBuff.getWithPosition(Buff.getLargestUnsplitable());
-                            }
-                        }
-                    } finally {
-                        st.dispose();
-                    }
+    private final class BlockRead extends Query {
+
+        final URI URI;
+
+        final long Tick;
+
+        BlockRead(URI uri, long tick) {
+            URI = uri;
+            Tick = tick;
+        }
+
+        @Override
+        SQLiteView view() {
+            return SQLiteView.this;
+        }
+
+        @Override
+        void run(SQLiteConnection db) throws SQLiteException {
+            List<Query> list = new List<Query>();
+            list.add(this);
+            read(db, list);
+        }
+    }
+
+    /**
+     * Reads blocks requested for this view. Opening a resource requests all its blocks at
+     * once, so they are loaded by batches instead of one statement each.
+     */
+    final void read(SQLiteConnection db, List<Query> queries) throws SQLiteException {
+        List<BlockRead> reads = new List<BlockRead>();
+
+        for (int i = 0; i < queries.size(); i++) {
+            BlockRead read = (BlockRead) queries.get(i);
+
+            if (Debug.PERSISTENCE_LOG)
+                Log.write("SQLite read block " + read.URI + " - " + Tick.toString(read.Tick));
+
+            if (Stats.ENABLED)
+                Stats.Instance.BlockReadCount.incrementAndGet();
+
+            if (InFlight.starting(read.URI, read.Tick))
+                reads.add(read);
+        }
+
+        for (int i = 0; i < reads.size(); i += Shared.SELECT_BLOCKS_COUNT) {
+            int count = Math.min(reads.size() - i, Shared.SELECT_BLOCKS_COUNT);
+
+            if (count == 1)
+                read(db, reads.get(i));
+            else
+                read(db, reads, i, count);
+        }
+    }
+
+    private final void read(SQLiteConnection db, BlockRead read) throws SQLiteException {
+        SQLiteStatement st = db.prepare(Shared.SELECT_BLOCK);
+        long start = Metrics.start();
+        byte[] block = null;
 
-                    if (list.size() > 0) {
-                        JVMBuff[] buffs = new JVMBuff[list.size()];
-                        list.copyToFixed(buffs);
+        try {
+            st.bind(1, _sha1);
+            st.bind(2, Tick.time(read.Tick));
+            st.bind(3, Peer.get(Tick.peer(read.Tick)).uid());
+
+            if (st.step())
+                block = st.columnBlob(0);
+        } finally {
+            st.dispose();
+        }
+
+        if (block != null) {
+            Metrics.onBlockRead(start);
+            onRead(read.URI, read.Tick, block);
+        }
+    }
 
-                        if (Debug.ENABLED) {
-                            for (int i = 0; i < buffs.length; i++) {
-                                buffs[i].lock(buffs[i].limit());
+    private final void read(SQLiteConnection db, List<BlockRead> reads, int offset, int count) throws SQLiteException {
+        SQLiteStatement st = db.prepare(Shared.SELECT_BLOCKS);
+        long start = Metrics.start();
+        List<BlockRead> found = new List<BlockRead>();
+        List<byte[]> blocks = new List<byte[]>();
 
-                                if (Debug.THREADS)
-                                    ThreadAssert.exchangeGive(buffs, buffs[i]);
-                            }
-                        }
+        try {
+            st.bind(1, _sha1);
 
-                        Exception exception = uri.onBlock(SQLiteView.this, tick, buffs, null, true, null, false, null);
+            for (int i = 0; i < Shared.SELECT_BLOCKS_COUNT; i++)
+                st.bind(2 + i, Tick.time(reads.get(offset + Math.min(i, count - 1)).Tick));
 
-                        if (Debug.THREADS)
-                            ThreadAssert.exchangeTake(buffs);
+            while (st.step()) {
+                long time = st.columnLong(0);
+                byte[] peer = st.columnBlob(1);
 
-                        if (exception != null) {
-                            // TODO make sure exception is related to parsing
-                            Log.write("Corrupted block " + exception.toString());
-                            // TODO Make option or callback to clean corrupted
-                            // file.delete();
-                        }
+                for (int i = offset; i < offset + count; i++) {
+                    BlockRead read = reads.get(i);
 
-                        for (int i = 0; i < buffs.length; i++)
-                            buffs[i].recycle();
+                    if (Tick.time(read.Tick) == time && Arrays.equals(Peer.get(Tick.peer(read.Tick)).uid(), peer)) {
+                        found.add(read);
+                        blocks.add(st.columnBlob(2));
+                        break;
                     }
                 }
             }
-        });
+        } finally {
+            st.dispose();
+        }
+
+        for (int i = 0; i < found.size(); i++) {
+            Metrics.onBlockRead(start);
+            onRead(found.get(i).URI, found.get(i).Tick, blocks.get(i));
+        }
+    }
+
+    private final void onRead(URI uri, long tick, byte[] block) {
+        List<JVMBuff> list = new List<JVMBuff>();
+        JVMBuff buff = JVMBuff.getWithPosition(0, block.length);
+        int offset = 0;
+
+        for (;;) {
+            int length = Math.min(buff.remaining(), block.length - offset);
+            buff.putImmutably(block, offset, length);
+            offset += length;
+            buff.limit(buff.position() + length);
+            list.add(buff);
+
+            if (offset == block.length)
+                break;
+
+            buff = JVMBuff.getWithPosition(Buff.getLargestUnsplitable(), block.length - offset);
+        }
+
+        JVMBuff[] buffs = new JVMBuff[list.size()];
+        list.copyToFixed(buffs);
+
+        if (Debug.ENABLED) {
+            for (int i = 0; i < buffs.length; i++) {
+                buffs[i].lock(buffs[i].limit());
+
+                if (Debug.THREADS)
+                    ThreadAssert.exchangeGive(buffs, buffs[i]);
+            }
+        }
+
+        Exception exception = uri.onBlock(this, tick, buffs, null, true, null, false, null);
+
+        if (Debug.THREADS)
+            ThreadAssert.exchangeTake(buffs);
+
+        if (exception != null) {
+            // TODO make sure exception is related to parsing
+            Log.write("Corrupted block " + exception.toString());
+            // TODO Make option or callback to clean corrupted
+            // file.delete();
+        }
+
+        for (int i = 0; i < buffs.length; i++)
+            buffs[i].recycle();
     }
 
     @Override
@@ -24,10 +24,22 @@ final class Shared {
             "CREATE UNIQUE INDEX IF NOT EXISTS " + BLOCKS + "_index ON " + BLOCKS + " (sha1, time, peer);" + //
             "CREATE TABLE IF NOT EXISTS " + CLOCKS + " (peer BLOB NOT NULL PRIMARY KEY, time INTEGER NOT NULL, object INTEGER NOT NULL)";
 
+    static final String WAL = "PRAGMA journal_mode=WAL";
+
+    static final String SYNCHRONOUS = "PRAGMA synchronous=";
+
     static final String LIST_BLOCKS = "SELECT time, peer FROM " + BLOCKS + " WHERE sha1=?";
 
     static final String SELECT_BLOCK = "SELECT block FROM " + BLOCKS + " WHERE sha1=? AND time=? AND peer=?";
 
+    /**
+     * Unused parameters are bound to a repeated time so that all batches share one
+     * prepared statement. Rows from peers not requested are skipped.
+     */
+    static final int SELECT_BLOCKS_COUNT = 32;
+
+    static final String SELECT_BLOCKS;
+
     static final String REPLACE_BLOCK = "REPLACE INTO " + BLOCKS + " VALUES (?, ?, ?, ?)";
 
     static final String DELETE_BLOCK = "DELETE FROM " + BLOCKS + " WHERE sha1=? AND time=? AND peer=?";
@@ -37,4 +49,13 @@ final class Shared {
     static final String SELECT_CLOCKS = "SELECT * FROM " + CLOCKS;
 
     static final String REPLACE_CLOCK = "REPLACE INTO " + CLOCKS + " VALUES (?, ?, ?)";
+
+    static {
+        StringBuilder sb = new StringBuilder("SELECT time, peer, block FROM " + BLOCKS + " WHERE sha1=? AND time IN (?");
+
+        for (int i = 1; i < SELECT_BLOCKS_COUNT; i++)
+            sb.append(", ?");
+
+        SELECT_BLOCKS = sb.append(")").toString();
+    }
 }
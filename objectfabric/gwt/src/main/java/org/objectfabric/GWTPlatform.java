@@ -277,6 +277,11 @@ class GWTPlatform extends Platform {
         return System.currentTimeMillis();
     }
 
+    @Override
+    long nanoTime() {
+        return System.currentTimeMillis() * 1000000;
+    }
+
     @Override
     String simpleName(Class c) {
         String name = c.getName();
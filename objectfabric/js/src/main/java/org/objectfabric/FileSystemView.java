@@ -158,6 +158,11 @@ final class FileSystemView extends ArrayView { // TODO share stuff with JVM
         onLoad(uri, ticks, compare);
     }
 
+    @Override
+    boolean mayHave(long tick) {
+        return contains(tick);
+    }
+
     @Override
     void getBlock(URI uri, long tick) {
         if (contains(tick) && _folder != null) {
@@ -33,9 +33,16 @@ public class FileSystem extends Origin implements URIHandler {
 
     private final File _root;
 
-    private final FileSystemQueue _queue = new FileSystemQueue(this);
+    private final FileSystemQueue _queue;
 
     public FileSystem(String root) {
+        this(root, true);
+    }
+
+    /**
+     * Subclasses can store versions differently, e.g. SegmentLog.
+     */
+    FileSystem(String root, boolean files) {
         super(false);
 
         _rootPath = root;
@@ -56,6 +63,12 @@ public class FileSystem extends Origin implements URIHandler {
         } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
+
+        _queue = files ? new FileSystemQueue(this) : null;
+    }
+
+    final File root() {
+        return _root;
     }
 
     @Override
@@ -64,7 +77,7 @@ public class FileSystem extends Origin implements URIHandler {
     }
 
     @Override
-    final View newView(URI uri) {
+    View newView(URI uri) {
         try {
             File file = new File(_root, uri.path()).getCanonicalFile();
 
@@ -86,7 +99,7 @@ public class FileSystem extends Origin implements URIHandler {
 
     // Debug
 
-    final void close() {
+    void close() {
         final AtomicBoolean done = new AtomicBoolean();
 
         _queue.requestClose(new Callback() {
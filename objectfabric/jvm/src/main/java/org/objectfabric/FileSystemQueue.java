@@ -27,7 +27,7 @@ final class FileSystemQueue extends BlockQueue implements Runnable {
 
     private final Location _location;
 
-    private final ConcurrentHashMap<String, Object> _ongoing = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentHashMap<String, FutureWithCallbacks<Void>> _ongoing = new ConcurrentHashMap<String, FutureWithCallbacks<Void>>();
 
     FileSystemQueue(Location location) {
         _location = location;
@@ -58,7 +58,10 @@ final class FileSystemQueue extends BlockQueue implements Runnable {
         super.onClose(callback);
     }
 
-    final ConcurrentHashMap<String, Object> ongoing() {
+    /**
+     * Writes in progress by file path, set when file is complete.
+     */
+    final ConcurrentHashMap<String, FutureWithCallbacks<Void>> ongoing() {
         return _ongoing;
     }
 
@@ -86,7 +89,8 @@ final class FileSystemQueue extends BlockQueue implements Runnable {
 
                 final FileSystemView view = (FileSystemView) block.URI.getOrCreate(_location);
                 final File file = new File(view.folder(), Utils.getTickHex(block.Tick));
-                final Object write = new Object();
+                @SuppressWarnings("unchecked")
+                final FutureWithCallbacks<Void> write = new FutureWithCallbacks<Void>(FutureWithCallback.NOP_CALLBACK, null);
                 _ongoing.put(file.getPath(), write);
 
                 if (Debug.THREADS)
@@ -108,7 +112,9 @@ final class FileSystemQueue extends BlockQueue implements Runnable {
                         if (Debug.THREADS)
                             ThreadAssert.exchangeTake(block.Buffs);
 
+                        long start = Metrics.start();
                         boolean ok = write(view, file, block.Buffs, block.Removals);
+                        Metrics.onBlockWrite(start, 1);
 
                         if (ok) {
                             block.URI.onAck(view, block.Tick);
@@ -116,6 +122,7 @@ final class FileSystemQueue extends BlockQueue implements Runnable {
                         }
 
                         _ongoing.remove(file.getPath(), write);
+                        write.set(null);
 
                         // In case blocks left in queue
                         requestRun();
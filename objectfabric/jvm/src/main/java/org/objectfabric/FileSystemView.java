@@ -17,6 +17,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 
 final class FileSystemView extends ArrayView {
 
@@ -93,126 +94,116 @@ final class FileSystemView extends ArrayView {
         });
     }
 
+    @Override
+    final boolean mayHave(long tick) {
+        return contains(tick);
+    }
+
     @Override
     void getBlock(final URI uri, final long tick) {
         if (!contains(tick))
             return;
 
-        ThreadPool.getInstance().execute(new Runnable() {
+        ThreadPool.getReads().execute(new Runnable() {
 
             @Override
             public void run() {
-                if (InFlight.starting(uri, tick)) {
-                    File file = new File(_folder, Utils.getTickHex(tick));
-
-                    if (Debug.PERSISTENCE_LOG)
-                        Log.write("File read " + file.getPath());
-
-                    List<JVMBuff> list = new List<JVMBuff>();
-                    RandomAccessFile raf = null;
-                    JVMBuff[] buffs = null;
-                    Exception ex = null;
-
-                    try {
-                        raf = new RandomAccessFile(file, "r");
-                        FileChannel channel = raf.getChannel();
-
-                        // If file exists and a write is ongoing, wait
-                        while (_queue.ongoing().containsKey(file.getPath())) {
-                            int todo;
-                            Log.write("Waiting on file read!");
-                            Platform.get().sleep(1);
-                        }
-
-                        // TODO lock file for multi-process?
-                        // if (channel.tryLock(0, Long.MAX_VALUE, true) != null) {
-                        JVMBuff buff = JVMBuff.getWithPosition(0);
-                        int position = buff.position();
-                        int offset = 0;
-
-                        for (;;) {
-                            int read = channel.read(buff.getByteBuffer(), offset);
-
-                            if (read < 0) {
-                                if (buff.position() > position) {
-                                    buff.limit(buff.position());
-                                    buff.position(position);
-                                    buff.mark();
-                                    list.add(buff);
-                                } else {
-                                    if (Debug.ENABLED)
-                                        buff.lock(0);
-
-                                    buff.recycle();
-                                }
-
-                                break;
-                            } else if (buff.remaining() == 0) {
-                                buff.position(position);
-                                buff.mark();
-                                list.add(buff);
-                                buff = JVMBuff.getWithPosition(Buff.getLargestUnsplitable());
-                                position = buff.position();
-                            }
-
-                            offset += read;
-                        }
-
-                        buffs = new JVMBuff[list.size()];
-                        list.copyToFixed(buffs);
-
-                        if (Debug.ENABLED)
-                            for (int i = 0; i < buffs.length; i++)
-                                buffs[i].lock(buffs[i].limit());
-                        // }
-                    } catch (Exception e) {
-                        ex = e;
-                    } finally {
-                        try {
-                            // Closes channel & lock
-                            if (raf != null)
-                                raf.close();
-                        } catch (IOException _) {
-                            // Ignore
-                        }
-                    }
-
-                    if (Stats.ENABLED)
-                        Stats.Instance.BlockReadCount.incrementAndGet();
-
-                    if (buffs != null) {
-                        if (Debug.RANDOMIZE_FILE_LOAD_ORDER)
-                            Platform.get().sleep(Platform.get().randomInt(100));
-
-                        if (Debug.THREADS)
-                            for (int i = 0; i < buffs.length; i++)
-                                ThreadAssert.exchangeGive(buffs, buffs[i]);
-
-                        if (buffs.length > 0) {
-                            Exception exception = uri.onBlock(FileSystemView.this, tick, buffs, null, true, null, false, null);
-
-                            if (Debug.THREADS)
-                                ThreadAssert.exchangeTake(buffs);
-
-                            if (exception != null) {
-                                // TODO make sure exception is related to parsing
-                                Log.write("Corrupted file " + file + ": " + exception.toString());
-                                // TODO Make option or callback to clean corrupted
-                                // file.delete();
-                            }
-                        }
-                    }
-
-                    if (ex != null && !(ex instanceof FileNotFoundException))
-                        Log.write(ex);
-
-                    for (int i = 0; i < list.size(); i++)
-                        list.get(i).recycle();
-                }
+                if (InFlight.starting(uri, tick))
+                    read(uri, tick);
             }
         });
     }
 
+    /**
+     * Maps the file and passes it as one buff, with no copy. Files are only written
+     * once, so mapping is safe unless a write is ongoing, in which case read resumes
+     * when it completes.
+     */
+    private final void read(final URI uri, final long tick) {
+        File file = new File(_folder, Utils.getTickHex(tick));
+        FutureWithCallbacks<Void> write = _queue.ongoing().get(file.getPath());
+
+        if (write != null) {
+            write.addCallback(new AsyncCallback<Void>() {
+
+                @Override
+                public void onSuccess(Void result) {
+                    read(uri, tick);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    read(uri, tick);
+                }
+            }, ThreadPool.getInstance());
+
+            return;
+        }
+
+        if (Debug.PERSISTENCE_LOG)
+            Log.write("File read " + file.getPath());
+
+        RandomAccessFile raf = null;
+        JVMBuff buff = null;
+        Exception ex = null;
+        long start = Metrics.start();
+
+        try {
+            raf = new RandomAccessFile(file, "r");
+            FileChannel channel = raf.getChannel();
+
+            // TODO lock file for multi-process?
+            long size = channel.size();
+
+            if (size > 0) {
+                buff = JVMBuff.map(channel.map(MapMode.READ_ONLY, 0, size));
+                buff.mark();
+            }
+        } catch (Exception e) {
+            ex = e;
+        } finally {
+            try {
+                // Mapping stays valid after close
+                if (raf != null)
+                    raf.close();
+            } catch (IOException _) {
+                // Ignore
+            }
+        }
+
+        Metrics.onBlockRead(start);
+
+        if (Stats.ENABLED)
+            Stats.Instance.BlockReadCount.incrementAndGet();
+
+        if (buff != null) {
+            if (Debug.RANDOMIZE_FILE_LOAD_ORDER)
+                Platform.get().sleep(Platform.get().randomInt(100));
+
+            JVMBuff[] buffs = new JVMBuff[] { buff };
+
+            if (Debug.THREADS)
+                ThreadAssert.exchangeGive(buffs, buff);
+
+            Exception exception = uri.onBlock(this, tick, buffs, null, true, null, false, null);
+
+            if (Debug.THREADS)
+                ThreadAssert.exchangeTake(buffs);
+
+            if (exception != null) {
+                // TODO make sure exception is related to parsing
+                Log.write("Corrupted file " + file + ": " + exception.toString());
+                // TODO Make option or callback to clean corrupted
+                // file.delete();
+            }
+
+            buff.recycle();
+        }
+
+        if (ex != null && !(ex instanceof FileNotFoundException))
+            Log.write(ex);
+    }
+
     @Override
     final void onBlock(URI uri, long tick, Buff[] buffs, long[] removals, boolean requested) {
         _queue.enqueueBlock(uri, tick, buffs, removals, requested);
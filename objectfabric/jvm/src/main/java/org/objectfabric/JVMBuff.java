@@ -16,6 +16,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 
 @SuppressWarnings("serial")
 class JVMBuff extends Buff {
@@ -23,11 +24,14 @@ class JVMBuff extends Buff {
     // TODO x86 specific version with Unsafe?
     private final ByteBuffer _buffer;
 
+    private final boolean _mapped;
+
     JVMBuff(int capacity, boolean recycle) {
         super(recycle);
 
         _buffer = ByteBuffer.allocateDirect(capacity);
         _buffer.order(ByteOrder.LITTLE_ENDIAN);
+        _mapped = false;
     }
 
     private JVMBuff(Buff parent, ByteBuffer buffer) {
@@ -35,10 +39,39 @@ class JVMBuff extends Buff {
 
         _buffer = buffer;
         _buffer.order(ByteOrder.LITTLE_ENDIAN);
+        _mapped = false;
+    }
+
+    private JVMBuff(MappedByteBuffer buffer) {
+        super(false);
+
+        _buffer = buffer;
+        _buffer.order(ByteOrder.LITTLE_ENDIAN);
+        _mapped = true;
+    }
+
+    /**
+     * Wraps a read-only file mapping. Not pooled, unmapped when last duplicate is
+     * recycled.
+     */
+    static JVMBuff map(MappedByteBuffer buffer) {
+        JVMBuff buff = new JVMBuff(buffer);
+
+        if (Debug.THREADS)
+            ThreadAssert.addPrivate(buff);
+
+        return buff;
     }
 
     static JVMBuff getWithPosition(int position) {
-        JVMBuff buff = (JVMBuff) Buff.getOrCreate();
+        return getWithPosition(position, 0);
+    }
+
+    /**
+     * Length is a hint to pick the size class.
+     */
+    static JVMBuff getWithPosition(int position, int length) {
+        JVMBuff buff = (JVMBuff) Buff.getOrCreate(position + length);
         buff.position(position);
 
         if (Debug.RANDOMIZE_TRANSFER_LENGTHS) {
@@ -64,18 +97,30 @@ class JVMBuff extends Buff {
         return _buffer;
     }
 
+    final boolean mapped() {
+        return _mapped;
+    }
+
     @Override
     final void destroy() {
         // TODO something better
         try {
-            Field field = _buffer.getClass().getDeclaredField("cleaner");
+            // Read-only mappings are a subclass of the direct buffer declaring cleaner
+            Class<?> c = _buffer.getClass();
+
+            while (_mapped && c.getSuperclass() != ByteBuffer.class && c.getSuperclass() != MappedByteBuffer.class)
+                c = c.getSuperclass();
+
+            Field field = c.getDeclaredField("cleaner");
             field.setAccessible(true);
             Object cleaner = field.get(_buffer);
             Method method = cleaner.getClass().getMethod("clean");
             method.setAccessible(true);
             method.invoke(cleaner);
         } catch (Exception e) {
-            Log.write(e);
+            // Mappings are also released by GC
+            if (!_mapped)
+                Log.write(e);
         }
     }
 
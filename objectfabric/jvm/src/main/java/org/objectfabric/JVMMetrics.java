@@ -0,0 +1,141 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes {@link Metrics} as MBean "org.objectfabric:type=Metrics" on the platform
+ * server. Metrics can then be enabled and read from e.g. JConsole.
+ */
+public final class JVMMetrics implements MetricsMXBean {
+
+    public static final String NAME = "org.objectfabric:type=Metrics";
+
+    static {
+        JVMPlatform.loadClass();
+    }
+
+    private JVMMetrics() {
+    }
+
+    public static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            server.registerMBean(new JVMMetrics(), new ObjectName(NAME));
+        } catch (InstanceAlreadyExistsException _) {
+            // Ignore
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public static void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            server.unregisterMBean(new ObjectName(NAME));
+        } catch (InstanceNotFoundException _) {
+            // Ignore
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return Metrics.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean value) {
+        Metrics.setEnabled(value);
+    }
+
+    @Override
+    public long getCommitted() {
+        return Metrics.Instance.committed();
+    }
+
+    @Override
+    public long getAborted() {
+        return Metrics.Instance.aborted();
+    }
+
+    @Override
+    public long getValidationRetries() {
+        return Metrics.Instance.validationRetries();
+    }
+
+    @Override
+    public long getBlockReads() {
+        return Metrics.Instance.blockReads();
+    }
+
+    @Override
+    public long getBlockWrites() {
+        return Metrics.Instance.blockWrites();
+    }
+
+    @Override
+    public long getConnectionWrites() {
+        return Metrics.Instance.connectionWrites();
+    }
+
+    @Override
+    public long getResourceOpens() {
+        return Metrics.Instance.resourceOpens();
+    }
+
+    @Override
+    public Latency getCommitLatency() {
+        return new Latency(Metrics.Instance.commitLatency());
+    }
+
+    @Override
+    public Latency getValidationLatency() {
+        return new Latency(Metrics.Instance.validationLatency());
+    }
+
+    @Override
+    public Latency getBlockReadLatency() {
+        return new Latency(Metrics.Instance.blockReadLatency());
+    }
+
+    @Override
+    public Latency getBlockWriteLatency() {
+        return new Latency(Metrics.Instance.blockWriteLatency());
+    }
+
+    @Override
+    public Latency getConnectionWriteLatency() {
+        return new Latency(Metrics.Instance.connectionWriteLatency());
+    }
+
+    @Override
+    public Latency getResourceOpenLatency() {
+        return new Latency(Metrics.Instance.resourceOpenLatency());
+    }
+
+    @Override
+    public void reset() {
+        Metrics.Instance.reset();
+    }
+}
@@ -269,6 +269,11 @@ class JVMPlatform extends Platform {
         return System.nanoTime() >> 20;
     }
 
+    @Override
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
     @Override
     String simpleName(Class c) {
         return c.getSimpleName();
@@ -0,0 +1,98 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * JMX view of {@link Metrics}, registered by {@link JVMMetrics#register()}. Latencies
+ * are in nanoseconds.
+ */
+public interface MetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean value);
+
+    long getCommitted();
+
+    long getAborted();
+
+    long getValidationRetries();
+
+    long getBlockReads();
+
+    long getBlockWrites();
+
+    long getConnectionWrites();
+
+    long getResourceOpens();
+
+    Latency getCommitLatency();
+
+    Latency getValidationLatency();
+
+    Latency getBlockReadLatency();
+
+    Latency getBlockWriteLatency();
+
+    Latency getConnectionWriteLatency();
+
+    Latency getResourceOpenLatency();
+
+    void reset();
+
+    public static final class Latency {
+
+        private final long _count, _mean, _p50, _p99, _p999, _max;
+
+        @ConstructorProperties({ "count", "mean", "p50", "p99", "p999", "max" })
+        public Latency(long count, long mean, long p50, long p99, long p999, long max) {
+            _count = count;
+            _mean = mean;
+            _p50 = p50;
+            _p99 = p99;
+            _p999 = p999;
+            _max = max;
+        }
+
+        Latency(Metrics.Histogram histogram) {
+            this(histogram.count(), histogram.mean(), histogram.percentile(50), histogram.percentile(99), histogram.percentile(99.9), histogram.max());
+        }
+
+        public long getCount() {
+            return _count;
+        }
+
+        public long getMean() {
+            return _mean;
+        }
+
+        public long getP50() {
+            return _p50;
+        }
+
+        public long getP99() {
+            return _p99;
+        }
+
+        public long getP999() {
+            return _p999;
+        }
+
+        public long getMax() {
+            return _max;
+        }
+    }
+}
@@ -0,0 +1,557 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import org.objectfabric.BlockQueue.Block;
+import org.objectfabric.CloseCounter.Callback;
+
+/**
+ * Stores resource versions of all URIs in a few large append-only files instead of one
+ * file per version. Blocks are appended in batches with one sync per batch, and an
+ * in-memory index maps each URI and tick to its location. Segments mostly made of
+ * removed blocks are compacted by copying remaining ones to the current segment.
+ * <nl>
+ * Each record contains a type, the URI path, the tick, data for blocks, and a checksum
+ * so that a partially written batch is ignored when reopening.
+ */
+public class SegmentLog extends FileSystem {
+
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    static final String EXTENSION = ".log";
+
+    static final byte BLOCK = 1, REMOVAL = 2;
+
+    // Type, path length, tick time and peer, data length. Peer indexes are local to a
+    // process, so ticks are stored like in file names.
+    static final int HEADER = 1 + 4 + 8 + UID.LENGTH + 4;
+
+    // Checksum
+    static final int TRAILER = 4;
+
+    private static final int MAX_PATH = 64 * 1024;
+
+    /**
+     * Oldest segment is compacted when less than this percentage of it is live.
+     */
+    static final int COMPACTION_PERCENT = 50;
+
+    private final int _segmentSize;
+
+    private final SegmentLogQueue _queue;
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Long, Entry>> _index = new ConcurrentHashMap<String, ConcurrentHashMap<Long, Entry>>();
+
+    // Only accessed by writer, one batch at a time
+    private final List<Segment> _segments = new List<Segment>();
+
+    private final byte[] _chunk = new byte[4096];
+
+    public SegmentLog(String root) {
+        this(root, DEFAULT_SEGMENT_SIZE);
+    }
+
+    SegmentLog(String root, int segmentSize) {
+        super(root, false);
+
+        _segmentSize = segmentSize;
+
+        try {
+            open();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+
+        _queue = new SegmentLogQueue(this);
+    }
+
+    static final class Segment {
+
+        final int Id;
+
+        final File File;
+
+        final RandomAccessFile Raf;
+
+        final FileChannel Channel;
+
+        long Length;
+
+        long Live;
+
+        Segment(int id, File file) throws IOException {
+            Id = id;
+            File = file;
+            Raf = new RandomAccessFile(file, "rw");
+            Channel = Raf.getChannel();
+        }
+    }
+
+    static final class Entry {
+
+        final Segment Segment;
+
+        final long Offset;
+
+        final int Length;
+
+        final int RecordLength;
+
+        Entry(Segment segment, long offset, int length, int recordLength) {
+            Segment = segment;
+            Offset = offset;
+            Length = length;
+            RecordLength = recordLength;
+        }
+    }
+
+    @Override
+    final View newView(URI uri) {
+        return new SegmentLogView(this, uri.path(), _queue);
+    }
+
+    final int segmentCount() {
+        return _segments.size();
+    }
+
+    // Index
+
+    final long[] ticks(String path) {
+        ConcurrentHashMap<Long, Entry> entries = _index.get(path);
+        long[] ticks = null;
+
+        if (entries != null)
+            for (Long tick : entries.keySet())
+                ticks = Tick.add(ticks, tick);
+
+        return ticks != null ? ticks : Tick.EMPTY;
+    }
+
+    final Entry get(String path, long tick) {
+        ConcurrentHashMap<Long, Entry> entries = _index.get(path);
+        return entries != null ? entries.get(tick) : null;
+    }
+
+    private final void put(String path, long tick, Entry entry) {
+        ConcurrentHashMap<Long, Entry> entries = _index.get(path);
+
+        if (entries == null) {
+            entries = new ConcurrentHashMap<Long, Entry>();
+            ConcurrentHashMap<Long, Entry> previous = _index.putIfAbsent(path, entries);
+
+            if (previous != null)
+                entries = previous;
+        }
+
+        Entry previous = entries.put(tick, entry);
+
+        if (previous != null)
+            previous.Segment.Live -= previous.RecordLength;
+
+        entry.Segment.Live += entry.RecordLength;
+    }
+
+    private final void remove(String path, long tick) {
+        ConcurrentHashMap<Long, Entry> entries = _index.get(path);
+
+        if (entries != null) {
+            Entry entry = entries.remove(tick);
+
+            if (entry != null)
+                entry.Segment.Live -= entry.RecordLength;
+        }
+    }
+
+    // Reads
+
+    /**
+     * Returns null if block has been removed.
+     */
+    final byte[] read(String path, long tick) throws IOException {
+        for (;;) {
+            Entry entry = get(path, tick);
+
+            if (entry == null)
+                return null;
+
+            byte[] data = new byte[entry.Length];
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+
+            try {
+                while (buffer.hasRemaining())
+                    if (entry.Segment.Channel.read(buffer, entry.Offset + buffer.position()) < 0)
+                        throw new IOException("Unexpected end of segment " + entry.Segment.File);
+
+                return data;
+            } catch (IOException ex) {
+                // Segment has been compacted meanwhile
+                if (get(path, tick) == entry)
+                    throw ex;
+            }
+        }
+    }
+
+    // Writes, from a single thread
+
+    final void write(List<Block> blocks) throws IOException {
+        List<Segment> written = new List<Segment>();
+        Entry[] entries = new Entry[blocks.size()];
+
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            ByteBuffer[] data = new ByteBuffer[block.Buffs.length];
+
+            for (int b = 0; b < data.length; b++)
+                data[b] = ((JVMBuff) block.Buffs[b]).getByteBuffer();
+
+            entries[i] = append(BLOCK, block.URI.path(), block.Tick, data, written);
+
+            if (block.Removals != null)
+                for (int r = 0; r < block.Removals.length; r++)
+                    if (!Tick.isNull(block.Removals[r]))
+                        append(REMOVAL, block.URI.path(), block.Removals[r], new ByteBuffer[0], written);
+        }
+
+        // Group commit
+        for (int i = 0; i < written.size(); i++)
+            written.get(i).Channel.force(false);
+
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            put(block.URI.path(), block.Tick, entries[i]);
+
+            if (block.Removals != null)
+                for (int r = 0; r < block.Removals.length; r++)
+                    if (!Tick.isNull(block.Removals[r]))
+                        remove(block.URI.path(), block.Removals[r]);
+        }
+    }
+
+    private final Entry append(byte type, String path, long tick, ByteBuffer[] data, List<Segment> written) throws IOException {
+        byte[] bytes = getBytes(path);
+        int length = 0;
+
+        for (int i = 0; i < data.length; i++)
+            length += data[i].remaining();
+
+        int recordLength = HEADER + bytes.length + length + TRAILER;
+        ByteBuffer header = ByteBuffer.allocate(HEADER + bytes.length);
+        header.put(type);
+        header.putInt(bytes.length);
+        header.put(bytes);
+        header.putLong(Tick.time(tick));
+        header.put(Peer.get(Tick.peer(tick)).uid());
+        header.putInt(length);
+        header.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, header.limit());
+
+        for (int i = 0; i < data.length; i++)
+            update(crc, data[i].duplicate());
+
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER);
+        trailer.putInt((int) crc.getValue());
+        trailer.flip();
+
+        ByteBuffer[] buffers = new ByteBuffer[data.length + 2];
+        buffers[0] = header;
+        System.arraycopy(data, 0, buffers, 1, data.length);
+        buffers[buffers.length - 1] = trailer;
+
+        Segment segment = current(recordLength);
+        long position = segment.Length;
+        write(segment, buffers, position);
+        segment.Length += recordLength;
+
+        if (!written.contains(segment))
+            written.add(segment);
+
+        return new Entry(segment, position + header.limit(), length, recordLength);
+    }
+
+    private final void update(CRC32 crc, ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            int length = Math.min(_chunk.length, buffer.remaining());
+            buffer.get(_chunk, 0, length);
+            crc.update(_chunk, 0, length);
+        }
+    }
+
+    private static void write(Segment segment, ByteBuffer[] buffers, long position) throws IOException {
+        segment.Channel.position(position);
+        int last = buffers.length - 1;
+
+        while (buffers[last].hasRemaining())
+            segment.Channel.write(buffers);
+    }
+
+    /**
+     * Returns the segment to append a record to, creating one if current is full.
+     */
+    private final Segment current(int recordLength) throws IOException {
+        Segment segment = _segments.size() > 0 ? _segments.get(_segments.size() - 1) : null;
+
+        if (segment == null || segment.Length + recordLength > segment.Raf.length()) {
+            int id = segment != null ? segment.Id + 1 : 0;
+            segment = new Segment(id, new File(root(), Utils.padLeft(Integer.toHexString(id), 8, '0') + EXTENSION));
+
+            // Preallocated, zeros mark the end of records
+            segment.Raf.setLength(Math.max(_segmentSize, recordLength));
+            _segments.add(segment);
+
+            if (Debug.PERSISTENCE_LOG)
+                Log.write("Segment created " + segment.File.getPath());
+        }
+
+        return segment;
+    }
+
+    // Compaction
+
+    /**
+     * Copies live blocks of oldest segment to current one and deletes it. Segments are
+     * compacted oldest first, so removal records of the oldest one can be dropped: they
+     * can only refer to blocks written before, which are in the same segment.
+     */
+    final boolean compact() throws IOException {
+        if (_segments.size() < 2)
+            return false;
+
+        Segment oldest = _segments.get(0);
+
+        if (oldest.Live * 100 >= oldest.Length * COMPACTION_PERCENT)
+            return false;
+
+        if (Debug.PERSISTENCE_LOG)
+            Log.write("Segment compaction " + oldest.File.getPath());
+
+        List<Object> moved = new List<Object>();
+        List<Segment> written = new List<Segment>();
+        long position = 0;
+
+        for (;;) {
+            Record record = read(oldest, position);
+
+            if (record == null)
+                break;
+
+            if (record.Type == BLOCK) {
+                Entry entry = get(record.Path, record.Tick);
+
+                if (entry != null && entry.Segment == oldest && entry.Offset == record.Offset) {
+                    ByteBuffer data = ByteBuffer.wrap(record.Data);
+                    moved.add(record);
+                    moved.add(append(BLOCK, record.Path, record.Tick, new ByteBuffer[] { data }, written));
+                }
+            }
+
+            position += record.Length;
+        }
+
+        for (int i = 0; i < written.size(); i++)
+            written.get(i).Channel.force(false);
+
+        for (int i = 0; i < moved.size(); i += 2) {
+            Record record = (Record) moved.get(i);
+            put(record.Path, record.Tick, (Entry) moved.get(i + 1));
+        }
+
+        if (Debug.ENABLED)
+            Debug.assertion(oldest.Live == 0);
+
+        _segments.remove(0);
+        close(oldest);
+
+        if (!oldest.File.delete())
+            Log.write("Could not delete " + oldest.File);
+
+        return true;
+    }
+
+    // Reopening
+
+    static final class Record {
+
+        final byte Type;
+
+        final String Path;
+
+        final long Tick;
+
+        final long Offset;
+
+        final byte[] Data;
+
+        final int Length;
+
+        Record(byte type, String path, long tick, long offset, byte[] data, int length) {
+            Type = type;
+            Path = path;
+            Tick = tick;
+            Offset = offset;
+            Data = data;
+            Length = length;
+        }
+    }
+
+    private final void open() throws IOException {
+        String[] names = root().list();
+
+        if (names == null)
+            return;
+
+        Arrays.sort(names);
+
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].endsWith(EXTENSION)) {
+                int id = (int) Long.parseLong(names[i].substring(0, names[i].length() - EXTENSION.length()), 16);
+                Segment segment = new Segment(id, new File(root(), names[i]));
+                _segments.add(segment);
+
+                for (;;) {
+                    Record record = read(segment, segment.Length);
+
+                    if (record == null)
+                        break;
+
+                    if (record.Type == BLOCK)
+                        put(record.Path, record.Tick, new Entry(segment, record.Offset, record.Data.length, record.Length));
+                    else
+                        remove(record.Path, record.Tick);
+
+                    segment.Length += record.Length;
+                }
+
+                if (Debug.PERSISTENCE_LOG)
+                    Log.write("Segment open " + segment.File.getPath() + ", " + segment.Length + " bytes");
+            }
+        }
+    }
+
+    /**
+     * Returns null at end of segment, or if record is incomplete or corrupted.
+     */
+    private static Record read(Segment segment, long position) throws IOException {
+        long size = segment.Raf.length();
+
+        if (position + HEADER > size)
+            return null;
+
+        ByteBuffer start = ByteBuffer.allocate(1 + 4);
+        readFully(segment, start, position);
+        byte type = start.get(0);
+        int pathLength = start.getInt(1);
+
+        if ((type != BLOCK && type != REMOVAL) || pathLength < 0 || pathLength > MAX_PATH)
+            return null;
+
+        if (position + HEADER + pathLength > size)
+            return null;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER + pathLength);
+        readFully(segment, header, position);
+        long time = header.getLong(1 + 4 + pathLength);
+        int length = header.getInt(1 + 4 + pathLength + 8 + UID.LENGTH);
+
+        if (length < 0 || position + HEADER + pathLength + length + TRAILER > size)
+            return null;
+
+        ByteBuffer rest = ByteBuffer.allocate(length + TRAILER);
+        readFully(segment, rest, position + header.capacity());
+
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, header.capacity());
+        crc.update(rest.array(), 0, length);
+
+        if (rest.getInt(length) != (int) crc.getValue())
+            return null;
+
+        String path = getString(header.array(), 1 + 4, pathLength);
+        byte[] uid = new byte[UID.LENGTH];
+        System.arraycopy(header.array(), 1 + 4 + pathLength + 8, uid, 0, uid.length);
+        long tick = Tick.get(Peer.get(new UID(uid)).index(), time);
+        byte[] data = new byte[length];
+        System.arraycopy(rest.array(), 0, data, 0, length);
+        return new Record(type, path, tick, position + header.capacity(), data, header.capacity() + rest.capacity());
+    }
+
+    private static void readFully(Segment segment, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            if (segment.Channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Unexpected end of segment " + segment.File);
+    }
+
+    private static byte[] getBytes(String path) {
+        try {
+            return path.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static String getString(byte[] bytes, int offset, int length) {
+        try {
+            return new String(bytes, offset, length, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static void close(Segment segment) {
+        try {
+            // Closes channel
+            segment.Raf.close();
+        } catch (IOException _) {
+            // Ignore
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "segments://" + root();
+    }
+
+    // Debug
+
+    @Override
+    final void close() {
+        final AtomicBoolean done = new AtomicBoolean();
+
+        _queue.requestClose(new Callback() {
+
+            @Override
+            public void call() {
+                done.set(true);
+            }
+        });
+
+        while (!done.get() || _queue.writing())
+            Platform.get().sleep(1);
+
+        for (int i = 0; i < _segments.size(); i++)
+            close(_segments.get(i));
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import org.objectfabric.CloseCounter.Callback;
+
+/**
+ * Takes all blocks queued while previous batch was written, so that they are written
+ * and synced together.
+ */
+final class SegmentLogQueue extends BlockQueue implements Runnable {
+
+    private static final int MAX_BATCH = 1000;
+
+    private final SegmentLog _log;
+
+    private volatile boolean _writing;
+
+    SegmentLogQueue(SegmentLog log) {
+        _log = log;
+
+        if (Debug.THREADS)
+            ThreadAssert.exchangeGive(this, this);
+
+        onStarted();
+    }
+
+    @Override
+    void onClose(Callback callback) {
+        Object key;
+
+        if (Debug.ENABLED) {
+            ThreadAssert.suspend(key = new Object());
+            ThreadAssert.resume(this, false);
+        }
+
+        if (Debug.THREADS) {
+            ThreadAssert.exchangeTake(this);
+            ThreadAssert.removePrivate(this);
+        }
+
+        if (Debug.ENABLED)
+            ThreadAssert.resume(key);
+
+        super.onClose(callback);
+    }
+
+    final boolean writing() {
+        return _writing;
+    }
+
+    @Override
+    protected void enqueue() {
+        Platform.get().execute(this);
+    }
+
+    @Override
+    public void run() {
+        if (onRunStarting()) {
+            if (Debug.ENABLED)
+                ThreadAssert.resume(this, false);
+
+            runMessages(false);
+
+            if (!_writing) {
+                final List<Block> list = new List<Block>();
+
+                for (int i = 0; i < MAX_BATCH; i++) {
+                    Block block = nextBlock();
+
+                    if (block == null)
+                        break;
+
+                    list.add(block);
+
+                    if (Debug.THREADS)
+                        for (int t = 0; t < block.Buffs.length; t++)
+                            ThreadAssert.exchangeGive(block, block.Buffs[t]);
+                }
+
+                if (list.size() > 0) {
+                    _writing = true;
+
+                    ThreadPool.getInstance().execute(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            write(list);
+                        }
+                    });
+                }
+            }
+
+            if (Debug.ENABLED)
+                ThreadAssert.suspend(this);
+
+            onRunEnded(false);
+        }
+    }
+
+    private final void write(List<Block> list) {
+        if (Debug.PERSISTENCE_LOG)
+            Log.write("Segment write " + list.size() + " blocks");
+
+        if (Stats.ENABLED)
+            Stats.Instance.BlockWriteCount.addAndGet(list.size());
+
+        for (int i = 0; i < list.size(); i++) {
+            if (Debug.THREADS)
+                ThreadAssert.exchangeTake(list.get(i));
+
+            if (Debug.ENABLED) {
+                Debug.assertion(list.get(i).Buffs.length > 0);
+                Debug.assertion(list.get(i).Buffs[0].remaining() > 0);
+            }
+        }
+
+        boolean ok = false;
+
+        try {
+            long start = Metrics.start();
+            _log.write(list);
+            Metrics.onBlockWrite(start, list.size());
+            ok = true;
+        } catch (Exception ex) {
+            Log.write(ex);
+        }
+
+        for (int i = 0; i < list.size(); i++)
+            for (int b = 0; b < list.get(i).Buffs.length; b++)
+                list.get(i).Buffs[b].recycle();
+
+        if (ok) {
+            for (int i = 0; i < list.size(); i++)
+                ack(list.get(i));
+
+            try {
+                _log.compact();
+            } catch (Exception ex) {
+                Log.write(ex);
+            }
+        }
+
+        _writing = false;
+
+        // In case blocks left in queue
+        requestRun();
+    }
+
+    private final void ack(Block block) {
+        Object key;
+
+        if (Debug.THREADS)
+            ThreadAssert.suspend(key = new Object());
+
+        SegmentLogView view = (SegmentLogView) block.URI.getOrCreate(_log);
+        block.URI.onAck(view, block.Tick);
+        view.add(block.Tick, block.Removals);
+
+        if (Debug.THREADS)
+            ThreadAssert.resume(key);
+    }
+}
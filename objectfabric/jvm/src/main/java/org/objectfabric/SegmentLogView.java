@@ -0,0 +1,160 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+final class SegmentLogView extends ArrayView {
+
+    private final String _path;
+
+    private final SegmentLogQueue _queue;
+
+    SegmentLogView(SegmentLog log, String path, SegmentLogQueue queue) {
+        super(log);
+
+        _path = path;
+        _queue = queue;
+    }
+
+    private final SegmentLog log() {
+        return (SegmentLog) location();
+    }
+
+    @Override
+    final void getKnown(URI uri) {
+        long[] ticks = copy();
+
+        if (ticks != null) {
+            if (ticks.length != 0 || !location().isCache())
+                uri.onKnown(this, ticks);
+        } else
+            list(uri, null);
+    }
+
+    @Override
+    final void onKnown(URI uri, long[] ticks) {
+        boolean load;
+
+        synchronized (this) {
+            load = isNull();
+        }
+
+        if (load)
+            list(uri, ticks);
+        else
+            getUnknown(uri, ticks);
+    }
+
+    private final void list(final URI uri, final long[] compare) {
+        ThreadPool.getInstance().execute(new Runnable() {
+
+            @Override
+            public void run() {
+                if (Debug.PERSISTENCE_LOG)
+                    Log.write("Segment list " + _path);
+
+                if (Stats.ENABLED)
+                    Stats.Instance.BlockListCount.incrementAndGet();
+
+                onLoad(uri, log().ticks(_path), compare);
+            }
+        });
+    }
+
+    @Override
+    final boolean mayHave(long tick) {
+        return contains(tick);
+    }
+
+    @Override
+    void getBlock(final URI uri, final long tick) {
+        if (!contains(tick))
+            return;
+
+        ThreadPool.getReads().execute(new Runnable() {
+
+            @Override
+            public void run() {
+                if (InFlight.starting(uri, tick)) {
+                    if (Debug.PERSISTENCE_LOG)
+                        Log.write("Segment read " + _path + " - " + Tick.toString(tick));
+
+                    if (Stats.ENABLED)
+                        Stats.Instance.BlockReadCount.incrementAndGet();
+
+                    byte[] block = null;
+
+                    try {
+                        long start = Metrics.start();
+                        block = log().read(_path, tick);
+                        Metrics.onBlockRead(start);
+                    } catch (Exception ex) {
+                        Log.write(ex);
+                    }
+
+                    if (block != null && block.length > 0) {
+                        List<JVMBuff> list = new List<JVMBuff>();
+                        JVMBuff buff = JVMBuff.getWithPosition(0, block.length);
+                        int offset = 0;
+
+                        for (;;) {
+                            int length = Math.min(buff.remaining(), block.length - offset);
+                            buff.putImmutably(block, offset, length);
+                            offset += length;
+                            buff.limit(buff.position() + length);
+                            list.add(buff);
+
+                            if (offset == block.length)
+                                break;
+
+                            buff = JVMBuff.getWithPosition(Buff.getLargestUnsplitable(), block.length - offset);
+                        }
+
+                        JVMBuff[] buffs = new JVMBuff[list.size()];
+                        list.copyToFixed(buffs);
+
+                        if (Debug.ENABLED) {
+                            for (int i = 0; i < buffs.length; i++) {
+                                buffs[i].lock(buffs[i].limit());
+
+                                if (Debug.THREADS)
+                                    ThreadAssert.exchangeGive(buffs, buffs[i]);
+                            }
+                        }
+
+                        if (Debug.RANDOMIZE_FILE_LOAD_ORDER)
+                            Platform.get().sleep(Platform.get().randomInt(100));
+
+                        Exception exception = uri.onBlock(SegmentLogView.this, tick, buffs, null, true, null, false, null);
+
+                        if (Debug.THREADS)
+                            ThreadAssert.exchangeTake(buffs);
+
+                        if (exception != null) {
+                            // TODO make sure exception is related to parsing
+                            Log.write("Corrupted block " + _path + " - " + Tick.toString(tick) + ": " + exception.toString());
+                        }
+
+                        for (int i = 0; i < buffs.length; i++)
+                            buffs[i].recycle();
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    final void onBlock(URI uri, long tick, Buff[] buffs, long[] removals, boolean requested) {
+        _queue.enqueueBlock(uri, tick, buffs, removals, requested);
+    }
+}
@@ -12,6 +12,7 @@
 
 package org.objectfabric;
 
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -23,8 +24,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 final class ThreadPool {
 
+    /*
+     * Bounds concurrent block reads from all stores. Opening a resource with a large
+     * history issues one read per block, which would otherwise start as many threads.
+     */
+    static final int READERS = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
     private static final Executor _executor;
 
+    private static final Executor _reads;
+
     private static final ScheduledExecutorService _scheduler;
 
     static {
@@ -49,6 +58,7 @@ final class ThreadPool {
         }
 
         _executor = instance;
+        _reads = new Bounded(instance, READERS);
 
         _scheduler = Executors.newScheduledThreadPool(1, new ThreadFactory() {
 
@@ -65,6 +75,13 @@ final class ThreadPool {
         return _executor;
     }
 
+    /**
+     * Runs tasks in submission order, at most READERS at a time.
+     */
+    static Executor getReads() {
+        return _reads;
+    }
+
     public static void scheduleOnce(Runnable command, int ms) {
         _scheduler.schedule(command, ms, TimeUnit.MILLISECONDS);
     }
@@ -140,6 +157,60 @@ final class ThreadPool {
         }
     }
 
+    private static final class Bounded implements Executor {
+
+        private final Executor _parent;
+
+        private final int _max;
+
+        private final ConcurrentLinkedQueue<Runnable> _queue = new ConcurrentLinkedQueue<Runnable>();
+
+        private final AtomicInteger _running = new AtomicInteger();
+
+        private final Runnable _drain = new Runnable() {
+
+            public void run() {
+                for (;;) {
+                    Runnable runnable = _queue.poll();
+
+                    if (runnable != null)
+                        runnable.run();
+                    else {
+                        _running.decrementAndGet();
+
+                        // Task added after poll but before decrement might not start one
+                        if (_queue.isEmpty() || !tryStart())
+                            break;
+                    }
+                }
+            }
+        };
+
+        Bounded(Executor parent, int max) {
+            _parent = parent;
+            _max = max;
+        }
+
+        public void execute(Runnable runnable) {
+            _queue.add(runnable);
+
+            if (tryStart())
+                _parent.execute(_drain);
+        }
+
+        private boolean tryStart() {
+            for (;;) {
+                int running = _running.get();
+
+                if (running == _max)
+                    return false;
+
+                if (_running.compareAndSet(running, running + 1))
+                    return true;
+            }
+        }
+    }
+
     private static final class Wrapper implements Executor {
 
         private final Executor _parent;
@@ -0,0 +1,83 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KnownDeltaTest extends TestsHelper {
+
+    @Test
+    public void roundtrip() {
+        int[] peers = { Peer.get(new UID(UID_1)).index(), Peer.get(new UID(UID_2)).index(), Peer.get(new UID(UID_3)).index() };
+        Random random = new Random(0);
+        long[] sent = null, received = null;
+
+        for (int i = 0; i < 100; i++) {
+            long[] ticks = sent != null ? Platform.get().clone(sent) : null;
+
+            for (int j = random.nextInt(5); j >= 0; j--) {
+                long tick = Tick.get(peers[random.nextInt(peers.length)], random.nextInt(1 << 20) + 1);
+
+                if (!Tick.contains(ticks, tick))
+                    ticks = Tick.add(ticks, tick);
+            }
+
+            if (sent != null)
+                for (int j = 0; j < sent.length; j++)
+                    if (!Tick.isNull(sent[j]) && random.nextInt(10) == 0)
+                        Tick.remove(ticks, sent[j]);
+
+            byte[] bytes = Serialization.encodeKnown(sent, ticks);
+            received = Serialization.decodeKnown(received, bytes);
+            assertSameSet(ticks, received);
+            sent = ticks;
+        }
+    }
+
+    @Test
+    public void compact() {
+        int peer = Peer.get(new UID(UID_1)).index();
+        long[] ticks = null;
+
+        for (int i = 1; i <= 1000; i++)
+            ticks = Tick.add(ticks, Tick.get(peer, 1000000 + i * 10));
+
+        // One UID, then about one byte per tick instead of a UID and a long
+        byte[] full = Serialization.encodeKnown(null, ticks);
+        Assert.assertTrue(full.length < 1100);
+
+        long[] update = Tick.add(Platform.get().clone(ticks), Tick.get(peer, 2000000));
+        Assert.assertTrue(Serialization.encodeKnown(ticks, update).length < 30);
+    }
+
+    private static void assertSameSet(long[] expected, long[] actual) {
+        int count = 0;
+
+        for (int i = 0; i < expected.length; i++) {
+            if (!Tick.isNull(expected[i])) {
+                Assert.assertTrue(Tick.contains(actual, expected[i]));
+                count++;
+            }
+        }
+
+        for (int i = 0; i < actual.length; i++)
+            if (!Tick.isNull(actual[i]))
+                count--;
+
+        Assert.assertEquals(0, count);
+    }
+}
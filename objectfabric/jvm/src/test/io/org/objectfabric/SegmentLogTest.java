@@ -0,0 +1,112 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SegmentLogTest extends TestsHelper {
+
+    static final String TEMP = FileSystemTest.TEMP;
+
+    @Test
+    public void test() {
+        PlatformGenerator.mkdir(TEMP);
+        PlatformGenerator.clearFolder(TEMP);
+
+        SeparateCL test = new SeparateCL(TestWrite.class.getName());
+        test.run();
+
+        SeparateCL update = new SeparateCL(TestUpdate.class.getName());
+        update.run();
+
+        SeparateCL read = new SeparateCL(TestRead.class.getName());
+        read.run();
+    }
+
+    @Test
+    public void compaction() {
+        PlatformGenerator.mkdir(TEMP);
+        PlatformGenerator.clearFolder(TEMP);
+        JVMPlatform.loadClass();
+
+        Workspace workspace = Platform.newTestWorkspace();
+        SegmentLog log = new SegmentLog(TEMP, 4096);
+        workspace.addURIHandler(log);
+        Resource resource = workspace.open("file:///test");
+
+        for (int i = 0; i < 500; i++) {
+            resource.set("value " + i);
+            workspace.flush();
+        }
+
+        workspace.close();
+        log.close();
+
+        // Each block overwrites the previous, all but last segments can be reclaimed
+        Assert.assertTrue(log.segmentCount() <= 3);
+
+        workspace = Platform.newTestWorkspace();
+        log = new SegmentLog(TEMP, 4096);
+        workspace.addURIHandler(log);
+        Assert.assertEquals("value 499", workspace.open("file:///test").get());
+        workspace.close();
+        log.close();
+    }
+
+    public static final class TestWrite {
+
+        public static void main(String[] args) {
+            JVMPlatform.loadClass();
+            Workspace workspace = Platform.newTestWorkspace();
+            setUID1(workspace);
+            SegmentLog log = new SegmentLog(TEMP);
+            workspace.addURIHandler(log);
+            workspace.open("file:///test").set("data");
+            workspace.close();
+            log.close();
+        }
+    }
+
+    public static final class TestUpdate {
+
+        public static void main(String[] args) {
+            JVMPlatform.loadClass();
+            Workspace workspace = Platform.newTestWorkspace();
+            setUID2(workspace);
+            SegmentLog log = new SegmentLog(TEMP);
+            workspace.addURIHandler(log);
+            Resource test = workspace.open("file:///test");
+            Assert.assertEquals("data", test.get());
+            test.set("update");
+            workspace.close();
+            log.close();
+        }
+    }
+
+    public static final class TestRead {
+
+        public static void main(String[] args) {
+            JVMPlatform.loadClass();
+            Workspace workspace = Platform.newTestWorkspace();
+            setUID3(workspace);
+            SegmentLog log = new SegmentLog(TEMP);
+            workspace.addURIHandler(log);
+            String value = (String) workspace.open("file:///test").get();
+            Assert.assertEquals("update", value);
+            workspace.close();
+            log.close();
+        }
+    }
+}
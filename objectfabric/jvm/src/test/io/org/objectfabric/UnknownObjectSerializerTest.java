@@ -0,0 +1,84 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UnknownObjectSerializerTest extends TestsHelper {
+
+    private static final Object[] VALUES = new Object[] { //
+    "", "value", 42, 42L, 4.2, true, new Date(42), new byte[] { 4, 2 }, 4.2f, //
+            BigInteger.valueOf(42), BigDecimal.valueOf(42, 1), (byte) 42, (short) 42, 'c', null };
+
+    @Test
+    public void roundtrip() {
+        Object[] values = new Object[1000];
+
+        for (int i = 0; i < values.length; i++)
+            values[i] = VALUES[Platform.get().randomInt(VALUES.length)];
+
+        // Pooled buffs have random capacities in debug builds
+        Buff buff = Buff.createCustom(Buff.SIZES[Buff.SIZES.length - 1], false);
+        buff.putByte(TObject.SERIALIZATION_VERSION);
+        ImmutableWriter writer = new ImmutableWriter(new List<Object>());
+        writer.setBuff(buff);
+
+        for (int i = 0; i < values.length; i++) {
+            for (;;) {
+                buff.limit(buff.position() + Platform.get().randomInt(40));
+                UnknownObjectSerializer.write(writer, values[i]);
+
+                if (!writer.interrupted())
+                    break;
+            }
+        }
+
+        int limit = buff.position();
+        ImmutableReader reader = new ImmutableReader(new List<Object>());
+        buff.position(0);
+        reader.setBuff(buff);
+        buff.limit(1);
+        reader.startRead();
+
+        for (int i = 0; i < values.length; i++) {
+            for (;;) {
+                buff.limit(Math.min(buff.position() + Platform.get().randomInt(40), limit));
+                Object value = UnknownObjectSerializer.read(reader);
+
+                if (!reader.interrupted()) {
+                    if (value instanceof byte[])
+                        Assert.assertArrayEquals((byte[]) values[i], (byte[]) value);
+                    else
+                        Assert.assertEquals(values[i], value);
+
+                    break;
+                }
+            }
+        }
+
+        Assert.assertEquals(limit, buff.position());
+
+        buff.recycle();
+
+        if (Debug.THREADS) {
+            ThreadAssert.removePrivateList(reader.getThreadContextObjects());
+            ThreadAssert.removePrivateList(writer.getThreadContextObjects());
+        }
+    }
+}
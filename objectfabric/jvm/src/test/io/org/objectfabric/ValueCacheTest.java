@@ -0,0 +1,148 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ValueCacheTest extends TestsHelper {
+
+    private static final int COUNT = 2000;
+
+    @Test
+    public void roundtrip() {
+        // More distinct values than the cache holds to test evictions
+        Object[] pool = new Object[ValueCache.CAPACITY * 2];
+
+        for (int i = 0; i < pool.length; i++) {
+            switch (i % 4) {
+                case 0:
+                    pool[i] = "key" + i;
+                    break;
+                case 1:
+                    pool[i] = "\u00FF\u7FFF" + i;
+                    break;
+                case 2:
+                    pool[i] = BigInteger.valueOf(i).shiftLeft(100);
+                    break;
+                default:
+                    pool[i] = new BigDecimal(BigInteger.valueOf(i), i % 7);
+                    break;
+            }
+        }
+
+        Object[] values = new Object[COUNT];
+
+        for (int i = 0; i < values.length; i++) {
+            int rand = Platform.get().randomInt(10);
+
+            if (rand == 0)
+                values[i] = i % 2 == 0 ? "" : null;
+            else // Skewed so that some are hits and some evicted
+                values[i] = pool[Platform.get().randomInt(rand * pool.length / 10)];
+        }
+
+        write(values, true);
+    }
+
+    @Test
+    public void compact() {
+        String[] names = new String[] { "pending", "running", "done", "failed" };
+        String[] values = new String[COUNT];
+
+        for (int i = 0; i < values.length; i++)
+            values[i] = names[i % names.length];
+
+        // Debug info would dominate sizes
+        if (Debug.ENABLED)
+            ImmutableWriter.setCheckCommunications(false);
+
+        int cached = write(values, true);
+        int plain = write(values, false);
+        Assert.assertTrue(cached * 3 < plain);
+
+        if (Debug.ENABLED)
+            ImmutableWriter.setCheckCommunications(true);
+    }
+
+    private static int write(Object[] values, boolean cache) {
+        // Pooled buffs have random capacities in debug builds
+        Buff buff = Buff.createCustom(Buff.SIZES[Buff.SIZES.length - 1], false);
+        buff.putByte(TObject.SERIALIZATION_VERSION);
+        ImmutableWriter writer = new ImmutableWriter(new List<Object>(), cache);
+        writer.setBuff(buff);
+
+        for (int i = 0; i < values.length; i++) {
+            for (;;) {
+                buff.limit(buff.position() + Platform.get().randomInt(20));
+                write(writer, values[i]);
+
+                if (!writer.interrupted())
+                    break;
+            }
+        }
+
+        int limit = buff.position();
+        ImmutableReader reader = new ImmutableReader(new List<Object>(), cache);
+        buff.position(0);
+        reader.setBuff(buff);
+        buff.limit(1);
+        reader.startRead();
+
+        for (int i = 0; i < values.length; i++) {
+            for (;;) {
+                buff.limit(Math.min(buff.position() + Platform.get().randomInt(20), limit));
+                Object value = read(reader, values[i]);
+
+                if (!reader.interrupted()) {
+                    Assert.assertEquals(values[i], value);
+                    break;
+                }
+            }
+        }
+
+        Assert.assertEquals(limit, buff.position());
+
+        buff.recycle();
+
+        if (Debug.THREADS) {
+            ThreadAssert.removePrivateList(reader.getThreadContextObjects());
+            ThreadAssert.removePrivateList(writer.getThreadContextObjects());
+        }
+
+        return limit;
+    }
+
+    private static void write(ImmutableWriter writer, Object value) {
+        if (value instanceof BigInteger)
+            writer.writeBigInteger((BigInteger) value);
+        else if (value instanceof BigDecimal)
+            writer.writeDecimal((BigDecimal) value);
+        else
+            writer.writeString((String) value);
+    }
+
+    private static Object read(ImmutableReader reader, Object expected) {
+        if (expected instanceof BigInteger)
+            return reader.readBigInteger();
+
+        if (expected instanceof BigDecimal)
+            return reader.readDecimal();
+
+        return reader.readString();
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectfabric.TObject.Transaction;
+import org.objectfabric.generated.SimpleClass;
+
+public class BackPressureTest extends TestsHelper {
+
+    @Test
+    public void delay() {
+        BackPressure backPressure = new BackPressure(100, 1000);
+        Assert.assertEquals(0, backPressure.delay(79, 0));
+        Assert.assertEquals(1, backPressure.delay(80, 0));
+        Assert.assertEquals(8, backPressure.delay(90, 0));
+        Assert.assertEquals(BackPressure.MAXIMUM_DELAY, backPressure.delay(0, 999) + 1);
+        Assert.assertEquals(-1, backPressure.delay(100, 0));
+        Assert.assertEquals(-1, backPressure.delay(0, 1000));
+    }
+
+    @Test
+    public void versions() {
+        Workspace workspace = Platform.newTestWorkspace();
+        final int[] max = new int[1];
+
+        workspace.setBackPressure(new BackPressure() {
+
+            @Override
+            protected int delay(int commits, int versions) {
+                max[0] = Math.max(max[0], versions);
+                return super.delay(commits, versions);
+            }
+        });
+
+        // Prevents commits from being merged to shared versions
+        Transaction barrier = workspace.startImpl(0);
+        Resource resource = workspace.open("");
+
+        for (int i = 0; i < 100; i++)
+            new SimpleClass(resource).int0(i);
+
+        Assert.assertTrue(max[0] >= 99);
+
+        TransactionManager.abort(barrier);
+        workspace.close();
+    }
+}
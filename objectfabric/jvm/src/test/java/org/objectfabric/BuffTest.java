@@ -0,0 +1,76 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BuffTest extends TestsHelper {
+
+    @Test
+    public void sizeClasses() {
+        Assert.assertEquals(0, Buff.sizeClass(0));
+        Assert.assertEquals(0, Buff.sizeClass(Buff.SIZES[0]));
+        Assert.assertEquals(1, Buff.sizeClass(Buff.SIZES[0] + 1));
+        Assert.assertEquals(Buff.SIZES.length - 1, Buff.sizeClass(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void recycle() {
+        JVMPlatform.loadClass();
+
+        for (int i = 0; i < Buff.SIZES.length; i++) {
+            Buff buff = Buff.getOrCreate(Buff.SIZES[i]);
+
+            if (!Debug.RANDOMIZE_TRANSFER_LENGTHS)
+                Assert.assertEquals(Buff.SIZES[i], buff.capacity());
+
+            if (Debug.ENABLED)
+                buff.lock(buff.limit());
+
+            buff.recycle();
+
+            // Comes back from same class's thread-local magazine
+            Assert.assertTrue(buff == Buff.getOrCreate(Buff.SIZES[i]));
+
+            if (Debug.ENABLED)
+                buff.lock(buff.limit());
+
+            buff.recycle();
+        }
+    }
+
+    @Test
+    public void duplicates() {
+        JVMPlatform.loadClass();
+        Buff buff = Buff.getOrCreate();
+        buff.putByte((byte) 42);
+        buff.limit(buff.position());
+        buff.position(0);
+
+        if (Debug.ENABLED)
+            buff.lock(buff.limit());
+
+        Buff[] duplicates = buff.duplicate(3);
+        Assert.assertEquals(4, buff.get());
+
+        for (int i = 0; i < duplicates.length; i++) {
+            Assert.assertEquals(42, duplicates[i].getByte());
+            duplicates[i].recycle();
+        }
+
+        Assert.assertEquals(1, buff.get());
+        buff.recycle();
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectfabric.generated.SimpleClass;
+import org.objectfabric.generated.SimpleObjectModel;
+
+public class CheckpointTest extends TestsHelper {
+
+    private static final int INTERVAL = 16;
+
+    private static final int WRITES = 100;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void run() {
+        SimpleObjectModel.register();
+        Memory memory = new Memory(false);
+
+        Workspace workspace = Platform.newTestWorkspace();
+        workspace.setCheckpointInterval(INTERVAL);
+        workspace.addURIHandler(memory);
+        Resource resource = workspace.open("/checkpoint");
+        TMap<Integer, Integer> map = new TMap<Integer, Integer>(resource);
+        SimpleClass object = new SimpleClass(resource);
+        Counter counter = new Counter(resource);
+        TMap<String, TObject> root = new TMap<String, TObject>(resource);
+        root.put("map", map);
+        root.put("object", object);
+        root.put("counter", counter);
+        resource.set(root);
+        workspace.flush();
+
+        for (int i = 0; i < WRITES; i++) {
+            map.put(i % 10, i);
+
+            if (i % 3 == 0)
+                map.remove((i + 5) % 10);
+
+            if (i % 2 == 0)
+                object.int0(i);
+            else
+                counter.add(i);
+
+            workspace.flush();
+        }
+
+        Assert.assertTrue(resource.ordered().size() <= INTERVAL);
+        HashMap<Integer, Integer> expected = new HashMap<Integer, Integer>(map);
+        int int0 = object.int0();
+        long count = counter.get();
+        workspace.close();
+
+        workspace = Platform.newTestWorkspace();
+        workspace.addURIHandler(memory);
+        resource = workspace.open("/checkpoint");
+        Assert.assertTrue(resource.ordered().size() <= INTERVAL);
+        root = (TMap<String, TObject>) resource.get();
+        TMap<Integer, Integer> map2 = (TMap<Integer, Integer>) root.get("map");
+        Assert.assertEquals(expected, new HashMap<Integer, Integer>(map2));
+        Assert.assertEquals(int0, ((SimpleClass) root.get("object")).int0());
+        Assert.assertEquals(count, ((Counter) root.get("counter")).get());
+        workspace.close();
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+
+package org.objectfabric;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectfabric.Metrics.Histogram;
+import org.objectfabric.generated.SimpleClass;
+
+public class MetricsTest extends TestsHelper {
+
+    @Test
+    public void buckets() {
+        for (long value = 0; value < 100000; value++) {
+            int index = Histogram.index(value);
+            Assert.assertTrue(value <= Histogram.highest(index));
+            Assert.assertTrue(index == 0 || value > Histogram.highest(index - 1));
+        }
+
+        Assert.assertEquals(Histogram.BUCKETS - 1, Histogram.index(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles() {
+        Metrics metrics = new Metrics();
+        Metrics.Recorder recorder = metrics.getOrCreateRecorder();
+
+        for (int i = 1; i <= 1000; i++)
+            recorder.record(Metrics.BLOCK_READ, i * 1000);
+
+        Histogram histogram = metrics.blockReadLatency();
+
+        Assert.assertEquals(1000, histogram.count());
+        Assert.assertEquals(1000000, histogram.max());
+        Assert.assertEquals(500500, histogram.mean());
+        assertClose(500000, histogram.percentile(50));
+        assertClose(990000, histogram.percentile(99));
+        Assert.assertEquals(1000000, histogram.percentile(100));
+    }
+
+    private static void assertClose(long expected, long value) {
+        Assert.assertTrue(value >= expected && value <= expected + expected / Histogram.SUB_BUCKETS);
+    }
+
+    @Test
+    public void commits() {
+        Workspace workspace = Platform.newTestWorkspace();
+        Resource resource = workspace.open("");
+        SimpleClass object = new SimpleClass(resource);
+        Metrics metrics = workspace.getMetrics();
+        metrics.reset();
+        object.int0(1);
+        Assert.assertEquals(0, metrics.committed());
+
+        Metrics.setEnabled(true);
+
+        try {
+            for (int i = 0; i < 10 * Metrics.SAMPLE; i++)
+                object.int0(i);
+
+            long sampled = metrics.commitLatency().count();
+            Assert.assertEquals(10 * Metrics.SAMPLE, metrics.committed());
+            Assert.assertTrue(sampled > 0 && sampled <= 10);
+        } finally {
+            Metrics.setEnabled(false);
+            metrics.reset();
+        }
+
+        workspace.close();
+    }
+
+    @Test
+    public void opens() {
+        Workspace workspace = Platform.newTestWorkspace();
+        workspace.addURIHandler(new Memory(false));
+        Metrics metrics = workspace.getMetrics();
+        metrics.reset();
+        Metrics.setEnabled(true);
+
+        try {
+            workspace.open("/metrics");
+            workspace.open("/metrics");
+            Assert.assertEquals(1, metrics.resourceOpens());
+            Assert.assertEquals(1, metrics.resourceOpenLatency().count());
+        } finally {
+            Metrics.setEnabled(false);
+            metrics.reset();
+        }
+
+        workspace.close();
+    }
+}
@@ -118,4 +118,82 @@ public class TArrayTest extends TestsHelper {
 
         workspace.close();
     }
+
+    @Test
+    public void bulk() {
+        final int LENGTH = 1000;
+        Workspace workspace = Platform.newTestWorkspace();
+        final TArrayLong array = new TArrayLong(workspace.open(""), LENGTH);
+        final long[] ref = new long[LENGTH];
+
+        for (int i = 0; i < 1000; i++) {
+            final int index = Platform.get().randomInt(LENGTH);
+            final int length = Platform.get().randomInt(LENGTH - index + 1);
+            final int op = Platform.get().randomInt(4);
+
+            Runnable runnable = new Runnable() {
+
+                @Override
+                public void run() {
+                    if (op == 0) {
+                        long[] values = new long[length + 2];
+
+                        for (int j = 0; j < values.length; j++)
+                            values[j] = Platform.get().randomInt();
+
+                        array.setRange(index, values, 1, length);
+                        System.arraycopy(values, 1, ref, index, length);
+                    } else if (op == 1) {
+                        long value = Platform.get().randomBoolean() ? Platform.get().randomInt() : 0;
+                        array.fill(index, length, value);
+
+                        for (int j = index; j < index + length; j++)
+                            ref[j] = value;
+                    } else if (op == 2) {
+                        int source = Platform.get().randomInt(LENGTH - length + 1);
+                        array.copyFrom(array, source, index, length);
+                        System.arraycopy(ref, source, ref, index, length);
+                    } else {
+                        for (int j = 0; j < 10; j++) {
+                            int single = Platform.get().randomInt(LENGTH);
+                            ref[single] = Platform.get().randomInt();
+                            array.set(single, ref[single]);
+                        }
+                    }
+
+                    long[] values = new long[length];
+                    array.getRange(index, values, 0, length);
+
+                    for (int j = 0; j < length; j++)
+                        Assert.assertEquals(ref[index + j], values[j]);
+                }
+            };
+
+            if (Platform.get().randomBoolean())
+                workspace.atomic(runnable);
+            else
+                runnable.run();
+        }
+
+        long[] values = new long[LENGTH];
+        array.getRange(0, values, 0, LENGTH);
+        Assert.assertArrayEquals(ref, values);
+
+        for (int i = 0; i < LENGTH; i++)
+            Assert.assertEquals(ref[i], array.get(i));
+
+        TArrayLong copy = new TArrayLong(workspace.open(""), LENGTH);
+        copy.copyFrom(array, 0, 0, LENGTH);
+
+        for (int i = 0; i < LENGTH; i++)
+            Assert.assertEquals(ref[i], copy.get(i));
+
+        try {
+            array.getRange(LENGTH - 1, values, 0, 2);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException ex) {
+        }
+
+        workspace.close();
+    }
 }
@@ -0,0 +1,319 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TListTest extends TestsHelper {
+
+    private static final int OPERATIONS = 20000;
+
+    @Test
+    public void operations() {
+        final Workspace workspace = Platform.newTestWorkspace();
+        final TList<Integer> list = new TList<Integer>(workspace.open(""));
+        final ArrayList<Integer> reference = new ArrayList<Integer>();
+        final Random rand = new Random(0);
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            Runnable runnable = new Runnable() {
+
+                @Override
+                public void run() {
+                    int count = 1 + rand.nextInt(20);
+
+                    for (int j = 0; j < count; j++) {
+                        int value = rand.nextInt();
+                        int action = rand.nextInt(100);
+
+                        if (action < 60 || reference.size() == 0) {
+                            list.add(value);
+                            reference.add(value);
+                        } else if (action < 75) {
+                            int index = rand.nextInt(reference.size() + 1);
+                            list.add(index, value);
+                            reference.add(index, value);
+                        } else if (action < 85) {
+                            int index = rand.nextInt(reference.size());
+                            Assert.assertEquals(reference.remove(index), list.remove(index));
+                        } else if (action < 99) {
+                            int index = rand.nextInt(reference.size());
+                            Assert.assertEquals(reference.set(index, value), list.set(index, value));
+                        } else if (rand.nextInt(20) == 0 && reference.size() < 1000) {
+                            list.clear();
+                            reference.clear();
+                        }
+                    }
+
+                    Assert.assertEquals(reference.size(), list.size());
+                }
+            };
+
+            if (rand.nextBoolean())
+                runnable.run();
+            else
+                workspace.atomic(runnable);
+        }
+
+        Assert.assertTrue(reference.size() > 4096);
+        Assert.assertEquals(reference, new ArrayList<Integer>(list));
+        Assert.assertArrayEquals(reference.toArray(), list.toArray());
+        Assert.assertTrue(list.equals(reference));
+        Assert.assertEquals(reference.hashCode(), list.hashCode());
+
+        int value = reference.get(reference.size() / 2);
+        Assert.assertEquals(reference.indexOf(value), list.indexOf(value));
+        Assert.assertEquals(reference.lastIndexOf(value), list.lastIndexOf(value));
+        Assert.assertTrue(list.contains(value));
+
+        Assert.assertEquals(reference.subList(100, 200), list.subList(100, 200));
+        list.subList(100, 200).clear();
+        reference.subList(100, 200).clear();
+        Assert.assertEquals(reference, new ArrayList<Integer>(list));
+
+        try {
+            list.get(reference.size());
+            Assert.fail();
+        } catch (IndexOutOfBoundsException ex) {
+        }
+
+        try {
+            list.add(-1, 0);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException ex) {
+        }
+
+        workspace.close();
+    }
+
+    @Test
+    public void iterator() {
+        final Workspace workspace = Platform.newTestWorkspace();
+        final TList<Integer> list = new TList<Integer>(workspace.open(""));
+
+        for (int i = 0; i < 1000; i++)
+            list.add(i);
+
+        workspace.atomic(new Runnable() {
+
+            @Override
+            public void run() {
+                Iterator<Integer> it = list.iterator();
+                int expected = 0;
+
+                // Iterates on a snapshot
+                while (it.hasNext()) {
+                    int value = it.next();
+                    Assert.assertEquals(expected++, value);
+                    list.add(value);
+
+                    if (value % 2 == 0)
+                        it.remove();
+                }
+
+                Assert.assertEquals(1000, expected);
+            }
+        });
+
+        Assert.assertEquals(1500, list.size());
+
+        for (int i = 0; i < 500; i++)
+            Assert.assertEquals(i * 2 + 1, (int) list.get(i));
+
+        for (int i = 0; i < 1000; i++)
+            Assert.assertEquals(i, (int) list.get(500 + i));
+
+        list.removeAll(Arrays.asList(1, 3, 5));
+        list.retainAll(Arrays.asList(1, 2, 3, 4, 5, 7));
+        Assert.assertEquals(Arrays.asList(7, 2, 4, 7), list);
+        workspace.close();
+    }
+
+    @Test
+    public void nested() {
+        final Workspace workspace = Platform.newTestWorkspace();
+        final TList<Integer> list = new TList<Integer>(workspace.open(""));
+
+        workspace.atomic(new Runnable() {
+
+            @Override
+            public void run() {
+                list.add(0);
+
+                workspace.atomic(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        list.add(1);
+                        list.add(0, -1);
+                    }
+                });
+
+                list.add(2);
+                Assert.assertEquals(Arrays.asList(-1, 0, 1, 2), list);
+            }
+        });
+
+        Assert.assertEquals(Arrays.asList(-1, 0, 1, 2), list);
+        workspace.close();
+    }
+
+    @Test
+    public void appendsDoNotConflict() {
+        final Workspace workspace = Platform.newTestWorkspace();
+        final TList<Integer> list = new TList<Integer>(workspace.open(""));
+        final int threads = 4, writes = 2000;
+        Thread[] array = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * writes;
+
+            array[t] = new Thread() {
+
+                @Override
+                public void run() {
+                    for (int i = 0; i < writes; i++)
+                        list.add(offset + i);
+                }
+            };
+
+            array[t].start();
+        }
+
+        for (int t = 0; t < threads; t++) {
+            try {
+                array[t].join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        Assert.assertEquals(threads * writes, list.size());
+        int[] last = new int[threads];
+        Arrays.fill(last, -1);
+
+        // Each thread's elements are in order
+        for (int value : list) {
+            int t = value / writes;
+            Assert.assertTrue(value > last[t]);
+            last[t] = value;
+        }
+
+        workspace.close();
+    }
+
+    @Test
+    public void listener() {
+        Workspace workspace = Platform.newTestWorkspace();
+        final TList<String> list = new TList<String>(workspace.open(""));
+        final ArrayList<String> events = new ArrayList<String>();
+
+        list.addListener(new ListListener() {
+
+            @Override
+            public void onAdd(int index) {
+                events.add("add " + index);
+            }
+
+            @Override
+            public void onRemove(int index) {
+                events.add("remove " + index);
+            }
+
+            @Override
+            public void onSet(int index) {
+                events.add("set " + index);
+            }
+
+            @Override
+            public void onClear() {
+                events.add("clear");
+            }
+        });
+
+        list.atomic(new Runnable() {
+
+            @Override
+            public void run() {
+                list.add("a");
+                list.add("b");
+            }
+        });
+
+        workspace.flushNotifications();
+        list.add(0, "c");
+        workspace.flushNotifications();
+        list.set(2, "d");
+        workspace.flushNotifications();
+        list.remove(1);
+        workspace.flushNotifications();
+        list.clear();
+        workspace.flushNotifications();
+
+        Assert.assertEquals(Arrays.asList("add 0", "add 1", "add 0", "set 2", "remove 1", "clear"), events);
+        workspace.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void reopen() {
+        Memory memory = new Memory(false);
+        Workspace workspace = Platform.newTestWorkspace();
+        workspace.setCheckpointInterval(16);
+        workspace.addURIHandler(memory);
+        Resource resource = workspace.open("/list");
+        TList<Object> list = new TList<Object>(resource);
+        resource.set(list);
+        workspace.flush();
+
+        ArrayList<Object> reference = new ArrayList<Object>();
+        Random rand = new Random(0);
+
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 100; j++) {
+                Object value = j % 7 == 0 ? null : "" + rand.nextInt();
+
+                if (reference.size() == 0 || rand.nextInt(4) != 0) {
+                    list.add(value);
+                    reference.add(value);
+                } else {
+                    int index = rand.nextInt(reference.size());
+
+                    if (rand.nextBoolean())
+                        Assert.assertEquals(reference.remove(index), list.remove(index));
+                    else {
+                        list.add(index, value);
+                        reference.add(index, value);
+                    }
+                }
+            }
+
+            workspace.flush();
+        }
+
+        workspace.close();
+
+        workspace = Platform.newTestWorkspace();
+        workspace.addURIHandler(memory);
+        resource = workspace.open("/list");
+        list = (TList<Object>) resource.get();
+        Assert.assertEquals(reference, new ArrayList<Object>(list));
+        workspace.close();
+    }
+}
@@ -0,0 +1,290 @@
+/**
+ * This file is part of ObjectFabric (http://objectfabric.org).
+ *
+ * ObjectFabric is licensed under the Apache License, Version 2.0, the terms
+ * of which may be found at http://www.apache.org/licenses/LICENSE-2.0.html.
+ * 
+ * Copyright ObjectFabric Inc.
+ * 
+ * This file is provided AS IS with NO WARRANTY OF ANY KIND, INCLUDING THE
+ * WARRANTY OF DESIGN, MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+
+package org.objectfabric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TMapLongTest extends TestsHelper {
+
+    private static final int OPERATIONS = 20000;
+
+    @Test
+    public void operations() {
+        final Workspace workspace = Platform.newTestWorkspace();
+        final TMapLongLong map = new TMapLongLong(workspace.open(""));
+        final HashMap<Long, Long> reference = new HashMap<Long, Long>();
+        final Random rand = new Random(0);
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            Runnable runnable = new Runnable() {
+
+                @Override
+                public void run() {
+                    int count = 1 + rand.nextInt(20);
+
+                    for (int j = 0; j < count; j++) {
+                        // Few keys so that puts and removes hit existing ones
+                        long key = rand.nextInt(5000) - 100;
+                        int action = rand.nextInt(100);
+
+                        if (action < 60) {
+                            long value = rand.nextLong();
+                            map.put(key, value);
+                            reference.put(key, value);
+                        } else if (action < 80) {
+                            map.remove(key);
+                            reference.remove(key);
+                        } else if (action < 99) {
+                            Long expected = reference.get(key);
+                            Assert.assertEquals(expected != null, map.containsKey(key));
+                            Assert.assertEquals(expected != null ? expected : 0, map.get(key));
+                        } else if (rand.nextInt(100) == 0) {
+                            map.clear();
+                            reference.clear();
+                        }
+                    }
+
+                    Assert.assertEquals(reference.size(), map.size());
+                }
+            };
+
+            if (rand.nextBoolean())
+                runnable.run();
+            else
+                workspace.atomic(runnable);
+        }
+
+        Assert.assertTrue(reference.size() > 1000);
+
+        for (Map.Entry<Long, Long> entry : reference.entrySet())
+            Assert.assertEquals((long) entry.getValue(), map.get(entry.getKey()));
+
+        workspace.close();
+    }
+
+    @Test
+    public void objects() {
+        Workspace workspace = Platform.newTestWorkspace();
+        final TMapIntObject<String> map = new TMapIntObject<String>(workspace.open(""));
+        TMapLongObject<String> longs = new TMapLongObject<String>(workspace.open(""));
+
+        map.put(1, "a");
+        map.put(-1, null);
+        map.put(Integer.MAX_VALUE, "b");
+        longs.put(Long.MIN_VALUE, "c");
+
+        Assert.assertEquals("a", map.get(1));
+        Assert.assertNull(map.get(-1));
+        Assert.assertTrue(map.containsKey(-1));
+        Assert.assertFalse(map.containsKey(2));
+        Assert.assertEquals("b", map.get(Integer.MAX_VALUE));
+        Assert.assertEquals("c", longs.get(Long.MIN_VALUE));
+        Assert.assertEquals(3, map.size());
+
+        map.atomic(new Runnable() {
+
+            @Override
+            public void run() {
+                map.remove(1);
+                map.put(2, "d");
+                Assert.assertNull(map.get(1));
+                Assert.assertEquals(3, map.size());
+
+                // Nested transaction clears previous changes
+                map.atomic(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        map.clear();
+                        map.put(3, "e");
+                    }
+                });
+
+                Assert.assertEquals(1, map.size());
+                Assert.assertNull(map.get(2));
+            }
+        });
+
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals("e", map.get(3));
+        Assert.assertFalse(map.containsKey(Integer.MAX_VALUE));
+        workspace.close();
+    }
+
+    @Test
+    public void conflict() {
+        final Workspace workspace = Platform.newTestWorkspace();
+        final TMapLongLong map = new TMapLongLong(workspace.open(""));
+        final int[] attempts = new int[1];
+        map.put(1, 1);
+
+        workspace.atomic(new Runnable() {
+
+            @Override
+            public void run() {
+                map.put(2, map.get(1) + 1);
+
+                // Concurrent write to the read key, first attempt fails
+                if (attempts[0]++ == 0)
+                    write(map, 1, 10);
+            }
+        });
+
+        Assert.assertEquals(2, attempts[0]);
+        Assert.assertEquals(11, map.get(2));
+        attempts[0] = 0;
+
+        workspace.atomic(new Runnable() {
+
+            @Override
+            public void run() {
+                map.put(3, 3);
+
+                // Blind writes do not conflict
+                if (attempts[0]++ == 0)
+                    write(map, 3, 4);
+            }
+        });
+
+        Assert.assertEquals(1, attempts[0]);
+        Assert.assertEquals(3, map.get(3));
+        Assert.assertEquals(3, map.size());
+        workspace.close();
+    }
+
+    private static void write(final TMapLongLong map, final long key, final long value) {
+        Thread thread = new Thread() {
+
+            @Override
+            public void run() {
+                map.put(key, value);
+            }
+        };
+
+        thread.start();
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void listener() {
+        Workspace workspace = Platform.newTestWorkspace();
+        TMapLongLong map = new TMapLongLong(workspace.open(""));
+        final ArrayList<String> events = new ArrayList<String>();
+
+        map.addListener(new KeyListener<Long>() {
+
+            @Override
+            public void onPut(Long key) {
+                events.add("put " + key);
+            }
+
+            @Override
+            public void onRemove(Long key) {
+                events.add("remove " + key);
+            }
+
+            @Override
+            public void onClear() {
+                events.add("clear");
+            }
+        });
+
+        map.put(1, 1);
+        workspace.flushNotifications();
+        map.put(2, 2);
+        workspace.flushNotifications();
+        map.remove(1);
+        workspace.flushNotifications();
+        map.remove(3);
+        workspace.flushNotifications();
+        map.clear();
+        workspace.flushNotifications();
+
+        Assert.assertEquals(Arrays.asList("put 1", "put 2", "remove 1", "clear"), events);
+        workspace.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void reopen() {
+        Memory memory = new Memory(false);
+        Workspace workspace = Platform.newTestWorkspace();
+        workspace.setCheckpointInterval(16);
+        workspace.addURIHandler(memory);
+        Resource resource = workspace.open("/map");
+        TMapLongLong map = new TMapLongLong(resource);
+        resource.set(map);
+        Resource resourceObjects = workspace.open("/objects");
+        TMapIntObject<Object> objects = new TMapIntObject<Object>(resourceObjects);
+        resourceObjects.set(objects);
+        workspace.flush();
+
+        HashMap<Long, Long> reference = new HashMap<Long, Long>();
+        HashMap<Integer, Object> referenceObjects = new HashMap<Integer, Object>();
+        Random rand = new Random(0);
+
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 100; j++) {
+                long key = rand.nextInt(2000);
+                int action = rand.nextInt(4);
+
+                if (action == 0) {
+                    map.remove(key);
+                    reference.remove(key);
+                    objects.remove((int) key);
+                    referenceObjects.remove((int) key);
+                } else {
+                    long value = rand.nextLong();
+                    map.put(key, value);
+                    reference.put(key, value);
+                    Object object = j % 7 == 0 ? null : "" + value;
+                    objects.put((int) key, object);
+                    referenceObjects.put((int) key, object);
+                }
+            }
+
+            workspace.flush();
+        }
+
+        workspace.close();
+
+        workspace = Platform.newTestWorkspace();
+        workspace.addURIHandler(memory);
+        map = (TMapLongLong) workspace.open("/map").get();
+        objects = (TMapIntObject<Object>) workspace.open("/objects").get();
+        Assert.assertEquals(reference.size(), map.size());
+        Assert.assertEquals(referenceObjects.size(), objects.size());
+
+        for (Map.Entry<Long, Long> entry : reference.entrySet())
+            Assert.assertEquals((long) entry.getValue(), map.get(entry.getKey()));
+
+        for (Map.Entry<Integer, Object> entry : referenceObjects.entrySet()) {
+            Assert.assertTrue(objects.containsKey(entry.getKey()));
+            Assert.assertEquals(entry.getValue(), objects.get(entry.getKey()));
+        }
+
+        workspace.close();
+    }
+}
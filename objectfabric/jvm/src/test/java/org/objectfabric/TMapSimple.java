@@ -15,6 +15,7 @@ package org.objectfabric;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -215,6 +216,81 @@ public class TMapSimple extends TestsHelper {
         workspace.close();
     }
 
+    /**
+     * Shared version grows incrementally, readers must not miss entries being migrated.
+     */
+    @Test
+    public void grow() throws Exception {
+        final Workspace workspace = Platform.newTestWorkspace();
+        final TMap<Integer, Integer> map = new TMap<Integer, Integer>(workspace.open(""));
+        final int count = Debug.ENABLED ? 5000 : 100000, batch = 10;
+        final AtomicInteger committed = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+
+        Thread reader = new Thread() {
+
+            @Override
+            public void run() {
+                Random rand = new Random(0);
+
+                while (committed.get() < count) {
+                    int last = committed.get();
+
+                    for (int i = 0; i < 100 && last > 0; i++) {
+                        int key = rand.nextInt(last);
+                        Integer value = map.get(key);
+
+                        // Odd keys are updated, multiples of 7 removed
+                        if (key % 7 != 0 && (value == null || (value != key && value != -key)))
+                            errors.incrementAndGet();
+                    }
+                }
+            }
+        };
+
+        reader.start();
+
+        for (int start = 0; start < count; start += batch) {
+            final int first = start;
+
+            workspace.atomic(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int i = first; i < first + batch; i++) {
+                        map.put(i, i);
+
+                        if (i > 0 && i % 7 == 0)
+                            map.remove(i - 7);
+
+                        if (i % 2 == 1)
+                            map.put(i / 2, -(i / 2));
+                    }
+                }
+            });
+
+            committed.set(first + batch);
+        }
+
+        reader.join();
+        Assert.assertEquals(0, errors.get());
+
+        HashMap<Integer, Integer> ref = new HashMap<Integer, Integer>();
+
+        for (int i = 0; i < count; i++) {
+            ref.put(i, i);
+
+            if (i > 0 && i % 7 == 0)
+                ref.remove(i - 7);
+
+            if (i % 2 == 1)
+                ref.put(i / 2, -(i / 2));
+        }
+
+        check(map, ref);
+        workspace.close();
+    }
+
     @Test
     public void loop1() {
         final Workspace workspace = Platform.newTestWorkspace();
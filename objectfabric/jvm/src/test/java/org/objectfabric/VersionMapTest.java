@@ -15,6 +15,7 @@ package org.objectfabric;
 import org.junit.Assert;
 import org.junit.Test;
 import org.objectfabric.TObject.Transaction;
+import org.objectfabric.TObject.Version;
 import org.objectfabric.generated.SimpleClass;
 
 public class VersionMapTest extends TestsHelper {
@@ -53,4 +54,61 @@ public class VersionMapTest extends TestsHelper {
 
         _w.close();
     }
+
+    @Test
+    public void filter() {
+        _w = Platform.newTestWorkspace();
+
+        Transaction barrier = _w.startImpl(0);
+
+        SimpleClass a = new SimpleClass(_w.open(""));
+        a.int0(1);
+
+        SimpleClass b = new SimpleClass(_w.open(""));
+        b.int0(2);
+
+        // Second commit merged first one
+        Assert.assertEquals(2, _w.snapshot().getVersionMaps().length);
+        long[] merged = _w.snapshot().last().getFilter();
+
+        Assert.assertTrue(VersionMap.intersects(merged, VersionMap.createFilter(new Version[] { a.shared_() })));
+        Assert.assertTrue(VersionMap.intersects(merged, VersionMap.createFilter(new Version[] { b.shared_() })));
+        Assert.assertFalse(VersionMap.intersects(merged, VersionMap.createFilter(new Version[0])));
+
+        TransactionManager.abort(barrier);
+        _w.close();
+    }
+
+    @Test
+    public void mergeOnPublish() {
+        _w = Platform.newTestWorkspace();
+
+        Transaction barrier = _w.startImpl(0);
+
+        SimpleClass a = new SimpleClass(_w.open(""));
+        a.int0(1);
+        VersionMap first = _w.snapshot().last();
+
+        // Same object, merged in a copy of first map's version
+        a.int1(2);
+
+        SimpleClass b = new SimpleClass(_w.open(""));
+        b.int0(3);
+
+        Assert.assertEquals(2, _w.snapshot().getVersionMaps().length);
+        Assert.assertTrue(first.isMergedToAnotherMap());
+        Assert.assertEquals(0, first.getWatchers());
+        Assert.assertEquals(1, a.int0());
+        Assert.assertEquals(2, a.int1());
+        Assert.assertEquals(3, b.int0());
+
+        TransactionManager.abort(barrier);
+
+        Assert.assertEquals(1, _w.snapshot().getVersionMaps().length);
+        Assert.assertEquals(1, a.int0());
+        Assert.assertEquals(2, a.int1());
+        Assert.assertEquals(3, b.int0());
+
+        _w.close();
+    }
 }
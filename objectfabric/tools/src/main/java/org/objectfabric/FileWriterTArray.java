@@ -60,8 +60,15 @@ class FileWriterTArray extends FileGenerator {
     }
 
     protected void replaceSpecific(StringBuilder template) {
-        if (_type == TObject.class)
+        if (_type == TObject.class) {
             Utils.replace(template, "Immutable.FLOAT.type()", "TObject.TYPE");
+            Utils.replace(template, "float[] unit", "TObject[] unit");
+        }
+
+        if (_type == TObject.class || _type == Object.class)
+            Utils.replace(template, "/* generic_parameter */", "<? extends E>");
+        else
+            Utils.replace(template, "/* generic_parameter */", "");
 
         if (_type == Object.class) {
             Utils.replace(template, ", Immutable.FLOAT.type()", "");
@@ -70,6 +77,9 @@ class FileWriterTArray extends FileGenerator {
             Utils.replace(template, "public final float get", "public final E get");
             Utils.replace(template, "return value;", "return (E) value;");
             Utils.replace(template, "set(int index, float value)", "set(int index, E value)");
+            Utils.replace(template, "float[] array", "E[] array");
+            Utils.replace(template, "= (float) version.get(j);", "= (E) version.get(j);");
+            Utils.replace(template, "fill(int index, int length, float value)", "fill(int index, int length, E value)");
             Utils.replace(template, "java.util.Iterator<Float>", "java.util.Iterator<E>");
             Utils.replace(template, "public Float next()", "public E next()");
             Utils.replace(template, "CAN_BE_TOBJECT = false;", "CAN_BE_TOBJECT = true;");